@@ -0,0 +1,35 @@
+#!/usr/bin/env sh
+# Password throughput benchmark of the RST-2, measures the passwords per
+# second of
+#     rst-2.jar --type PASSWORD -l <length> -n <count> [policy]
+# for the password lengths 8, 16, 32 and 64. The start-up time, measured by
+# generating a single password, is subtracted from each run.
+#
+# Usage: password.sh <directory of rst-2.jar> [count] [policy]
+# The default policy of the PASSWORD type is used if no policy is given.
+# Requires GNU date for the nanosecond clock.
+
+dir=$(cd "${1:-target}" && pwd)
+count=${2:-200000}
+policy=${3:-}
+
+# prints the milliseconds of generating the given number of passwords
+elapsed() {
+    start=$(date +%s%N)
+    if [ -n "${policy}" ]; then
+        java -jar "${dir}/rst-2.jar" --socket "${dir}/rst-2.bench.none" --type PASSWORD -l "$1" -n "$2" --policy "${policy}" </dev/null >/dev/null
+    else
+        java -jar "${dir}/rst-2.jar" --socket "${dir}/rst-2.bench.none" --type PASSWORD -l "$1" -n "$2" </dev/null >/dev/null
+    fi || return 1
+    end=$(date +%s%N)
+    echo $(( (end - start) / 1000000 ))
+}
+
+echo "passwords: ${count}, policy: ${policy:-<default>}"
+for length in 8 16 32 64; do
+    startup=$(elapsed "${length}" 1) || exit 1
+    total=$(elapsed "${length}" "${count}") || exit 1
+    run=$((total - startup))
+    [ ${run} -lt 1 ] && run=1
+    echo "length ${length}: ${run} ms, $((count * 1000 / run)) passwords/s"
+done
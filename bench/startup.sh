@@ -0,0 +1,52 @@
+#!/usr/bin/env sh
+# Startup benchmark of the RST-2, measures the time-to-first-byte of
+#     rst-2.jar --type BASE64 -l 32
+# with the default JVM start-up and with the class-data sharing archive
+# (rst-2.jsa) if it exists next to the jar.
+#
+# Usage: startup.sh <directory of rst-2.jar> [runs] [limit in ms]
+# The benchmark fails if the median time-to-first-byte of any measured
+# configuration exceeds the limit, a limit of 0 disables the check.
+# Requires GNU date for the nanosecond clock.
+
+dir=$(cd "${1:-target}" && pwd)
+runs=${2:-10}
+limit=${3:-0}
+
+# prints the milliseconds from launching until the first byte of output
+ttfb() {
+    start=$(date +%s%N)
+    first=$(java -Xmx20M "$@" -jar "${dir}/rst-2.jar" --socket "${dir}/rst-2.bench.none" --type BASE64 -l 32 </dev/null |
+            { head -c 1 >/dev/null; date +%s%N; cat >/dev/null; })
+    echo $(( (first - start) / 1000000 ))
+}
+
+# prints the median of the time-to-first-byte of the given JVM options
+median() {
+    ttfb "$@" >/dev/null
+    i=0
+    while [ ${i} -lt ${runs} ]; do
+        ttfb "$@"
+        i=$((i + 1))
+    done | sort -n | awk '{ t[NR] = $1 } END { print t[int((NR + 1) / 2)] }'
+}
+
+# fails the benchmark after all configurations are measured
+failed=0
+# checks a median against the limit
+check() {
+    if [ ${limit} -gt 0 ] && [ ${2} -gt ${limit} ]; then
+        echo "startup regression (${1}): ${2} ms > ${limit} ms" >&2
+        failed=1
+    fi
+}
+
+default=$(median -Xshare:auto)
+echo "time-to-first-byte (default): ${default} ms"
+check default "${default}"
+if [ -f "${dir}/rst-2.jsa" ]; then
+    cds=$(median -XX:SharedArchiveFile="${dir}/rst-2.jsa" -Xshare:auto)
+    echo "time-to-first-byte (AppCDS):  ${cds} ms"
+    check AppCDS "${cds}"
+fi
+exit ${failed}
@@ -0,0 +1,35 @@
+#!/usr/bin/env sh
+# Creates the class-data sharing archive (AppCDS) of the RST-2 next to the jar.
+# The archive is bound to the Java runtime it is created with, rerun this
+# script after changing or upgrading the Java Runtime Environment.
+# Requires Java 11 or later.
+
+dir=$(cd "${0%/*}" && pwd)
+jar="${dir}/rst-2.jar"
+jsa="${dir}/rst-2.jsa"
+lst="${dir}/rst-2.classlist"
+
+which java 2>&1 1>/dev/null || ! (
+    echo "Error: JRE not found" >&2
+    echo "Java Runtime Environment is required to execute the RST-2." >&2
+    echo "Please install the Java Runtime Environment of your platform." >&2
+) || exit 1
+
+# training runs of typical commands, the loaded classes of each run are merged
+# into one class list; training runs must never be forwarded to a daemon
+runs=0
+train() {
+    runs=$((runs + 1))
+    java -Xshare:off -XX:DumpLoadedClassList="${lst}.${runs}" -jar "${jar}" --socket "${jsa}.none" "$@" </dev/null >/dev/null
+}
+rm -f "${lst}".* "${jsa}"
+train --type BASE64 -l 32 &&
+train --type BASE64 -l 32 -S &&
+train --type ALPHANUMERIC -l 32 &&
+train --type WEIGHTED -l 32 -s seed "1:0..9a..z" &&
+train --version &&
+train --help &&
+cat "${lst}".* | sort -u > "${lst}" &&
+rm -f "${lst}".* &&
+java -Xshare:dump -XX:SharedClassListFile="${lst}" -XX:SharedArchiveFile="${jsa}" -cp "${jar}" >/dev/null &&
+echo "Created class-data sharing archive: ${jsa}"
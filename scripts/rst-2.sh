@@ -1,7 +1,12 @@
 #!/usr/bin/env sh
 
+dir=$(cd "${0%/*}" && pwd)
+# use the class-data sharing archive created by rst-2-cds.sh if available
+cds=""
+[ -f "${dir}/rst-2.jsa" ] && cds="-XX:SharedArchiveFile=${dir}/rst-2.jsa -Xshare:auto"
+
 which java 2>&1 1>/dev/null || ! (
     echo "Error: JRE not found" >&2
     echo "Java Runtime Environment is required to execute the RST-2." >&2
     echo "Please install the Java Runtime Environment of your platform." >&2
-) && java -Xmx20M -jar ${0%/*}/rst-2.jar "$@"
+) && java -Xmx20M ${cds} -jar "${dir}/rst-2.jar" "$@"
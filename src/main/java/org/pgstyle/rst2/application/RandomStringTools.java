@@ -1,18 +1,31 @@
 package org.pgstyle.rst2.application;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.Objects;
 import java.util.concurrent.Callable;
 
 import org.pgstyle.rst2.application.cli.CmdUtils;
 import org.pgstyle.rst2.application.cli.CommandLineArguments;
 import org.pgstyle.rst2.application.cli.RstConfigurator;
+import org.pgstyle.rst2.application.cli.RstJobRunner;
+import org.pgstyle.rst2.application.cli.RstShardRunner;
+import org.pgstyle.rst2.application.common.Checkpoint;
 import org.pgstyle.rst2.application.common.RandomStringGenerator;
 import org.pgstyle.rst2.application.common.RstConfig;
 import org.pgstyle.rst2.application.common.RstResources;
 import org.pgstyle.rst2.application.common.RstUtils;
 import org.pgstyle.rst2.application.gui.RstMainFrame;
+import org.pgstyle.rst2.metrics.MeteredOutputStream;
+import org.pgstyle.rst2.metrics.ProgressReporter;
+import org.pgstyle.rst2.metrics.RunStatistics;
+import org.pgstyle.rst2.random.RandomUtils;
 
 /**
  * This class is the main logic controller of the {@code RandomStringTools}
@@ -43,11 +56,34 @@ public final class RandomStringTools implements Callable<Integer> {
      * @param cmdlArgs the loaded command-line arguments
      */
     public RandomStringTools(CommandLineArguments cmdlArgs) {
+        this(cmdlArgs, CmdUtils.stdout(), CmdUtils.stderr());
+    }
+
+    /**
+     * Creates an application controller with loaded command-line arguments
+     * and redirected standard output streams.
+     *
+     * @param cmdlArgs the loaded command-line arguments
+     * @param stdout the stream for the standard output
+     * @param stderr the stream for the standard error output
+     * @throws NullPointerException
+     *         if the argument {@code stdout} or {@code stderr} is
+     *         {@code null}
+     */
+    public RandomStringTools(CommandLineArguments cmdlArgs, PrintStream stdout, PrintStream stderr) {
+        Objects.requireNonNull(stdout, "stdout == null");
+        Objects.requireNonNull(stderr, "stderr == null");
         this.cmdlArgs = cmdlArgs;
+        this.stdout = stdout;
+        this.stderr = stderr;
     }
 
     /** Command-line argument storage */
     private final CommandLineArguments cmdlArgs;
+    /** Standard output stream of this controller */
+    private final PrintStream stdout;
+    /** Standard error output stream of this controller */
+    private final PrintStream stderr;
 
     /**
      * Use the application controller.
@@ -58,10 +94,14 @@ public final class RandomStringTools implements Callable<Integer> {
     public Integer call() {
         // standard command line support -h/-v
         if (this.cmdlArgs.help()) {
-            return RandomStringTools.help();
+            return this.printResourceText("rst.text.help");
         }
         if (this.cmdlArgs.version()) {
-            return RandomStringTools.version();
+            return this.printResourceText("rst.text.version");
+        }
+        if (!this.cmdlArgs.jobs().isEmpty()) {
+            // batch mode, each job is configured with its own arguments
+            return new RstJobRunner(Paths.get(this.cmdlArgs.jobs()), this.cmdlArgs.directory(), this.stdout, this.stderr).call();
         }
         RstConfig config = new RstConfigurator(this.cmdlArgs).getConfig();
         if (this.cmdlArgs.gui()) {
@@ -89,7 +129,7 @@ public final class RandomStringTools implements Callable<Integer> {
         }
         else {
             // start CLI mode
-            return RandomStringTools.main(config);
+            return this.main(config);
         }
     }
 
@@ -100,23 +140,115 @@ public final class RandomStringTools implements Callable<Integer> {
      *                  arguments
      * @return the exiting state, a non-zero state indicate error has occurred
      */
-    private static int main(RstConfig rstConfig) {
+    private int main(RstConfig rstConfig) {
         if (rstConfig.skip()) {
             return RandomStringTools.SUCCESS;
         }
+        if (!this.cmdlArgs.shards().isEmpty()) {
+            if (!this.cmdlArgs.checkpoint().isEmpty() || this.cmdlArgs.resume() || this.cmdlArgs.progress() || this.cmdlArgs.stats()) {
+                this.stderr.printf("shards cannot be combined with checkpoint, resume, progress or stats%n");
+                return RandomStringTools.FAIL_ARG;
+            }
+            return new RstShardRunner(rstConfig, Integer.parseInt(this.cmdlArgs.shards()), this.stderr).call();
+        }
+        File checkpointFile = this.cmdlArgs.checkpoint().isEmpty() ? null : new File(this.cmdlArgs.checkpoint());
+        if (this.cmdlArgs.resume() && Objects.isNull(checkpointFile)) {
+            this.stderr.printf("resume requires a checkpoint file%n");
+            return RandomStringTools.FAIL_ARG;
+        }
+        if (Objects.nonNull(checkpointFile) && Objects.isNull(rstConfig.output())) {
+            this.stderr.printf("checkpoint requires an output file%n");
+            return RandomStringTools.FAIL_ARG;
+        }
         try {
+            Checkpoint checkpoint = null;
+            if (this.cmdlArgs.resume()) {
+                checkpoint = Checkpoint.load(checkpointFile);
+                if (Objects.isNull(rstConfig.seed())) {
+                    rstConfig.seed(checkpoint.seed());
+                }
+            }
+            else if (Objects.nonNull(checkpointFile) && Objects.isNull(rstConfig.seed())) {
+                // an explicit seed makes the generation reproducible
+                rstConfig.seed(Long.toHexString(RandomUtils.randomLongSeed()));
+            }
+            RunStatistics stats = null;
             RandomStringGenerator rsg = new RandomStringGenerator(rstConfig);
-            try (PrintStream ps = Objects.nonNull(rstConfig.output()) ? RstUtils.openFile(rstConfig.output()) : CmdUtils.stdout()) {
-                do {
-                    RstUtils.write(ps, rsg.step());
-                } while (rsg.available());
+            long offset = 0;
+            if (Objects.nonNull(checkpoint)) {
+                rsg.resume(checkpoint);
+                offset = checkpoint.offset();
+                // discard the partial output written after the checkpoint
+                try (FileChannel channel = FileChannel.open(rstConfig.output().toPath(), StandardOpenOption.WRITE)) {
+                    if (channel.size() < offset) {
+                        throw new ApplicationException(String.format("output is shorter than the checkpoint: %d < %d", channel.size(), offset));
+                    }
+                    channel.truncate(offset);
+                }
             }
+            // buffered without auto flush, the stream is flushed on close
+            try (PrintStream ps = Objects.nonNull(rstConfig.output()) ? RstUtils.openFile(rstConfig.output(), Objects.nonNull(checkpoint))
+                                                                      : new PrintStream(new BufferedOutputStream(new MeteredOutputStream(this.stdout), 1 << 16), false);
+                 ProgressReporter progress = this.cmdlArgs.progress() ? new ProgressReporter(this.stderr, rsg.record() ? rstConfig.count() : rstConfig.length(),
+                                                                                             rsg.count(), offset, Objects.nonNull(System.console()))
+                                                                      : null) {
+                long saved = System.currentTimeMillis();
+                if (Objects.nonNull(checkpointFile)) {
+                    rsg.checkpoint(offset).save(checkpointFile, rstConfig.output());
+                }
+                // the phases are timed only for the statistics
+                if (this.cmdlArgs.stats()) {
+                    stats = new RunStatistics();
+                }
+                long mark = Objects.nonNull(stats) ? stats.mark() : 0;
+                while (rsg.available()) {
+                    byte[] step = rsg.stepBytes();
+                    if (Objects.nonNull(stats)) {
+                        mark = stats.generated(mark);
+                    }
+                    if (rsg.record()) {
+                        ps.write(step, 0, step.length);
+                        offset += step.length;
+                    }
+                    else {
+                        offset += RstUtils.write(ps, step);
+                    }
+                    if (Objects.nonNull(stats)) {
+                        mark = stats.written(mark);
+                    }
+                    if (Objects.nonNull(progress)) {
+                        progress.update(rsg.count(), offset);
+                    }
+                    if (Objects.nonNull(checkpointFile) && System.currentTimeMillis() - saved >= Checkpoint.INTERVAL) {
+                        // checkError flushes the stream before checking
+                        if (ps.checkError()) {
+                            throw new IOException("failed to write output: " + rstConfig.output());
+                        }
+                        rsg.checkpoint(offset).save(checkpointFile, rstConfig.output());
+                        saved = System.currentTimeMillis();
+                    }
+                }
+                if (Objects.nonNull(checkpointFile) && ps.checkError()) {
+                    throw new IOException("failed to write output: " + rstConfig.output());
+                }
+            }
+            if (Objects.nonNull(checkpointFile)) {
+                Files.deleteIfExists(checkpointFile.toPath());
+            }
+            if (Objects.nonNull(stats)) {
+                stats.finish(offset, rsg.count(), rsg.record());
+                stats.report(this.stderr);
+            }
+        }
+        catch (IllegalArgumentException e) {
+            this.stderr.printf("invalid argument%n%s", RstUtils.stackTraceOf(e));
+            return RandomStringTools.FAIL_ARG;
         }
         catch (RuntimeException e) {
-            CmdUtils.stderr("failed to engage randomiser%n%s", RstUtils.stackTraceOf(e));
+            this.stderr.printf("failed to engage randomiser%n%s", RstUtils.stackTraceOf(e));
             return RandomStringTools.FAIL_INIT;
         } catch (IOException e) {
-            CmdUtils.stderr("failed write result%n%s", RstUtils.stackTraceOf(e));
+            this.stderr.printf("failed write result%n%s", RstUtils.stackTraceOf(e));
             return RandomStringTools.FAIL_WRITE;
         }
         return RandomStringTools.SUCCESS;
@@ -126,7 +258,7 @@ public final class RandomStringTools implements Callable<Integer> {
      * Prints the header text.
      */
     public static void head() {
-        RandomStringTools.printResourceText("rst.text.head");
+        RandomStringTools.printResourceText("rst.text.head", CmdUtils.stdout(), CmdUtils.stderr());
     }
 
     /**
@@ -135,7 +267,7 @@ public final class RandomStringTools implements Callable<Integer> {
      * @return the exiting state, a non-zero state indicate error has occurred
      */
     public static int help() {
-        return RandomStringTools.printResourceText("rst.text.help");
+        return RandomStringTools.printResourceText("rst.text.help", CmdUtils.stdout(), CmdUtils.stderr());
     }
 
     /**
@@ -144,22 +276,35 @@ public final class RandomStringTools implements Callable<Integer> {
      * @return the exiting state, a non-zero state indicate error has occurred
      */
     public static int version() {
-        return RandomStringTools.printResourceText("rst.text.version");
+        return RandomStringTools.printResourceText("rst.text.version", CmdUtils.stdout(), CmdUtils.stderr());
+    }
+
+    /**
+     * Prints the text in a resource file onto the output streams of this
+     * controller.
+     *
+     * @param key the key of the resource
+     * @return the exiting state, a non-zero state indicate error has occurred
+     */
+    private int printResourceText(String key) {
+        return RandomStringTools.printResourceText(key, this.stdout, this.stderr);
     }
 
     /**
      * Prints the text in a resource file.
      *
      * @param key the key of the resource
+     * @param stdout the stream for the standard output
+     * @param stderr the stream for the standard error output
      * @return the exiting state, a non-zero state indicate error has occurred
      */
-    private static int printResourceText(String key) {
+    private static int printResourceText(String key, PrintStream stdout, PrintStream stderr) {
         if (RstResources.exist(key)) {
-            CmdUtils.stdout(RstResources.get(key));
+            stdout.print(RstResources.get(key));
             return RandomStringTools.SUCCESS;
         }
         else {
-            CmdUtils.stderr(RstResources.get(key));
+            stderr.print(RstResources.get(key));
             return RandomStringTools.FAIL_DOC;
         }
     }
@@ -2,6 +2,8 @@ package org.pgstyle.rst2.application.cli;
 
 import java.io.Console;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -91,6 +93,64 @@ public final class CmdUtils {
         CmdUtils.stderr(String.format(format, objects));
     }
 
+    /**
+     * Splits a command line into arguments as a shell does. The arguments are
+     * separated by whitespaces; characters in single quotes are literal,
+     * {@code \} escapes {@code "} and {@code \} in double quotes and any
+     * character out of quotes.
+     *
+     * @param line the command line
+     * @return the arguments in the command line
+     * @throws IllegalArgumentException
+     *         if a quote is not closed
+     */
+    public static String[] split(String line) {
+        List<String> args = new ArrayList<>();
+        StringBuilder arg = new StringBuilder();
+        boolean started = false;
+        char quote = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+                else if (c == '\\' && quote == '"' && i + 1 < line.length() && (line.charAt(i + 1) == '"' || line.charAt(i + 1) == '\\')) {
+                    arg.append(line.charAt(++i));
+                }
+                else {
+                    arg.append(c);
+                }
+            }
+            else if (Character.isWhitespace(c)) {
+                if (started) {
+                    args.add(arg.toString());
+                    arg.setLength(0);
+                    started = false;
+                }
+            }
+            else {
+                started = true;
+                if (c == '"' || c == '\'') {
+                    quote = c;
+                }
+                else if (c == '\\' && i + 1 < line.length()) {
+                    arg.append(line.charAt(++i));
+                }
+                else {
+                    arg.append(c);
+                }
+            }
+        }
+        if (quote != 0) {
+            throw new IllegalArgumentException("unclosed quote: " + quote);
+        }
+        if (started) {
+            args.add(arg.toString());
+        }
+        return args.toArray(new String[0]);
+    }
+
     /** Unnewable @throws UnsupportedOperationException always */
     private CmdUtils() {
         throw new UnsupportedOperationException("unnewable");
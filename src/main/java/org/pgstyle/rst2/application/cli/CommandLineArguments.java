@@ -1,5 +1,7 @@
 package org.pgstyle.rst2.application.cli;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -30,32 +32,52 @@ public final class CommandLineArguments {
     /** Registered command-line argument keys. */
     private static final Map<String, String> cmdlArgs;
     private static final Set<String>         pFlags;
+    /** The arguments of file paths, relative to the working directory. */
+    private static final Set<String>         paths;
 
     static {
-        cmdlArgs = new HashMap<>(17);
+        cmdlArgs = new HashMap<>(40);
         // put named argument here
+        cmdlArgs.put("--checkpoint", "Checkpoint");
         cmdlArgs.put("-h", "Help");
         cmdlArgs.put("--help", "Help");
         cmdlArgs.put("-i", "Interactive");
         cmdlArgs.put("--interactive", "Interactive");
         cmdlArgs.put("--gui", "GUI");
+        cmdlArgs.put("--jobs", "Jobs");
+        cmdlArgs.put("-n", "Count");
+        cmdlArgs.put("--count", "Count");
         cmdlArgs.put("-l", "Length");
         cmdlArgs.put("--length", "Length");
+        cmdlArgs.put("--policy", "Policy");
+        cmdlArgs.put("--progress", "Progress");
         cmdlArgs.put("-o", "Output");
         cmdlArgs.put("--output", "Output");
         cmdlArgs.put("-w", "Weight");
         cmdlArgs.put("--weight", "Weight");
+        cmdlArgs.put("--resume", "Resume");
         cmdlArgs.put("-S", "Secure");
         cmdlArgs.put("--secure", "Secure");
         cmdlArgs.put("-s", "Seed");
         cmdlArgs.put("--seed", "Seed");
+        cmdlArgs.put("--shards", "Shards");
+        cmdlArgs.put("--stats", "Stats");
         cmdlArgs.put("-t", "Type");
         cmdlArgs.put("--type", "Type");
+        cmdlArgs.put("--template", "Template");
+        cmdlArgs.put("-u", "Unique");
+        cmdlArgs.put("--unique", "Unique");
         cmdlArgs.put("-v", "Version");
         cmdlArgs.put("--version", "Version");
+        cmdlArgs.put("--daemon", "Daemon");
+        cmdlArgs.put("--socket", "Socket");
         pFlags = new HashSet<>(2);
         pFlags.add("Help");
         pFlags.add("Version");
+        paths = new HashSet<>(4);
+        paths.add("Checkpoint");
+        paths.add("Jobs");
+        paths.add("Output");
     }
 
     /**
@@ -70,8 +92,24 @@ public final class CommandLineArguments {
      *         main method
      */
     public static CommandLineArguments fromArgs(String[] args){
+        return CommandLineArguments.fromArgs(args, true);
+    }
+
+    /**
+     * Parses arguments and creates an argument container instance containing
+     * the parsed arguments.
+     *
+     * @param args the arguments array
+     * @param console tests the availability of the standard input and falls
+     *                back to GUI mode if it is not available when {@code true}
+     * @return an argument container instance containing the parsed arguments
+     * @throws IllegalArgumentException
+     *         if the arguments contain invalid argument key; or the arguments
+     *         have an incompatible type; or too many arguments passed
+     */
+    public static CommandLineArguments fromArgs(String[] args, boolean console){
         try {
-            return new CommandLineArguments(CommandLineArguments.processArguments(args));
+            return new CommandLineArguments(CommandLineArguments.processArguments(args), console);
         }
         catch (RuntimeException e) {
             throw new ApplicationException("failed to process arguments", e);
@@ -97,6 +135,7 @@ public final class CommandLineArguments {
     private static Map<String, String> defaultArguments() {
         Map<String, String> argMap = new HashMap<>();
         // put default arguments here
+        argMap.put("Count", "1");
         argMap.put("Length", "256");
         argMap.put("Ratio", Double.toString(10.0 / 36));
         argMap.put("Type", "BASE64");
@@ -172,12 +211,19 @@ public final class CommandLineArguments {
         case "Help":
         case "Version":
         case "Interactive":
+        case "Progress":
+        case "Resume":
         case "Secure":
+        case "Stats":
+        case "Unique":
         case "GUI":
+        case "Daemon":
             map.put(name, name);
             break;
         // arguments
+        case "Count":
         case "Length":
+        case "Shards":
             try {
                 map.put(name, String.valueOf(Integer.parseInt(args.next())));
             }
@@ -193,8 +239,13 @@ public final class CommandLineArguments {
                 throw new IllegalArgumentException(String.format("invalid type for argument \"%s\"", arg), e);
             }
             break;
+        case "Checkpoint":
+        case "Jobs":
         case "Output":
+        case "Policy":
         case "Seed":
+        case "Socket":
+        case "Template":
         case "Weight":
             map.put(name, args.next());
             break;
@@ -237,6 +288,14 @@ public final class CommandLineArguments {
                 map.put("Weight", arg);
                 break;
             }
+            else if ("TEMPLATE".equals(map.get("Type"))) {
+                map.put("Template", arg);
+                break;
+            }
+            else if ("PASSWORD".equals(map.get("Type"))) {
+                map.put("Policy", arg);
+                break;
+            }
         default:
             throw new IllegalArgumentException("two many arguments: " + position);
         }
@@ -260,10 +319,23 @@ public final class CommandLineArguments {
      *         if the argument {@code arguments} is {@code null}
      */
     public CommandLineArguments(Map<String, String> arguments) {
+        this(arguments, true);
+    }
+
+    /**
+     * Creates an argument container with the pre-processed argument map.
+     *
+     * @param arguments the argument map
+     * @param console tests the availability of the standard input and falls
+     *                back to GUI mode if it is not available when {@code true}
+     * @throws NullPointerException
+     *         if the argument {@code arguments} is {@code null}
+     */
+    public CommandLineArguments(Map<String, String> arguments, boolean console) {
         Objects.requireNonNull(arguments, "arguments == null");
         this.arguments = new HashMap<>();
         this.arguments.putAll(arguments);
-        if (!RstUtils.sysin()) {
+        if (console && !this.daemon() && !RstUtils.sysin()) {
             // no system in available, forced gui mode and disable interactive
             this.arguments.putIfAbsent("GUI", "GUI");
             this.arguments.remove("Interactive");
@@ -283,6 +355,47 @@ public final class CommandLineArguments {
         return arguments.containsKey(key);
     }
 
+    /**
+     * Returns a copy of the argument map of this container.
+     *
+     * @return a copy of the argument map
+     */
+    public Map<String, String> arguments() {
+        return new HashMap<>(this.arguments);
+    }
+
+    /**
+     * Creates a copy of this container with the path arguments resolved
+     * against the given working directory. The working directory is recorded
+     * as the {@code Directory} argument for the resolution of the paths not
+     * taken from the command-line, e.g. the paths in a job file.
+     *
+     * @param directory the working directory
+     * @return an argument container with absolute path arguments
+     * @throws NullPointerException
+     *         if the argument {@code directory} is {@code null}
+     */
+    public CommandLineArguments resolve(Path directory) {
+        Objects.requireNonNull(directory, "directory == null");
+        Path absolute = directory.toAbsolutePath().normalize();
+        Map<String, String> arguments = this.arguments();
+        for (String name : CommandLineArguments.paths) {
+            arguments.computeIfPresent(name, (k, v) -> v.isEmpty() ? v : absolute.resolve(v).normalize().toString());
+        }
+        arguments.put("Directory", absolute.toString());
+        return new CommandLineArguments(arguments, false);
+    }
+
+    /**
+     * Checks if the {@code Daemon} flag is set.
+     *
+     * @return {@code true} if the {@code Daemon} flag is set; or {@code false}
+     *         otherwise
+     */
+    public boolean daemon() {
+        return this.isFlagSet("Daemon");
+    }
+
     /**
      * Checks if the {@code Help} flag is set.
      *
@@ -313,6 +426,49 @@ public final class CommandLineArguments {
         return this.isFlagSet("GUI");
     }
 
+    /**
+     * Returns the {@code Checkpoint} argument.
+     *
+     * @return the {@code Checkpoint} argument in string; or an empty string if
+     *         the argument has not been set
+     */
+    public String checkpoint() {
+        return Optional.ofNullable(this.arguments.get("Checkpoint")).orElse("");
+    }
+
+    /**
+     * Returns the {@code Directory} argument, the working directory the path
+     * arguments are resolved against.
+     *
+     * @return the {@code Directory} argument; or the working directory of
+     *         this process if the argument has not been set
+     * @see #resolve(Path)
+     */
+    public Path directory() {
+        return Paths.get(Optional.ofNullable(this.arguments.get("Directory")).orElse("")).toAbsolutePath();
+    }
+
+    /**
+     * Returns the {@code Count} argument.
+     *
+     * @return the {@code Count} argument in string
+     *         ({@code Integer.parseInt(String)} safe); or an empty string if
+     *         the argument has not been set
+     */
+    public String count() {
+        return Optional.ofNullable(this.arguments.get("Count")).orElse("");
+    }
+
+    /**
+     * Returns the {@code Jobs} argument.
+     *
+     * @return the {@code Jobs} argument in string; or an empty string if the
+     *         argument has not been set
+     */
+    public String jobs() {
+        return Optional.ofNullable(this.arguments.get("Jobs")).orElse("");
+    }
+
     /**
      * Returns the {@code Length} argument.
      *
@@ -334,6 +490,16 @@ public final class CommandLineArguments {
         return Optional.ofNullable(this.arguments.get("Output")).orElse("");
     }
 
+    /**
+     * Returns the {@code Policy} argument.
+     *
+     * @return the {@code Policy} argument; or an empty string if the argument
+     *         has not been set
+     */
+    public String policy() {
+        return Optional.ofNullable(this.arguments.get("Policy")).orElse("");
+    }
+
     /**
      * Returns the {@code Ratio} argument.
      *
@@ -345,6 +511,26 @@ public final class CommandLineArguments {
         return Optional.ofNullable(this.arguments.get("Ratio")).orElse("");
     }
 
+    /**
+     * Checks if the {@code Progress} flag is set.
+     *
+     * @return {@code true} if the {@code Progress} flag is set; or
+     *         {@code false} otherwise
+     */
+    public boolean progress() {
+        return this.isFlagSet("Progress");
+    }
+
+    /**
+     * Checks if the {@code Resume} flag is set.
+     *
+     * @return {@code true} if the {@code Resume} flag is set; or {@code false}
+     *         otherwise
+     */
+    public boolean resume() {
+        return this.isFlagSet("Resume");
+    }
+
     /**
      * Returns the {@code Weight} argument.
      *
@@ -375,6 +561,47 @@ public final class CommandLineArguments {
         return this.arguments.get("Seed");
     }
 
+    /**
+     * Returns the {@code Shards} argument.
+     *
+     * @return the {@code Shards} argument in string
+     *         ({@code Integer.parseInt(String)} safe); or an empty string if
+     *         the argument has not been set
+     */
+    public String shards() {
+        return Optional.ofNullable(this.arguments.get("Shards")).orElse("");
+    }
+
+    /**
+     * Returns the {@code Socket} argument.
+     *
+     * @return the {@code Socket} argument; or an empty string if the argument
+     *         has not been set
+     */
+    public String socket() {
+        return Optional.ofNullable(this.arguments.get("Socket")).orElse("");
+    }
+
+    /**
+     * Checks if the {@code Stats} flag is set.
+     *
+     * @return {@code true} if the {@code Stats} flag is set; or {@code false}
+     *         otherwise
+     */
+    public boolean stats() {
+        return this.isFlagSet("Stats");
+    }
+
+    /**
+     * Returns the {@code Template} argument.
+     *
+     * @return the {@code Template} argument; or an empty string if the
+     *         argument has not been set
+     */
+    public String template() {
+        return Optional.ofNullable(this.arguments.get("Template")).orElse("");
+    }
+
     /**
      * Returns the {@code Type} argument.
      *
@@ -386,6 +613,16 @@ public final class CommandLineArguments {
         return Optional.ofNullable(this.arguments.get("Type")).orElse("BASE64");
     }
 
+    /**
+     * Checks if the {@code Unique} flag is set.
+     *
+     * @return {@code true} if the {@code Unique} flag is set; or {@code false}
+     *         otherwise
+     */
+    public boolean unique() {
+        return this.isFlagSet("Unique");
+    }
+
     /**
      * Checks if the {@code Version} flag is set.
      *
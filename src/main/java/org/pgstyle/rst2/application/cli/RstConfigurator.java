@@ -62,10 +62,18 @@ public final class RstConfigurator {
                 }
             }
         }
+        else if (RstType.TEMPLATE.equals(this.rstConfig.type())) {
+            this.rstConfig.template(cmdlArgs.template());
+        }
+        else if (RstType.PASSWORD.equals(this.rstConfig.type()) && !cmdlArgs.policy().isEmpty()) {
+            this.rstConfig.policy(cmdlArgs.policy());
+        }
+        this.rstConfig.count(Integer.parseInt(cmdlArgs.count()));
         this.rstConfig.length(Integer.parseInt(cmdlArgs.length()));
         this.rstConfig.output(Optional.ofNullable(cmdlArgs.output()).filter(s -> !s.isEmpty()).map(Paths::get).map(Path::toFile).orElse(null));
         this.rstConfig.secure(cmdlArgs.secure());
         this.rstConfig.seed(cmdlArgs.seed());
+        this.rstConfig.unique(cmdlArgs.unique());
 
         // enter interactive mode
         if (cmdlArgs.interactive()) {
@@ -124,6 +132,9 @@ public final class RstConfigurator {
         case "length":
         case "l":
             return "i:length/" + this.length();
+        case "count":
+        case "n":
+            return "i:count/" + this.count();
         case "output":
         case "o":
             return "i:output/" + this.output();
@@ -136,9 +147,18 @@ public final class RstConfigurator {
         case "seed":
         case "s":
             return "i:seed/" + this.seed();
+        case "policy":
+        case "p":
+            return "i:policy/" + this.policy();
         case "ratio":
         case "r":
             return "i:ratio/" + this.ratio();
+        case "template":
+        case "t":
+            return "i:template/" + this.template();
+        case "unique":
+        case "u":
+            return "i:unique/" + this.unique();
         case "commit":
         case "c":
             return "i:commit";
@@ -207,6 +227,37 @@ public final class RstConfigurator {
         }
     }
 
+    /**
+     * Controller handles interactive record count selector.
+     *
+     * @return the action summary of the controller
+     */
+    private String count() {
+        if (!this.rstConfig.type().record()) {
+             CmdUtils.stderr("%s%nwrong input: count%n", RstUtils.messageOf(new IllegalStateException("not generating records")));
+             return "cancelled";
+        }
+        while (true) {
+            CmdUtils.stdout("Current count: %d%n", this.rstConfig.count());
+            CmdUtils.stdout(RstResources.get("rst.text.count"));
+            CmdUtils.stdout(": ");
+            String result = CmdUtils.stdin();
+            try {
+                if (result.isEmpty()) {
+                    CmdUtils.stdout("no change has be made" + RstUtils.NEWLINE);
+                    return "cancelled";
+                }
+                else {
+                    this.rstConfig.count(Integer.parseInt(result));
+                    return String.valueOf(this.rstConfig.count());
+                }
+            }
+            catch (RuntimeException e) {
+                CmdUtils.stderr("%s%nwrong count, try again%n", RstUtils.messageOf(e));
+            }
+        }
+    }
+
     /**
      * Controller handles interactive output file selector.
      *
@@ -244,6 +295,38 @@ public final class RstConfigurator {
         return "reset";
     }
 
+    /**
+     * Controller handles interactive password randomiser's policy input.
+     *
+     * @return the action summary of the controller
+     */
+    private String policy() {
+        if (!RstType.PASSWORD.equals(this.rstConfig.type())) {
+             CmdUtils.stderr("%s%nwrong input: policy%n", RstUtils.messageOf(new IllegalStateException("not password")));
+             return "cancelled";
+        }
+        while (true) {
+            CmdUtils.stdout("Current policy: %s%n", RstUtils.toQuotedString(this.rstConfig.policy()));
+            CmdUtils.stdout(RstResources.get("rst.text.policy"));
+            CmdUtils.stdout(": ");
+            String result = CmdUtils.stdin();
+            if (result.isEmpty()) {
+                CmdUtils.stdout("no change has be made" + RstUtils.NEWLINE);
+                return "cancelled";
+            }
+            String policy = this.rstConfig.policy();
+            try {
+                this.rstConfig.policy(result);
+                this.rstConfig.compiledPolicy();
+                return this.rstConfig.policy();
+            }
+            catch (RuntimeException e) {
+                this.rstConfig.policy(policy);
+                CmdUtils.stderr("%s%nwrong policy, try again%n", RstUtils.messageOf(e));
+            }
+        }
+    }
+
     /**
      * Controller handles interactive alphanumeric randomiser's ratio selector.
      *
@@ -275,6 +358,28 @@ public final class RstConfigurator {
         }
     }
 
+    /**
+     * Controller handles interactive template randomiser's template input.
+     *
+     * @return the action summary of the controller
+     */
+    private String template() {
+        if (!RstType.TEMPLATE.equals(this.rstConfig.type())) {
+             CmdUtils.stderr("%s%nwrong input: template%n", RstUtils.messageOf(new IllegalStateException("not template")));
+             return "cancelled";
+        }
+        CmdUtils.stdout("Current template: %s%n", RstUtils.toQuotedString(this.rstConfig.template()));
+        CmdUtils.stdout(RstResources.get("rst.text.template"));
+        CmdUtils.stdout(": ");
+        String result = CmdUtils.stdin();
+        if (result.isEmpty()) {
+            CmdUtils.stdout("no change has be made" + RstUtils.NEWLINE);
+            return "cancelled";
+        }
+        this.rstConfig.template(result);
+        return this.rstConfig.template();
+    }
+
     /**
      * Toggle the {@code Secure} flag of the {@code RstConfig} container.
      *
@@ -285,6 +390,20 @@ public final class RstConfigurator {
         return String.valueOf(this.rstConfig.secure());
     }
 
+    /**
+     * Toggle the {@code Unique} flag of the {@code RstConfig} container.
+     *
+     * @return the action summary of the controller
+     */
+    private String unique() {
+        if (!this.rstConfig.type().record()) {
+             CmdUtils.stderr("%s%nwrong input: unique%n", RstUtils.messageOf(new IllegalStateException("not generating records")));
+             return "cancelled";
+        }
+        this.rstConfig.unique(!this.rstConfig.unique());
+        return String.valueOf(this.rstConfig.unique());
+    }
+
     /**
      * Controller handles interactive seed input.
      *
@@ -0,0 +1,314 @@
+package org.pgstyle.rst2.application.cli;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.pgstyle.rst2.application.RandomStringTools;
+import org.pgstyle.rst2.application.common.RstUtils;
+
+/**
+ * <p>
+ * The {@code RstJobRunner} runs the generation jobs listed in a job file in
+ * one process. A line of the job file is the command-line arguments of a job,
+ * split as a shell does; blank lines and lines starting with {@code #} are
+ * ignored. Each job is configured by the {@link RstConfigurator} as an
+ * invocation of the {@code RandomStringTools} with the same arguments, and
+ * must write into its own {@code --output} file. The paths in the job file
+ * are relative to the working directory of the invocation running the job
+ * file. All jobs are parsed before any job runs, no job runs if two jobs
+ * write into the same file.
+ * </p>
+ * <p>
+ * The jobs run on a pool of a thread per processor, sharing the warmed
+ * runtime, the seeded random generators and the cache of compiled weights of
+ * the {@link org.pgstyle.rst2.application.common.RstConfig RstConfig}. The
+ * standard error output of each job is collected and printed in the order of
+ * the job file after all jobs finished, followed by a report of the exiting
+ * state, the time and the output size of each job.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public final class RstJobRunner implements Callable<Integer> {
+
+    /**
+     * A job in the job file.
+     */
+    private static final class Job {
+
+        /**
+         * Creates a job.
+         *
+         * @param line the line number of the job in the job file
+         * @param spec the arguments of the job
+         */
+        Job(int line, String spec) {
+            this.line = line;
+            this.spec = spec;
+            this.bytes = -1;
+            this.outputs = new ArrayList<>();
+            this.files = new ArrayList<>();
+            this.errors = "";
+        }
+
+        private final int                  line;
+        private final String               spec;
+        /** The parsed arguments; or {@code null} if failed to parse. */
+        private CommandLineArguments       cmdlArgs;
+        private int                        code;
+        /** The time spent in the job in nanoseconds. */
+        private long                       time;
+        /** The size of the output; or {@code -1} if not written. */
+        private long                       bytes;
+        /** The output argument, the file pattern of a job of shards. */
+        private Path                       output;
+        /** The files of the generated output. */
+        private final List<Path>           outputs;
+        /** All files written by the job, including manifest and checkpoint. */
+        private final List<Path>           files;
+        private String                     errors;
+
+    }
+
+    /**
+     * Creates a job runner of the job file.
+     *
+     * @param jobs the path of the job file
+     * @param directory the working directory the paths in the job file are
+     *                  resolved against
+     * @param stdout the stream for the standard output
+     * @param stderr the stream for the standard error output
+     * @throws NullPointerException
+     *         if the argument {@code jobs}, {@code directory}, {@code stdout}
+     *         or {@code stderr} is {@code null}
+     */
+    public RstJobRunner(Path jobs, Path directory, PrintStream stdout, PrintStream stderr) {
+        Objects.requireNonNull(jobs, "jobs == null");
+        Objects.requireNonNull(directory, "directory == null");
+        Objects.requireNonNull(stdout, "stdout == null");
+        Objects.requireNonNull(stderr, "stderr == null");
+        this.jobs = jobs;
+        this.directory = directory;
+        this.stdout = stdout;
+        this.stderr = stderr;
+    }
+
+    /** The path of the job file. */
+    private final Path        jobs;
+    /** The working directory of the paths in the job file. */
+    private final Path        directory;
+    /** Standard output stream of this runner */
+    private final PrintStream stdout;
+    /** Standard error output stream of this runner */
+    private final PrintStream stderr;
+
+    /**
+     * Runs all jobs in the job file.
+     *
+     * @return the exiting state of the first failed job in the job file; or
+     *         {@link RandomStringTools#SUCCESS} if all jobs succeeded
+     */
+    @Override
+    public Integer call() {
+        List<Job> jobs = new ArrayList<>();
+        try {
+            List<String> lines = Files.readAllLines(this.jobs, StandardCharsets.UTF_8);
+            for (int i = 0; i < lines.size(); i++) {
+                String spec = lines.get(i).trim();
+                if (!spec.isEmpty() && !spec.startsWith("#")) {
+                    jobs.add(new Job(i + 1, spec));
+                }
+            }
+        }
+        catch (IOException e) {
+            this.stderr.printf("failed to read jobs: %s%n%s", this.jobs, RstUtils.stackTraceOf(e));
+            return RandomStringTools.FAIL_ARG;
+        }
+        Map<Path, Job> writers = new HashMap<>();
+        for (Job job : jobs) {
+            RstJobRunner.prepare(job, this.directory);
+            for (Path file : job.files) {
+                Job writer = writers.putIfAbsent(file, job);
+                if (Objects.nonNull(writer)) {
+                    this.stderr.printf("jobs at line %d and %d write into the same file: %s%n", writer.line, job.line, file);
+                    return RandomStringTools.FAIL_ARG;
+                }
+            }
+        }
+        int threads = Math.max(1, Math.min(jobs.size(), Runtime.getRuntime().availableProcessors()));
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "rst-job-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>(jobs.size());
+            for (Job job : jobs) {
+                futures.add(pool.submit(() -> RstJobRunner.run(job)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pool.shutdownNow();
+            this.stderr.printf("jobs interrupted%n");
+            return RandomStringTools.FAIL_INTR;
+        }
+        catch (ExecutionException e) {
+            // a job never throws, failures are recorded as its exiting state
+            throw new IllegalStateException(e.getCause());
+        }
+        finally {
+            pool.shutdown();
+        }
+        this.report(jobs, System.nanoTime() - start, threads);
+        return jobs.stream().mapToInt(j -> j.code).filter(c -> c != RandomStringTools.SUCCESS)
+                   .findFirst().orElse(RandomStringTools.SUCCESS);
+    }
+
+    /**
+     * Prints the collected standard error output and the timing of each job.
+     *
+     * @param jobs the finished jobs
+     * @param wall the time spent in all jobs in nanoseconds
+     * @param threads the number of threads ran the jobs
+     */
+    private void report(List<Job> jobs, long wall, int threads) {
+        for (Job job : jobs) {
+            if (!job.errors.isEmpty()) {
+                this.stderr.printf("job at line %d: %s%n%s", job.line, job.spec, job.errors);
+            }
+        }
+        this.stderr.printf("rst-2 jobs report%n");
+        long time = 0;
+        long bytes = 0;
+        int failed = 0;
+        for (Job job : jobs) {
+            time += job.time;
+            bytes += Math.max(0, job.bytes);
+            failed += job.code == RandomStringTools.SUCCESS ? 0 : 1;
+            this.stderr.printf("  line %-6d %-8s %.3f s, %d bytes, %s%n", job.line,
+                               job.code == RandomStringTools.SUCCESS ? "ok" : "failed:" + job.code, job.time / 1e9,
+                               Math.max(0, job.bytes), Objects.nonNull(job.output) ? job.output : "-");
+        }
+        this.stderr.printf("  %d jobs, %d failed, %d bytes%n", jobs.size(), failed, bytes);
+        this.stderr.printf("  wall time    %.3f s on %d threads, %.3f s in jobs%n", wall / 1e9, threads, time / 1e9);
+        this.stderr.flush();
+        this.stdout.flush();
+    }
+
+    /**
+     * Parses the arguments of a job and lists the files written by the job.
+     * A job failed to parse is recorded with its exiting state and error
+     * output, and writes no file.
+     *
+     * @param job the job to be parsed
+     * @param directory the working directory of the paths of the job
+     */
+    private static void prepare(Job job, Path directory) {
+        try {
+            CommandLineArguments cmdlArgs = CommandLineArguments.fromArgs(CmdUtils.split(job.spec), false).resolve(directory);
+            if (cmdlArgs.help() || cmdlArgs.version() || cmdlArgs.gui() || cmdlArgs.interactive() || cmdlArgs.daemon()
+                || !cmdlArgs.jobs().isEmpty()) {
+                job.code = RandomStringTools.FAIL_ARG;
+                job.errors = String.format("job cannot run help, version, GUI, interactive, daemon or jobs mode%n");
+                return;
+            }
+            if (cmdlArgs.output().isEmpty()) {
+                job.code = RandomStringTools.FAIL_ARG;
+                job.errors = String.format("job requires an output file%n");
+                return;
+            }
+            job.output = Paths.get(cmdlArgs.output());
+            if (cmdlArgs.shards().isEmpty()) {
+                job.outputs.add(job.output);
+            }
+            else {
+                // more shards fail the job, the files are listed up to the maximum
+                for (int i = 0; i < Math.min(Integer.parseInt(cmdlArgs.shards()), RstShardRunner.MAX_SHARDS); i++) {
+                    job.outputs.add(Paths.get(RstShardRunner.shardFile(cmdlArgs.output(), i)).normalize());
+                }
+                job.files.add(Paths.get(RstShardRunner.manifestFile(cmdlArgs.output())).normalize());
+            }
+            job.files.addAll(job.outputs);
+            if (!cmdlArgs.checkpoint().isEmpty()) {
+                job.files.add(Paths.get(cmdlArgs.checkpoint()));
+            }
+            job.cmdlArgs = cmdlArgs;
+        }
+        catch (RuntimeException e) {
+            job.code = RandomStringTools.FAIL_ARG;
+            job.errors = RstUtils.stackTraceOf(e);
+            job.outputs.clear();
+            job.files.clear();
+        }
+    }
+
+    /**
+     * Runs a job and records its exiting state, time and output size. The
+     * standard error output of the job is collected.
+     *
+     * @param job the job to be run
+     */
+    private static void run(Job job) {
+        if (Objects.isNull(job.cmdlArgs)) {
+            // failed to parse, the failure is recorded
+            return;
+        }
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        long start = System.nanoTime();
+        try (PrintStream stderr = new PrintStream(errors, true)) {
+            job.code = RstJobRunner.execute(job, stderr);
+        }
+        job.time = System.nanoTime() - start;
+        job.errors = errors.toString();
+        for (Path output : job.outputs) {
+            try {
+                job.bytes = Math.max(0, job.bytes) + Files.size(output);
+            }
+            catch (IOException e) {
+                // output not written
+            }
+        }
+    }
+
+    /**
+     * Executes a job with the {@code RandomStringTools}.
+     *
+     * @param job the job to be executed
+     * @param stderr the stream for the standard output and error output
+     * @return the exiting state, a non-zero state indicate error has occurred
+     */
+    private static int execute(Job job, PrintStream stderr) {
+        try {
+            return new RandomStringTools(job.cmdlArgs, stderr, stderr).call();
+        }
+        catch (RuntimeException e) {
+            stderr.print(RstUtils.stackTraceOf(e));
+            return RandomStringTools.FAIL_ARG;
+        }
+    }
+
+}
@@ -0,0 +1,276 @@
+package org.pgstyle.rst2.application.cli;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.IllegalFormatException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+
+import org.pgstyle.rst2.application.RandomStringTools;
+import org.pgstyle.rst2.application.common.Checkpoint;
+import org.pgstyle.rst2.application.common.RandomStringGenerator;
+import org.pgstyle.rst2.application.common.RstConfig;
+import org.pgstyle.rst2.application.common.RstUtils;
+import org.pgstyle.rst2.random.RandomUtils;
+
+/**
+ * <p>
+ * The {@code RstShardRunner} splits a generation into shards written into
+ * separate files concurrently. The output file name is a format pattern of
+ * the shard number, e.g. {@code out-%03d.txt}; the length, or the count for
+ * record types, is split evenly across at most {@link #MAX_SHARDS} shards,
+ * and each shard is generated by its own randomiser on a pool of a thread per
+ * processor, the shards beyond the pool size are queued.
+ * </p>
+ * <p>
+ * The randomiser of a shard is seeded with the seed derived as
+ * {@code <seed>/<shard>}, a shard is therefore reproducible by a single
+ * generation with the derived seed and the length of the shard. A seed is
+ * drawn if none is given, except for the secure randomisers, which are seeded
+ * independently. A manifest recording the seed derivation and the file, seed,
+ * length and size of each shard is saved as a properties file named by the
+ * pattern with the shard number replaced by {@code manifest} after all shards
+ * are written.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public final class RstShardRunner implements Callable<Integer> {
+
+    /** The maximum number of shards. */
+    public static final int MAX_SHARDS = 1024;
+
+    /**
+     * Creates a shard runner of a configuration.
+     *
+     * @param rstConfig the configuration container, the output is the format
+     *                  pattern of the shard files
+     * @param shards the number of shards
+     * @param stderr the stream for the standard error output
+     * @throws NullPointerException
+     *         if the argument {@code rstConfig} or {@code stderr} is
+     *         {@code null}
+     */
+    public RstShardRunner(RstConfig rstConfig, int shards, PrintStream stderr) {
+        Objects.requireNonNull(rstConfig, "rstConfig == null");
+        Objects.requireNonNull(stderr, "stderr == null");
+        this.rstConfig = rstConfig;
+        this.shards = shards;
+        this.stderr = stderr;
+    }
+
+    /** The configuration container of the whole generation. */
+    private final RstConfig   rstConfig;
+    /** The number of shards. */
+    private final int         shards;
+    /** Standard error output stream of this runner */
+    private final PrintStream stderr;
+
+    /**
+     * Generates all shards and saves the manifest.
+     *
+     * @return the exiting state, a non-zero state indicate error has occurred
+     */
+    @Override
+    public Integer call() {
+        if (this.shards < 1 || this.shards > RstShardRunner.MAX_SHARDS) {
+            this.stderr.printf("invalid number of shards: %d, must be 1 to %d%n", this.shards, RstShardRunner.MAX_SHARDS);
+            return RandomStringTools.FAIL_ARG;
+        }
+        if (Objects.isNull(this.rstConfig.output())) {
+            this.stderr.printf("shards require an output file pattern%n");
+            return RandomStringTools.FAIL_ARG;
+        }
+        if (this.rstConfig.unique()) {
+            this.stderr.printf("unique records cannot be guaranteed across shards%n");
+            return RandomStringTools.FAIL_ARG;
+        }
+        String pattern = this.rstConfig.output().getPath();
+        try {
+            if (String.format(pattern, 0).equals(String.format(pattern, 1))) {
+                this.stderr.printf("output pattern does not contain the shard number: %s%n", pattern);
+                return RandomStringTools.FAIL_ARG;
+            }
+        }
+        catch (IllegalFormatException e) {
+            this.stderr.printf("invalid output pattern: %s%n%s", pattern, RstUtils.stackTraceOf(e));
+            return RandomStringTools.FAIL_ARG;
+        }
+        String seed = this.rstConfig.seed();
+        if (Objects.isNull(seed) && !this.rstConfig.secure()) {
+            // an explicit seed makes the shards reproducible
+            seed = Long.toHexString(RandomUtils.randomLongSeed());
+        }
+        List<RstConfig> configs = new ArrayList<>(this.shards);
+        boolean record = this.rstConfig.type().record();
+        int total = record ? this.rstConfig.count() : this.rstConfig.length();
+        for (int i = 0; i < this.shards; i++) {
+            RstConfig config = this.rstConfig.copy();
+            config.seed(Objects.isNull(seed) ? null : seed + "/" + i);
+            config.output(new File(RstShardRunner.shardFile(pattern, i)));
+            // the remainder is spread over the first shards
+            int units = total / this.shards + (i < total % this.shards ? 1 : 0);
+            if (record) {
+                config.count(units);
+            }
+            else {
+                config.length(units);
+            }
+            configs.add(config);
+        }
+        AtomicInteger counter = new AtomicInteger();
+        // a thread per processor, the other shards are queued
+        int threads = Math.min(this.shards, Runtime.getRuntime().availableProcessors());
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "rst-shard-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long[] bytes = new long[this.shards];
+        try {
+            List<Future<Long>> futures = new ArrayList<>(this.shards);
+            for (RstConfig config : configs) {
+                futures.add(pool.submit(() -> RstShardRunner.generate(config)));
+            }
+            for (int i = 0; i < this.shards; i++) {
+                bytes[i] = futures.get(i).get();
+            }
+            this.manifest(pattern, seed, configs, bytes);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.stderr.printf("shards interrupted%n");
+            return RandomStringTools.FAIL_INTR;
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                this.stderr.printf("failed write result%n%s", RstUtils.stackTraceOf(e.getCause()));
+                return RandomStringTools.FAIL_WRITE;
+            }
+            if (e.getCause() instanceof IllegalArgumentException) {
+                this.stderr.printf("invalid argument%n%s", RstUtils.stackTraceOf(e.getCause()));
+                return RandomStringTools.FAIL_ARG;
+            }
+            this.stderr.printf("failed to engage randomiser%n%s", RstUtils.stackTraceOf(e.getCause()));
+            return RandomStringTools.FAIL_INIT;
+        }
+        catch (IOException e) {
+            this.stderr.printf("failed write manifest%n%s", RstUtils.stackTraceOf(e));
+            return RandomStringTools.FAIL_WRITE;
+        }
+        finally {
+            pool.shutdownNow();
+        }
+        return RandomStringTools.SUCCESS;
+    }
+
+    /**
+     * Saves the manifest of the shards.
+     *
+     * @param pattern the format pattern of the shard files
+     * @param seed the seed of the derivation; or {@code null} if the shards
+     *             are seeded independently
+     * @param configs the configurations of the shards
+     * @param bytes the number of bytes written into each shard
+     * @throws IOException
+     *         if any I/O error occurred
+     */
+    private void manifest(String pattern, String seed, List<RstConfig> configs, long[] bytes) throws IOException {
+        RstConfig config = this.rstConfig.copy();
+        config.seed(seed);
+        Properties properties = new Properties();
+        properties.setProperty("digest", Checkpoint.digest(config));
+        properties.setProperty("type", config.type().name());
+        properties.setProperty("pattern", pattern);
+        properties.setProperty("shards", Integer.toString(this.shards));
+        properties.setProperty("derivation", Objects.isNull(seed) ? "independent" : "<seed>/<shard>");
+        if (Objects.nonNull(seed)) {
+            properties.setProperty("seed", seed);
+        }
+        long total = 0;
+        for (int i = 0; i < this.shards; i++) {
+            RstConfig shard = configs.get(i);
+            properties.setProperty("shard." + i + ".file", shard.output().getPath());
+            if (Objects.nonNull(shard.seed())) {
+                properties.setProperty("shard." + i + ".seed", shard.seed());
+            }
+            properties.setProperty("shard." + i + (config.type().record() ? ".count" : ".length"),
+                                   Integer.toString(config.type().record() ? shard.count() : shard.length()));
+            properties.setProperty("shard." + i + ".bytes", Long.toString(bytes[i]));
+            total += bytes[i];
+        }
+        properties.setProperty("bytes", Long.toString(total));
+        try (OutputStream stream = Files.newOutputStream(new File(RstShardRunner.manifestFile(pattern)).toPath())) {
+            properties.store(stream, "rst-2 shards manifest");
+        }
+    }
+
+    /**
+     * Returns the path of the file of a shard.
+     *
+     * @param pattern the format pattern of the shard files
+     * @param shard the shard number
+     * @return the path of the file of the shard
+     * @throws IllegalFormatException
+     *         if the pattern is not a valid format pattern of the shard number
+     */
+    static String shardFile(String pattern, int shard) {
+        return String.format(pattern, shard);
+    }
+
+    /**
+     * Returns the path of the manifest of the shards.
+     *
+     * @param pattern the format pattern of the shard files
+     * @return the path of the manifest
+     */
+    static String manifestFile(String pattern) {
+        // the first shard number specifier is replaced, "%%" is unescaped
+        return pattern.replaceFirst("%[-#+ 0,(]*\\d*d", Matcher.quoteReplacement("manifest")).replace("%%", "%");
+    }
+
+    /**
+     * Generates a shard.
+     *
+     * @param config the configuration of the shard
+     * @return the number of bytes written
+     * @throws IOException
+     *         if any I/O error occurred
+     */
+    private static long generate(RstConfig config) throws IOException {
+        RandomStringGenerator rsg = new RandomStringGenerator(config);
+        long offset = 0;
+        // buffered without auto flush, the stream is flushed on close
+        try (PrintStream ps = RstUtils.openFile(config.output())) {
+            while (rsg.available()) {
+                byte[] step = rsg.stepBytes();
+                if (rsg.record()) {
+                    ps.write(step, 0, step.length);
+                    offset += step.length;
+                }
+                else {
+                    offset += RstUtils.write(ps, step);
+                }
+            }
+            if (ps.checkError()) {
+                throw new IOException("failed to write output: " + config.output());
+            }
+        }
+        return offset;
+    }
+
+}
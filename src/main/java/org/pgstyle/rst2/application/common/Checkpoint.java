@@ -0,0 +1,239 @@
+package org.pgstyle.rst2.application.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import org.pgstyle.rst2.application.ApplicationException;
+
+/**
+ * <p>
+ * The {@code Checkpoint} is an immutable record of the position of a
+ * generation, a generation resumed from a checkpoint continues byte-exactly
+ * from the position. A checkpoint contains the digest of the configuration,
+ * the seed, the number of characters or records generated, the state of the
+ * randomiser and the number of bytes written into the output.
+ * </p>
+ * <p>
+ * A checkpoint is saved as a properties file. The output is forced to the
+ * storage device before the checkpoint is saved, and the checkpoint is written
+ * into a temporary file which then replaces the previous checkpoint
+ * atomically; a checkpoint file therefore never refers to output that has not
+ * been stored.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public final class Checkpoint {
+
+    /** The interval of saving checkpoints in milliseconds. */
+    public static final long INTERVAL = 10_000;
+
+    /**
+     * Computes the digest of a configuration, the output, interactive and
+     * display settings are not included.
+     *
+     * @param rstConfig the configuration container
+     * @return the SHA-256 digest of the configuration in hexadecimal
+     * @throws NullPointerException
+     *         if the argument {@code rstConfig} is {@code null}
+     */
+    public static String digest(RstConfig rstConfig) {
+        String descriptor = String.join("\u0000", rstConfig.type().name(), Integer.toString(rstConfig.length()),
+                                        Integer.toString(rstConfig.count()), Double.toString(rstConfig.ratio()),
+                                        rstConfig.raw(), rstConfig.template(), rstConfig.policy(),
+                                        Boolean.toString(rstConfig.secure()), Boolean.toString(rstConfig.unique()),
+                                        String.valueOf(rstConfig.seed()));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(descriptor.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException e) {
+            // SHA-256 is required on every Java platform
+            throw new IllegalStateException("no SHA-256", e);
+        }
+    }
+
+    /**
+     * Loads a checkpoint from a checkpoint file.
+     *
+     * @param file the checkpoint file
+     * @return the checkpoint
+     * @throws ApplicationException
+     *         if the checkpoint file is malformed
+     * @throws IOException
+     *         if any I/O error occurred
+     * @throws NullPointerException
+     *         if the argument {@code file} is {@code null}
+     */
+    public static Checkpoint load(File file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream input = Files.newInputStream(file.toPath())) {
+            properties.load(input);
+        }
+        try {
+            return new Checkpoint(Objects.requireNonNull(properties.getProperty("digest"), "digest"),
+                                  Objects.requireNonNull(properties.getProperty("seed"), "seed"),
+                                  Integer.parseInt(properties.getProperty("count")),
+                                  Checkpoint.parse(properties.getProperty("state")),
+                                  Checkpoint.parse(properties.getProperty("sampler", "")),
+                                  Long.parseLong(properties.getProperty("offset")));
+        }
+        catch (RuntimeException e) {
+            throw new ApplicationException("malformed checkpoint: " + file, e);
+        }
+    }
+
+    /**
+     * Parses a comma-separated list of unsigned numbers.
+     *
+     * @param list the list
+     * @return the numbers
+     */
+    private static long[] parse(String list) {
+        return list.isEmpty() ? new long[0] : Arrays.stream(list.split(",")).mapToLong(Long::parseUnsignedLong).toArray();
+    }
+
+    /**
+     * Creates a checkpoint.
+     *
+     * @param digest the digest of the configuration
+     * @param seed the seed
+     * @param count the number of characters or records generated
+     * @param state the checkpoint of the randomiser
+     * @param sampler the checkpoint of the sampler of the randomiser; or an
+     *                empty array if the randomiser has no sampler
+     * @param offset the number of bytes written into the output
+     * @throws NullPointerException
+     *         if any argument is {@code null}
+     */
+    public Checkpoint(String digest, String seed, int count, long[] state, long[] sampler, long offset) {
+        this.digest = Objects.requireNonNull(digest, "digest == null");
+        this.seed = Objects.requireNonNull(seed, "seed == null");
+        this.count = count;
+        this.state = Objects.requireNonNull(state, "state == null").clone();
+        this.sampler = Objects.requireNonNull(sampler, "sampler == null").clone();
+        this.offset = offset;
+    }
+
+    private final String digest;
+    private final String seed;
+    private final int    count;
+    private final long[] state;
+    private final long[] sampler;
+    private final long   offset;
+
+    /**
+     * Saves this checkpoint atomically, the output is forced to the storage
+     * device first.
+     *
+     * @param file the checkpoint file
+     * @param output the output file
+     * @throws IOException
+     *         if any I/O error occurred
+     * @throws NullPointerException
+     *         if any argument is {@code null}
+     */
+    public void save(File file, File output) throws IOException {
+        try (FileChannel channel = FileChannel.open(output.toPath(), StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Properties properties = new Properties();
+        properties.setProperty("digest", this.digest);
+        properties.setProperty("seed", this.seed);
+        properties.setProperty("count", Integer.toString(this.count));
+        properties.setProperty("state", Arrays.stream(this.state).mapToObj(Long::toUnsignedString).collect(Collectors.joining(",")));
+        properties.setProperty("sampler", Arrays.stream(this.sampler).mapToObj(Long::toUnsignedString).collect(Collectors.joining(",")));
+        properties.setProperty("offset", Long.toString(this.offset));
+        Path target = file.getAbsoluteFile().toPath();
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             OutputStream stream = Channels.newOutputStream(channel)) {
+            properties.store(stream, "rst-2 checkpoint");
+            stream.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns the digest of the configuration.
+     *
+     * @return the digest of the configuration
+     */
+    public String digest() {
+        return this.digest;
+    }
+
+    /**
+     * Returns the seed.
+     *
+     * @return the seed
+     */
+    public String seed() {
+        return this.seed;
+    }
+
+    /**
+     * Returns the number of characters or records generated.
+     *
+     * @return the number of characters or records generated
+     */
+    public int count() {
+        return this.count;
+    }
+
+    /**
+     * Returns the checkpoint of the randomiser.
+     *
+     * @return the checkpoint of the randomiser
+     */
+    public long[] state() {
+        return this.state.clone();
+    }
+
+    /**
+     * Returns the checkpoint of the sampler of the randomiser.
+     *
+     * @return the checkpoint of the sampler; or an empty array if the
+     *         randomiser has no sampler
+     */
+    public long[] sampler() {
+        return this.sampler.clone();
+    }
+
+    /**
+     * Returns the number of bytes written into the output.
+     *
+     * @return the number of bytes written into the output
+     */
+    public long offset() {
+        return this.offset;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rst/Checkpoint:%d@%d$%s", this.count, this.offset, this.digest);
+    }
+
+}
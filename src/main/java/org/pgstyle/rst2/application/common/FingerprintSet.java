@@ -0,0 +1,421 @@
+package org.pgstyle.rst2.application.common;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * The {@code FingerprintSet} is an insert-only set of 64-bit fingerprints of
+ * generated records for the unique generation of the
+ * {@code RandomStringTools}, sized for a known number of records.
+ * </p>
+ * <p>
+ * The fingerprints are stored in an open-addressing table outside the Java
+ * heap, the table is memory-mapped from a sparse temporary file and can
+ * therefore exceed the physical memory. The table is fronted by a Bloom
+ * filter blocked in 64-bit words, a fingerprint is looked up in the table only
+ * if the filter reports it might be present; the new fingerprints are
+ * buffered and inserted into the table in batches in the order of table
+ * slots, thus the table is swept in one direction per batch.
+ * </p>
+ * <p>
+ * The memory use is about 12.5 MB per million records, 11.4 MB of table at a
+ * load factor of 0.7 and 1 MB of filter at 8 bits per record; plus a fixed
+ * 128 KB of buffer on the heap. Two different records having the same
+ * fingerprint are treated as duplicated, which is as unlikely as 1 in 150 for
+ * 500 million records and only causes a unique record being regenerated.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public final class FingerprintSet {
+
+    /** The load factor of the table. */
+    private static final double LOAD_FACTOR = 0.7;
+    /** The bits of filter per record. */
+    private static final int    FILTER_BITS = 8;
+    /** The number of bits set in the filter per record. */
+    private static final int    FILTER_HASHES = 4;
+    /** The number of buffered fingerprints before a batch insertion. */
+    private static final int    PENDING = 1 << 12;
+    /** The number of longs of a mapped segment. */
+    private static final int    SEGMENT_LONGS = 1 << 27;
+
+    /**
+     * Computes the 64-bit fingerprint of a record.
+     *
+     * @param bytes the bytes contains the record
+     * @param offset the offset of the record
+     * @param length the length of the record
+     * @return the fingerprint of the record
+     */
+    public static long fingerprint(byte[] bytes, int offset, int length) {
+        int end = offset + length;
+        long hash = 0x9e3779b97f4a7c15L ^ length;
+        for (; offset + 8 <= end; offset += 8) {
+            long word = 0;
+            for (int i = 7; i >= 0; i--) {
+                word = word << 8 | bytes[offset + i] & 0xffL;
+            }
+            hash = Long.rotateLeft(hash ^ FingerprintSet.scramble(word), 27) * 5 + 0x52dce729;
+        }
+        long tail = 0;
+        for (int shift = 0; offset < end; shift += 8) {
+            tail |= (bytes[offset++] & 0xffL) << shift;
+        }
+        hash ^= FingerprintSet.scramble(tail);
+        // finalisation of the MurmurHash3
+        hash = (hash ^ hash >>> 33) * 0xff51afd7ed558ccdL;
+        hash = (hash ^ hash >>> 33) * 0xc4ceb9fe1a85ec53L;
+        return hash ^ hash >>> 33;
+    }
+
+    /**
+     * Scrambles a word of the record.
+     *
+     * @param word the word
+     * @return the scrambled word
+     */
+    private static long scramble(long word) {
+        return Long.rotateLeft(word * 0x87c37b91114253d5L, 31) * 0x4cf5ad432745937fL;
+    }
+
+    /**
+     * Returns the approximated number of bytes outside the Java heap used by a
+     * set sized for the expected number of records.
+     *
+     * @param expected the expected number of records
+     * @return the number of bytes used by the set
+     */
+    public static long memory(long expected) {
+        return (FingerprintSet.capacity(expected) + FingerprintSet.words(expected)) * Long.BYTES;
+    }
+
+    /**
+     * Returns the number of slots of the table for the expected number of
+     * records.
+     *
+     * @param expected the expected number of records
+     * @return the number of slots of the table
+     */
+    private static long capacity(long expected) {
+        return Math.max((long) Math.ceil(expected / FingerprintSet.LOAD_FACTOR), 16);
+    }
+
+    /**
+     * Returns the number of words of the filter for the expected number of
+     * records.
+     *
+     * @param expected the expected number of records
+     * @return the number of words of the filter
+     */
+    private static long words(long expected) {
+        return Math.max((expected * FingerprintSet.FILTER_BITS + 63) / 64, 1);
+    }
+
+    /**
+     * Creates a set sized for the expected number of records, adding more
+     * fingerprints than expected degrades the set but never fails until the
+     * table is full.
+     *
+     * @param expected the expected number of records
+     * @throws IllegalArgumentException
+     *         if the expected number of records is negative or exceeds
+     *         {@code Integer.MAX_VALUE}
+     * @throws IOException
+     *         if failed to create the temporary file of the table
+     */
+    public FingerprintSet(long expected) throws IOException {
+        if (expected < 0 || expected > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("expected < 0 || expected > Integer.MAX_VALUE");
+        }
+        this.capacity = FingerprintSet.capacity(expected);
+        this.words = FingerprintSet.words(expected);
+        this.table = FingerprintSet.map(this.capacity);
+        this.filter = FingerprintSet.map(this.words);
+        this.pending = new long[FingerprintSet.PENDING];
+        this.sorted = new long[FingerprintSet.PENDING];
+        this.lookup = new long[FingerprintSet.PENDING << 1];
+    }
+
+    /** The number of slots of the table. */
+    private final long                capacity;
+    /** The number of words of the filter. */
+    private final long                words;
+    /** The segments of the table. */
+    private final MappedByteBuffer[]  table;
+    /** The segments of the filter. */
+    private final MappedByteBuffer[]  filter;
+    /** The fingerprints buffered for insertion. */
+    private final long[]              pending;
+    /** The buffered fingerprints bucketed in the order of table slots. */
+    private final long[]              sorted;
+    /** The open-addressing lookup of the buffered fingerprints. */
+    private final long[]              lookup;
+    /** The number of buffered fingerprints. */
+    private int                       buffered;
+    /** The number of fingerprints in the set. */
+    private long                      size;
+    /** The sink of prefetched words, keeps the touching reads alive. */
+    private long                      touched;
+
+    /**
+     * Adds the fingerprint of a record into this set.
+     *
+     * @param bytes the bytes contains the record
+     * @param offset the offset of the record
+     * @param length the length of the record
+     * @return {@code true} if the record is new; or {@code false} if the
+     *         record has been added before
+     * @throws IllegalStateException
+     *         if the table is full
+     */
+    public boolean add(byte[] bytes, int offset, int length) {
+        return this.add(FingerprintSet.fingerprint(bytes, offset, length));
+    }
+
+    /**
+     * Adds a fingerprint into this set.
+     *
+     * @param fingerprint the fingerprint
+     * @return {@code true} if the fingerprint is new; or {@code false} if the
+     *         fingerprint has been added before
+     * @throws IllegalStateException
+     *         if the table is full
+     */
+    public boolean add(long fingerprint) {
+        // zero marks an empty slot
+        fingerprint = fingerprint == 0 ? 1 : fingerprint;
+        if (this.mightContain(fingerprint) && (this.buffered(fingerprint) || this.contains(fingerprint))) {
+            return false;
+        }
+        if (this.size == this.capacity - 1) {
+            throw new IllegalStateException("fingerprint set is full");
+        }
+        this.mark(fingerprint);
+        this.pending[this.buffered++] = fingerprint;
+        int mask = this.lookup.length - 1;
+        int slot = (int) fingerprint & mask;
+        while (this.lookup[slot] != 0) {
+            slot = slot + 1 & mask;
+        }
+        this.lookup[slot] = fingerprint;
+        this.size++;
+        if (this.buffered == this.pending.length) {
+            this.flush();
+        }
+        return true;
+    }
+
+    /**
+     * Touches the filter words of the fingerprints, which brings them into the
+     * caches with overlapping memory accesses before adding the fingerprints
+     * one by one.
+     *
+     * @param fingerprints the fingerprints to be added soon
+     * @param length the number of fingerprints
+     */
+    public void prefetch(long[] fingerprints, int length) {
+        long touched = 0;
+        for (int i = 0; i < length; i++) {
+            touched ^= FingerprintSet.get(this.filter, this.word(fingerprints[i] == 0 ? 1 : fingerprints[i]));
+        }
+        this.touched ^= touched;
+    }
+
+    /**
+     * Returns the number of fingerprints in this set.
+     *
+     * @return the number of fingerprints in this set
+     */
+    public long size() {
+        return this.size;
+    }
+
+    /**
+     * Returns {@code true} if the fingerprint might be in this set.
+     *
+     * @param fingerprint the fingerprint
+     * @return {@code true} if the fingerprint might be in this set; or
+     *         {@code false} if the fingerprint is not in this set
+     */
+    private boolean mightContain(long fingerprint) {
+        long mask = FingerprintSet.mask(fingerprint);
+        return (FingerprintSet.get(this.filter, this.word(fingerprint)) & mask) == mask;
+    }
+
+    /**
+     * Sets the bits of the fingerprint in the filter.
+     *
+     * @param fingerprint the fingerprint
+     */
+    private void mark(long fingerprint) {
+        long word = this.word(fingerprint);
+        FingerprintSet.set(this.filter, word, FingerprintSet.get(this.filter, word) | FingerprintSet.mask(fingerprint));
+    }
+
+    /**
+     * Returns the index of the filter word of the fingerprint.
+     *
+     * @param fingerprint the fingerprint
+     * @return the index of the filter word
+     */
+    private long word(long fingerprint) {
+        return (fingerprint & 0xffffffffL) * this.words >>> 32;
+    }
+
+    /**
+     * Returns the bits of the fingerprint in its filter word.
+     *
+     * @param fingerprint the fingerprint
+     * @return the bits of the fingerprint
+     */
+    private static long mask(long fingerprint) {
+        long bits = fingerprint * 0x9e3779b97f4a7c15L >>> 10;
+        long mask = 0;
+        for (int i = 0; i < FingerprintSet.FILTER_HASHES; i++, bits >>>= 6) {
+            mask |= 1L << bits;
+        }
+        return mask;
+    }
+
+    /**
+     * Returns {@code true} if the fingerprint is buffered for insertion.
+     *
+     * @param fingerprint the fingerprint
+     * @return {@code true} if the fingerprint is buffered; or {@code false}
+     *         otherwise
+     */
+    private boolean buffered(long fingerprint) {
+        int mask = this.lookup.length - 1;
+        for (int slot = (int) fingerprint & mask; this.lookup[slot] != 0; slot = slot + 1 & mask) {
+            if (this.lookup[slot] == fingerprint) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if the fingerprint is in the table.
+     *
+     * @param fingerprint the fingerprint
+     * @return {@code true} if the fingerprint is in the table; or
+     *         {@code false} otherwise
+     */
+    private boolean contains(long fingerprint) {
+        for (long slot = this.slot(fingerprint);; slot = slot + 1 == this.capacity ? 0 : slot + 1) {
+            long value = FingerprintSet.get(this.table, slot);
+            if (value == 0) {
+                return false;
+            }
+            if (value == fingerprint) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Inserts the buffered fingerprints into the table in the order of their
+     * home slots.
+     */
+    private void flush() {
+        // the home slot is monotonic to the high bits of the fingerprint,
+        // bucket the fingerprints by the highest byte to sweep the table in
+        // one direction
+        int[] buckets = new int[257];
+        for (int i = 0; i < this.buffered; i++) {
+            buckets[(int) (this.pending[i] >>> 56) + 1]++;
+        }
+        for (int i = 1; i < buckets.length; i++) {
+            buckets[i] += buckets[i - 1];
+        }
+        for (int i = 0; i < this.buffered; i++) {
+            this.sorted[buckets[(int) (this.pending[i] >>> 56)]++] = this.pending[i];
+        }
+        long touched = 0;
+        for (int i = 0; i < this.buffered; i++) {
+            touched ^= FingerprintSet.get(this.table, this.slot(this.sorted[i]));
+        }
+        this.touched ^= touched;
+        for (int i = 0; i < this.buffered; i++) {
+            long fingerprint = this.sorted[i];
+            long slot = this.slot(fingerprint);
+            while (FingerprintSet.get(this.table, slot) != 0) {
+                slot = slot + 1 == this.capacity ? 0 : slot + 1;
+            }
+            FingerprintSet.set(this.table, slot, fingerprint);
+        }
+        this.buffered = 0;
+        Arrays.fill(this.lookup, 0);
+    }
+
+    /**
+     * Returns the home slot of the fingerprint in the table.
+     *
+     * @param fingerprint the fingerprint
+     * @return the home slot of the fingerprint
+     */
+    private long slot(long fingerprint) {
+        return (fingerprint >>> 32) * this.capacity >>> 32;
+    }
+
+    /**
+     * Maps a zero-filled array of longs from a sparse temporary file. The file
+     * is deleted once mapped if the platform allows, the mapping remains valid
+     * until it is collected.
+     *
+     * @param longs the number of longs
+     * @return the mapped segments of the array
+     * @throws IOException
+     *         if failed to create or map the temporary file
+     */
+    private static MappedByteBuffer[] map(long longs) throws IOException {
+        File file = File.createTempFile("rst-2-unique-", ".bin");
+        file.deleteOnExit();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(longs * Long.BYTES);
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((longs + FingerprintSet.SEGMENT_LONGS - 1) / FingerprintSet.SEGMENT_LONGS)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = (long) i * FingerprintSet.SEGMENT_LONGS;
+                long size = Math.min(longs - start, FingerprintSet.SEGMENT_LONGS) * Long.BYTES;
+                segments[i] = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, start * Long.BYTES, size);
+                segments[i].order(ByteOrder.nativeOrder());
+            }
+            return segments;
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Returns the long at the index of the segments.
+     *
+     * @param segments the segments
+     * @param index the index of the long
+     * @return the long at the index
+     */
+    private static long get(MappedByteBuffer[] segments, long index) {
+        return segments[(int) (index >>> 27)].getLong((int) (index & FingerprintSet.SEGMENT_LONGS - 1) << 3);
+    }
+
+    /**
+     * Sets the long at the index of the segments.
+     *
+     * @param segments the segments
+     * @param index the index of the long
+     * @param value the value to be set
+     */
+    private static void set(MappedByteBuffer[] segments, long index, long value) {
+        segments[(int) (index >>> 27)].putLong((int) (index & FingerprintSet.SEGMENT_LONGS - 1) << 3, value);
+    }
+
+}
@@ -1,13 +1,25 @@
 package org.pgstyle.rst2.application.common;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 
 import org.pgstyle.rst2.application.ApplicationException;
+import org.pgstyle.rst2.application.common.RstConfig.RstType;
+import org.pgstyle.rst2.metrics.RstEvents;
+import org.pgstyle.rst2.metrics.RstMetrics;
 import org.pgstyle.rst2.random.AlphanumericRandomiser;
 import org.pgstyle.rst2.random.Base64Randomiser;
+import org.pgstyle.rst2.random.CompiledWeights;
+import org.pgstyle.rst2.random.EncodingRandomiser;
+import org.pgstyle.rst2.random.IdentifierRandomiser;
+import org.pgstyle.rst2.random.PasswordPolicy;
+import org.pgstyle.rst2.random.PasswordRandomiser;
+import org.pgstyle.rst2.random.RecordRandomiser;
+import org.pgstyle.rst2.random.SampledRandomiser;
+import org.pgstyle.rst2.random.TemplateRandomiser;
 import org.pgstyle.rst2.random.WeightedRandomiser;
 import org.pgstyle.rst2.security.Randomiser;
 
@@ -34,6 +46,9 @@ public final class RandomStringGenerator {
      * @throws ApplicationException
      *         if the configuration container contains configuration that leads
      *         to failure when creating the randomiser
+     * @throws IllegalArgumentException
+     *         if a record is too large to be generated; or the length of a
+     *         password exceeds {@link PasswordRandomiser#MAX_LENGTH}
      * @throws NullPointerException
      *          if the argument {@code rstConfig} is {@code null}
      */
@@ -41,27 +56,77 @@ public final class RandomStringGenerator {
         Objects.requireNonNull(rstConfig, "rstConfig");
         this.rstConfig = rstConfig;
         this.count = 0;
+        if (RstType.PASSWORD.equals(rstConfig.type()) && rstConfig.length() > PasswordRandomiser.MAX_LENGTH) {
+            throw new IllegalArgumentException(String.format("password length exceeds %d: %d", PasswordRandomiser.MAX_LENGTH, rstConfig.length()));
+        }
+        Object event = RstEvents.beginConstruction();
         try {
             this.randomiser = this.makeRandomiser();
+            if (rstConfig.type().record()) {
+                this.recordBytes();
+            }
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("record size exceeds the maximum array size", e);
         } catch (RuntimeException e) {
             throw new ApplicationException("failed to create randomiser", e);
         }
+        RstEvents.endConstruction(event, rstConfig.type().name(), rstConfig.secure(), Objects.nonNull(rstConfig.seed()));
+        if (rstConfig.unique()) {
+            if (!rstConfig.type().record()) {
+                throw new ApplicationException("unique generation requires a record type: " + rstConfig.type());
+            }
+            try {
+                this.unique = new FingerprintSet(rstConfig.count());
+            }
+            catch (IOException e) {
+                throw new ApplicationException("failed to create fingerprint set", e);
+            }
+        }
     }
 
+    /**
+     * The maximum number of consecutive duplicated records before the unique
+     * generation is considered exhausted.
+     */
+    private static final int UNIQUE_ATTEMPTS = 1 << 20;
+
+    /**
+     * The number of bytes of the buffer of a step of records, a step of large
+     * records has fewer records.
+     */
+    private static final int BATCH_BUDGET = 1 << 20;
+    /** The maximum size of an array. */
+    private static final int MAX_ARRAY = Integer.MAX_VALUE - 8;
+
+    /** The line separator following each record. */
+    private static final byte[] SEPARATOR = RstUtils.NEWLINE.getBytes(StandardCharsets.UTF_8);
+
     /** Randomiser configured to generate the required random string. */
     private Randomiser randomiser;
     /** Configuration container. */
     private RstConfig  rstConfig;
-    /** Generation state */
+    /** Generation state, number of characters or records generated */
     private int count;
+    /** The fingerprints of generated records; {@code null} if not unique. */
+    private FingerprintSet unique;
+    /** The number of duplicated records regenerated. */
+    private long duplicates;
 
     /**
-     * Generates a random string with the configured randomiser.
+     * Generates a random string with the configured randomiser. The records
+     * are separated by line separators if the randomiser generates records.
      *
      * @return a randomly generated string that matches the required
      *         specification
      */
     public String generate() {
+        if (this.rstConfig.type().record()) {
+            StringBuilder records = new StringBuilder();
+            while (this.available()) {
+                records.append(new String(this.stepBytes(), StandardCharsets.UTF_8));
+            }
+            return records.toString();
+        }
         return new String(this.randomiser.generate(this.rstConfig.length()), StandardCharsets.UTF_8);
     }
 
@@ -72,15 +137,129 @@ public final class RandomStringGenerator {
      * @throws NoSuchElementException if no more step is available
      */
     public String step() {
+        return new String(this.stepBytes(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Generates random string step by step, in its UTF-8 encoding.
+     *
+     * @return UTF-8 bytes of partially generated random string
+     * @throws NoSuchElementException if no more step is available
+     */
+    public byte[] stepBytes() {
         final int step = 192;
         if (!this.available()) {
             throw new NoSuchElementException("end has reached");
         }
-        String generated = new String(this.randomiser.generate(Math.min(this.rstConfig.length() - this.count, step)), StandardCharsets.UTF_8);
-        this.count += step;
+        Object event = RstEvents.beginChunk();
+        int units;
+        byte[] generated;
+        if (this.rstConfig.type().record()) {
+            units = this.count;
+            generated = this.stepRecords();
+            units = this.count - units;
+        }
+        else {
+            units = Math.min(this.rstConfig.length() - this.count, step);
+            generated = this.randomiser.generate(units);
+            this.count += step;
+        }
+        RstEvents.endChunk(event, this.rstConfig.type().name(), units, generated.length);
         return generated;
     }
 
+    /**
+     * Generates a step of records, each record is followed by a line
+     * separator.
+     *
+     * @return UTF-8 bytes of the records of the step
+     */
+    private byte[] stepRecords() {
+        final int step = 256;
+        long start = this.randomiser.getMetrics().start();
+        RecordRandomiser records = (RecordRandomiser) this.randomiser;
+        int size = this.recordBytes();
+        int batch = Math.max(1, Math.min(Math.min(this.rstConfig.count() - this.count, step), RandomStringGenerator.BATCH_BUDGET / size));
+        byte[] generated = new byte[StrictMath.multiplyExact(batch, size)];
+        int offset = 0;
+        if (Objects.nonNull(this.unique)) {
+            offset = this.stepUnique(records, batch, generated);
+        }
+        else {
+            for (int i = 0; i < batch; i++) {
+                offset = records.record(generated, offset);
+                System.arraycopy(RandomStringGenerator.SEPARATOR, 0, generated, offset, RandomStringGenerator.SEPARATOR.length);
+                offset += RandomStringGenerator.SEPARATOR.length;
+            }
+        }
+        this.count += batch;
+        // the records are generated without generate calls, count the batch
+        // as a call without the separators
+        this.randomiser.getMetrics().record(start, offset - batch * RandomStringGenerator.SEPARATOR.length,
+                                            RstMetrics.characters(generated, 0, offset) - batch * RandomStringGenerator.SEPARATOR.length);
+        return Arrays.copyOf(generated, offset);
+    }
+
+    /**
+     * Returns the maximum number of bytes of a record with its separator.
+     *
+     * @return the maximum number of bytes of a record with its separator
+     * @throws ArithmeticException
+     *         if the size exceeds the maximum array size
+     */
+    private int recordBytes() {
+        int size = StrictMath.addExact(((RecordRandomiser) this.randomiser).recordSize(), RandomStringGenerator.SEPARATOR.length);
+        if (size > RandomStringGenerator.MAX_ARRAY) {
+            throw new ArithmeticException("integer overflow");
+        }
+        return size;
+    }
+
+    /**
+     * Generates a step of unique records, each record is followed by a line
+     * separator. The records are generated and fingerprinted as a batch
+     * first, the fingerprints are then added one by one and only the
+     * duplicated records are regenerated.
+     *
+     * @param records the record randomiser
+     * @param batch the number of records
+     * @param generated the buffer of the records of the step
+     * @return the number of bytes of the records of the step
+     * @throws ApplicationException
+     *         if unique records cannot be generated anymore
+     */
+    private int stepUnique(RecordRandomiser records, int batch, byte[] generated) {
+        byte[] scratch = new byte[StrictMath.multiplyExact(batch, records.recordSize())];
+        int[] ends = new int[batch];
+        long[] fingerprints = new long[batch];
+        for (int i = 0, start = 0; i < batch; start = ends[i++]) {
+            ends[i] = records.record(scratch, start);
+            fingerprints[i] = FingerprintSet.fingerprint(scratch, start, ends[i] - start);
+        }
+        this.unique.prefetch(fingerprints, batch);
+        int offset = 0;
+        int attempts = 0;
+        for (int i = 0; i < batch; i++) {
+            int start = i == 0 ? 0 : ends[i - 1];
+            int length = ends[i] - start;
+            System.arraycopy(scratch, start, generated, offset, length);
+            // regenerate the duplicated record in place
+            for (long fingerprint = fingerprints[i]; !this.unique.add(fingerprint);) {
+                if (++attempts > RandomStringGenerator.UNIQUE_ATTEMPTS) {
+                    throw new ApplicationException(String.format("unique records exhausted after %d records", this.count + i));
+                }
+                this.duplicates++;
+                length = records.record(generated, offset) - offset;
+                fingerprint = FingerprintSet.fingerprint(generated, offset, length);
+            }
+            attempts = 0;
+            offset += length;
+            System.arraycopy(RandomStringGenerator.SEPARATOR, 0, generated, offset, RandomStringGenerator.SEPARATOR.length);
+            offset += RandomStringGenerator.SEPARATOR.length;
+        }
+        return offset;
+    }
+
     /**
      * Returns {@code true} if the generator can generate more steps.
      *
@@ -88,9 +267,102 @@ public final class RandomStringGenerator {
      *         {@code false} otherwise
      */
     public boolean available() {
+        if (this.rstConfig.type().record()) {
+            return this.count < this.rstConfig.count();
+        }
         return this.count <= this.rstConfig.length();
     }
 
+    /**
+     * Takes a checkpoint of this generator between steps. The generation is
+     * resumable only if it is reproducible from the seed, the secure, unique
+     * and time-ordered generations cannot be checkpointed.
+     *
+     * @param offset the number of bytes of the output written
+     * @return the checkpoint of this generator
+     * @throws ApplicationException
+     *         if the generation cannot be checkpointed
+     */
+    public Checkpoint checkpoint(long offset) {
+        if (Objects.isNull(this.rstConfig.seed())) {
+            throw new ApplicationException("checkpoint requires a seed");
+        }
+        if (Objects.nonNull(this.unique)) {
+            throw new ApplicationException("checkpoint is not supported with unique generation");
+        }
+        if (this.rstConfig.type() == RstConfig.RstType.UUID7 || this.rstConfig.type() == RstConfig.RstType.ULID) {
+            throw new ApplicationException("checkpoint is not supported with time-ordered type: " + this.rstConfig.type());
+        }
+        try {
+            long[] sampler = this.randomiser instanceof SampledRandomiser ? ((SampledRandomiser) this.randomiser).sampler().checkpoint()
+                                                                          : new long[0];
+            return new Checkpoint(Checkpoint.digest(this.rstConfig), this.rstConfig.seed(), this.count,
+                                  this.randomiser.checkpoint(), sampler, offset);
+        }
+        catch (UnsupportedOperationException e) {
+            throw new ApplicationException("checkpoint is not supported with secure generation", e);
+        }
+    }
+
+    /**
+     * Resumes this generator from a checkpoint, the generator continues the
+     * steps from the position where the checkpoint is taken.
+     *
+     * @param checkpoint the checkpoint
+     * @throws ApplicationException
+     *         if the checkpoint is taken by a generator of a different
+     *         configuration or the checkpoint cannot be restored
+     * @throws NullPointerException
+     *         if the argument {@code checkpoint} is {@code null}
+     */
+    public void resume(Checkpoint checkpoint) {
+        Objects.requireNonNull(checkpoint, "checkpoint == null");
+        if (!checkpoint.digest().equals(Checkpoint.digest(this.rstConfig))) {
+            throw new ApplicationException("checkpoint does not match the configuration");
+        }
+        try {
+            this.randomiser.restore(checkpoint.state());
+            if (this.randomiser instanceof SampledRandomiser) {
+                ((SampledRandomiser) this.randomiser).sampler().restore(checkpoint.sampler());
+            }
+        }
+        catch (RuntimeException e) {
+            throw new ApplicationException("failed to restore checkpoint", e);
+        }
+        this.count = checkpoint.count();
+    }
+
+    /**
+     * Returns the number of characters or records generated.
+     *
+     * @return the number of characters or records generated
+     */
+    public int count() {
+        return this.rstConfig.type().record() ? this.count : Math.min(this.count, this.rstConfig.length());
+    }
+
+    /**
+     * Returns the number of duplicated records regenerated in the unique
+     * generation.
+     *
+     * @return the number of duplicated records regenerated
+     */
+    public long duplicates() {
+        return this.duplicates;
+    }
+
+    /**
+     * Returns {@code true} if the generator generates records, the records
+     * generated in steps are separated by line separators already and must
+     * not be wrapped.
+     *
+     * @return {@code true} if the generator generates records; or
+     *         {@code false} otherwise
+     */
+    public boolean record() {
+        return this.rstConfig.type().record();
+    }
+
     /**
      * Creates a randomiser with the stored {@code RstConfig} container.
      *
@@ -104,10 +376,23 @@ public final class RandomStringGenerator {
                 return this.makeBase64();
             case WEIGHTED:
                 return this.makeWeighted();
+            case TEMPLATE:
+                return this.makeTemplate();
+            case PASSWORD:
+                return this.makePassword();
+            case UUID4:
+            case UUID7:
+            case ULID:
+                return this.makeIdentifier();
+            case HEX:
+            case BASE32:
+            case CROCKFORD:
+            case BASE58:
+                return this.makeEncoding();
             case NUMBER:
             default:
                 // for the use of RandomStringTools as an application,
-                // only Alphanumeric, Base64 and Weighted are allowed
+                // Number randomiser is not allowed
                 throw new IllegalArgumentException("invalid randomiser type: " + this.rstConfig.type().name());
         }
     }
@@ -147,6 +432,25 @@ public final class RandomStringGenerator {
         }
     }
 
+    /**
+     * Creates an encoding randomiser with the stored {@code RstConfig}
+     * container.
+     *
+     * @return an instance of {@code EncodingRandomiser}
+     */
+    private EncodingRandomiser makeEncoding() {
+        String seed = this.rstConfig.seed();
+        EncodingRandomiser.Encoding encoding = EncodingRandomiser.Encoding.valueOf(this.rstConfig.type().name());
+        if (this.rstConfig.secure()) {
+            return Objects.isNull(seed) ? EncodingRandomiser.getInstanceSecure(encoding)
+                                        : EncodingRandomiser.getInstanceSecure(encoding, seed);
+        }
+        else {
+            return Objects.isNull(seed) ? EncodingRandomiser.getInstance(encoding)
+                                        : EncodingRandomiser.getInstance(encoding, seed);
+        }
+    }
+
     /**
      * Creates a weighted randomiser with the stored {@code RstConfig} container.
      *
@@ -154,7 +458,7 @@ public final class RandomStringGenerator {
      */
     private WeightedRandomiser makeWeighted() {
         String seed = this.rstConfig.seed();
-        Map<String, Integer> weight = this.rstConfig.compile();
+        CompiledWeights weight = this.rstConfig.compiled();
         if (this.rstConfig.secure()) {
             return Objects.isNull(seed) ? WeightedRandomiser.getInstanceSecure(weight)
                                         : WeightedRandomiser.getInstanceSecure(weight, seed);
@@ -165,5 +469,62 @@ public final class RandomStringGenerator {
         }
     }
 
+    /**
+     * Creates a password randomiser with the stored {@code RstConfig}
+     * container.
+     *
+     * @return an instance of {@code PasswordRandomiser}
+     */
+    private PasswordRandomiser makePassword() {
+        String seed = this.rstConfig.seed();
+        PasswordPolicy policy = this.rstConfig.compiledPolicy();
+        int length = this.rstConfig.length();
+        if (this.rstConfig.secure()) {
+            return Objects.isNull(seed) ? PasswordRandomiser.getInstanceSecure(policy, length)
+                                        : PasswordRandomiser.getInstanceSecure(policy, length, seed);
+        }
+        else {
+            return Objects.isNull(seed) ? PasswordRandomiser.getInstance(policy, length)
+                                        : PasswordRandomiser.getInstance(policy, length, seed);
+        }
+    }
+
+    /**
+     * Creates a template randomiser with the stored {@code RstConfig}
+     * container.
+     *
+     * @return an instance of {@code TemplateRandomiser}
+     */
+    private TemplateRandomiser makeTemplate() {
+        String seed = this.rstConfig.seed();
+        String template = this.rstConfig.template();
+        if (this.rstConfig.secure()) {
+            return Objects.isNull(seed) ? TemplateRandomiser.getInstanceSecure(template)
+                                        : TemplateRandomiser.getInstanceSecure(template, seed);
+        }
+        else {
+            return Objects.isNull(seed) ? TemplateRandomiser.getInstance(template)
+                                        : TemplateRandomiser.getInstance(template, seed);
+        }
+    }
+
+    /**
+     * Creates an identifier randomiser with the stored {@code RstConfig}
+     * container.
+     *
+     * @return an instance of {@code IdentifierRandomiser}
+     */
+    private IdentifierRandomiser makeIdentifier() {
+        String seed = this.rstConfig.seed();
+        IdentifierRandomiser.Identifier identifier = IdentifierRandomiser.Identifier.valueOf(this.rstConfig.type().name());
+        if (this.rstConfig.secure()) {
+            return Objects.isNull(seed) ? IdentifierRandomiser.getInstanceSecure(identifier)
+                                        : IdentifierRandomiser.getInstanceSecure(identifier, seed);
+        }
+        else {
+            return Objects.isNull(seed) ? IdentifierRandomiser.getInstance(identifier)
+                                        : IdentifierRandomiser.getInstance(identifier, seed);
+        }
+    }
 
 }
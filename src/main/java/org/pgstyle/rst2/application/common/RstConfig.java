@@ -2,15 +2,19 @@ package org.pgstyle.rst2.application.common;
 
 import java.io.File;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import org.pgstyle.rst2.application.ApplicationException;
+import org.pgstyle.rst2.random.CharacterSet;
+import org.pgstyle.rst2.random.CompiledWeights;
+import org.pgstyle.rst2.random.PasswordPolicy;
 
 /**
  * The {@code RstConfig} is a container of configurations for the
@@ -43,9 +47,101 @@ public final class RstConfig {
         /**
          * @see org.pgstyle.rst2.random.WeightedRandomiser
          */
-        WEIGHTED;
+        WEIGHTED,
+        /**
+         * @see org.pgstyle.rst2.random.TemplateRandomiser
+         */
+        TEMPLATE(true),
+        /**
+         * @see org.pgstyle.rst2.random.PasswordRandomiser
+         */
+        PASSWORD(true),
+        /**
+         * @see org.pgstyle.rst2.random.IdentifierRandomiser
+         */
+        UUID4(true),
+        /**
+         * @see org.pgstyle.rst2.random.IdentifierRandomiser
+         */
+        UUID7(true),
+        /**
+         * @see org.pgstyle.rst2.random.IdentifierRandomiser
+         */
+        ULID(true),
+        /**
+         * @see org.pgstyle.rst2.random.EncodingRandomiser
+         */
+        HEX,
+        /**
+         * @see org.pgstyle.rst2.random.EncodingRandomiser
+         */
+        BASE32,
+        /**
+         * @see org.pgstyle.rst2.random.EncodingRandomiser
+         */
+        CROCKFORD,
+        /**
+         * @see org.pgstyle.rst2.random.EncodingRandomiser
+         */
+        BASE58;
+
+        /**
+         * Creates a randomiser type generates a continuous string.
+         */
+        private RstType() {
+            this(false);
+        }
+
+        /**
+         * Creates a randomiser type.
+         *
+         * @param record {@code true} if the randomiser generates records
+         */
+        private RstType(boolean record) {
+            this.record = record;
+        }
+
+        /** The randomiser generates records. */
+        private final boolean record;
+
+        /**
+         * Returns {@code true} if the randomiser of this type generates
+         * records, each record is written on its own line; otherwise the
+         * randomiser generates a continuous string of the configured length.
+         *
+         * @return {@code true} if the randomiser generates records; or
+         *         {@code false} otherwise
+         *
+         * @see org.pgstyle.rst2.random.RecordRandomiser
+         */
+        public boolean record() {
+            return this.record;
+        }
     }
 
+    /**
+     * The default password policy, at least one lowercase letter, uppercase
+     * letter, digit and printable ASCII symbol.
+     */
+    public static final String DEFAULT_POLICY = "1..:a..z;1..:A..Z;1..:0..9;1..:!../\\:..@[..`{..~";
+
+    /** The maximum number of compiled weights kept in the cache. */
+    private static final int COMPILED_CACHE_SIZE = 64;
+    /**
+     * The least recently used compiled weights, keyed by the canonical form of
+     * the weight map.
+     */
+    private static final Map<String, CompiledWeights> COMPILED_CACHE = new LinkedHashMap<String, CompiledWeights>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompiledWeights> eldest) {
+            return this.size() > RstConfig.COMPILED_CACHE_SIZE;
+        }
+
+    };
+
     /**
      * Creates a new configuration container with preloaded default
      * configurations.
@@ -55,18 +151,26 @@ public final class RstConfig {
         this.reset();
     }
 
+    /** The number of records of randomiser output. */
+    private int     count;
     /** The length of randomiser output. */
     private int     length;
     /** The output file. */
     private File    output;
+    /** The password policy descriptor for {@code PasswordRandomiser}. */
+    private String  policy;
     /** The ratio of numeric digits to alphabet for {@code AlphanumericRandomiser}. */
     private double  ratio;
     /** Uses secured randomiser. */
     private boolean secure;
     /** The seed for the randomiser. */
     private String  seed;
+    /** The template for {@code TemplateRandomiser}. */
+    private String  template;
     /** The type of randomiser selected. */
     private RstType type;
+    /** Generates unique records. */
+    private boolean unique;
     /** The weight descriptors for {@code WeightedRandomiser}. */
     private final List<String> weights;
 
@@ -83,9 +187,23 @@ public final class RstConfig {
      *         if the weight descriptor contains syntax error
      */
     public Map<String, Integer> compile() {
+        Map<String, Integer> map = new LinkedHashMap<>();
+        this.sets().forEach((s, w) -> map.put(s.codePoints().collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append).toString(), w));
+        return map;
+    }
+
+    /**
+     * Converts the weight descriptor in the representation of a map of
+     * character sets, the weights of the same set of characters are summed.
+     *
+     * @return the map of character sets representation of the weight
+     *         descriptor
+     * @throws ApplicationException
+     *         if the weight descriptor contains syntax error
+     */
+    private Map<CharacterSet, Integer> sets() {
         try {
-            Map<String, Integer> map = new HashMap<>();
-            RstUtils.dissect(this.raw()).forEach(e -> map.put(RstUtils.expand(RstUtils.normalise(e.getKey())), e.getValue()));
+            Map<CharacterSet, Integer> map = new LinkedHashMap<>();
             for (String weight : this.weights) {
                 if (weight.isEmpty()) {
                     continue;
@@ -94,18 +212,163 @@ public final class RstConfig {
                     throw new IllegalArgumentException("invalid weight descriptor: " + weight);
                 }
                 int value = Integer.parseInt(weight.substring(0, weight.indexOf(":")).trim());
-                String statement = RstUtils.expand(RstUtils.normalise(weight.substring(weight.indexOf(":") + 1).trim()));
-                if (map.containsKey(statement)) {
-                    map.put(statement, map.get(statement) + value);
+                map.merge(RstUtils.parse(weight.substring(weight.indexOf(":") + 1).trim()), value, Integer::sum);
+            }
+            return map;
+        }
+        catch (RuntimeException e) {
+            throw new ApplicationException("syntax error on weight", e);
+        }
+    }
+
+    /**
+     * Returns the compiled weights of the weight descriptor. The compiled
+     * weights are cached by the canonical form of the weight map, compiling a
+     * recently used weight descriptor again, or a descriptor giving every
+     * character the same weight, returns the cached compiled weights.
+     *
+     * @return the compiled weights of the weight descriptor
+     * @throws ApplicationException
+     *         if the weight descriptor contains syntax error or invalid weight
+     */
+    public CompiledWeights compiled() {
+        Map<CharacterSet, Integer> canonical;
+        try {
+            canonical = RstConfig.canonical(this.sets());
+        }
+        catch (IllegalArgumentException | ArithmeticException e) {
+            throw new ApplicationException("invalid weight", e);
+        }
+        String key = canonical.entrySet().stream()
+                              .map(e -> e.getValue() + ":" + Integer.toHexString(e.getKey().start(0)) + ".." + Integer.toHexString(e.getKey().end(0)))
+                              .collect(Collectors.joining(";"));
+        synchronized (RstConfig.COMPILED_CACHE) {
+            CompiledWeights compiled = RstConfig.COMPILED_CACHE.get(key);
+            if (Objects.nonNull(compiled)) {
+                return compiled;
+            }
+        }
+        CompiledWeights compiled;
+        try {
+            compiled = CompiledWeights.compileSets(key, canonical);
+        }
+        catch (IllegalArgumentException e) {
+            throw new ApplicationException("invalid weight", e);
+        }
+        synchronized (RstConfig.COMPILED_CACHE) {
+            RstConfig.COMPILED_CACHE.putIfAbsent(key, compiled);
+            return RstConfig.COMPILED_CACHE.get(key);
+        }
+    }
+
+    /**
+     * Converts a weight map of character sets into its canonical form. The
+     * weight of a character is summed over the sets containing it, and the
+     * characters are laid out in code point order in ranges of the same
+     * weight, the characters without weight are left out.
+     *
+     * @param sets the weight map of character sets
+     * @return the canonical weight map of single range character sets
+     * @throws IllegalArgumentException
+     *         if the weight map contains negative weight
+     * @throws ArithmeticException
+     *         if the weight of a character exceeds the maximum integer
+     */
+    private static Map<CharacterSet, Integer> canonical(Map<CharacterSet, Integer> sets) {
+        TreeSet<Integer> bounds = new TreeSet<>();
+        for (Map.Entry<CharacterSet, Integer> entry : sets.entrySet()) {
+            if (entry.getValue() < 0) {
+                throw new IllegalArgumentException("negative weight: " + entry.getValue());
+            }
+            for (int i = 0; i < entry.getKey().ranges(); i++) {
+                bounds.add(entry.getKey().start(i));
+                bounds.add(entry.getKey().end(i) + 1);
+            }
+        }
+        Map<CharacterSet, Integer> canonical = new LinkedHashMap<>();
+        int start = 0;
+        int weight = 0;
+        for (int bound : bounds) {
+            // the weight of the characters from this bound to the next bound
+            int current = 0;
+            for (Map.Entry<CharacterSet, Integer> entry : sets.entrySet()) {
+                if (entry.getKey().contains(bound)) {
+                    current = StrictMath.addExact(current, entry.getValue());
+                }
+            }
+            if (current != weight) {
+                if (weight > 0) {
+                    canonical.put(CharacterSet.range(start, bound - 1), weight);
+                }
+                start = bound;
+                weight = current;
+            }
+        }
+        return canonical;
+    }
+
+    /**
+     * Compiles the password policy descriptor. A policy descriptor contains
+     * statements separated by {@code ;}:
+     * <ul>
+     * <li>{@code <bounds>:<characters>} - a character class, the bounds is
+     * {@code n}, {@code m..n}, {@code m..} or {@code ..n} for the number of
+     * characters of the class</li>
+     * <li>{@code exclude:<characters>} - characters excluded from all
+     * classes</li>
+     * <li>{@code unique} - disallows repeated characters</li>
+     * </ul>
+     *
+     * @return the compiled password policy
+     * @throws ApplicationException
+     *         if the policy descriptor contains syntax error or invalid
+     *         policy
+     */
+    public PasswordPolicy compiledPolicy() {
+        List<CharacterSet> classes = new ArrayList<>();
+        List<int[]> bounds = new ArrayList<>();
+        CharacterSet excluded = CharacterSet.empty();
+        boolean unique = false;
+        try {
+            for (String statement : RstUtils.safeSplit(this.policy, new char[] { ';' })) {
+                statement = statement.trim();
+                if (statement.isEmpty()) {
+                    continue;
+                }
+                if ("unique".equals(statement)) {
+                    unique = true;
+                    continue;
+                }
+                if (!statement.contains(":")) {
+                    throw new IllegalArgumentException("invalid policy statement: " + statement);
+                }
+                String key = statement.substring(0, statement.indexOf(":")).trim();
+                CharacterSet characters = RstUtils.parse(statement.substring(statement.indexOf(":") + 1).trim());
+                if ("exclude".equals(key)) {
+                    excluded = excluded.union(characters);
+                }
+                else if (key.contains("..")) {
+                    String min = key.substring(0, key.indexOf("..")).trim();
+                    String max = key.substring(key.indexOf("..") + 2).trim();
+                    bounds.add(new int[] { min.isEmpty() ? 0 : Integer.parseInt(min), max.isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(max) });
+                    classes.add(characters);
                 }
                 else {
-                    map.put(statement, value);
+                    int exact = Integer.parseInt(key);
+                    bounds.add(new int[] { exact, exact });
+                    classes.add(characters);
                 }
             }
-            return map;
         }
         catch (RuntimeException e) {
-            throw new ApplicationException("syntax error on weight", e);
+            throw new ApplicationException("syntax error on policy", e);
+        }
+        try {
+            return PasswordPolicy.compile(this.policy, classes, bounds.stream().mapToInt(b -> b[0]).toArray(),
+                                          bounds.stream().mapToInt(b -> b[1]).toArray(), excluded, unique);
+        }
+        catch (IllegalArgumentException e) {
+            throw new ApplicationException("invalid policy", e);
         }
     }
 
@@ -130,6 +393,31 @@ public final class RstConfig {
         return this.weights.get(index);
     }
 
+    /**
+     * Returns the number of records of randomiser output, only applicable to
+     * the randomiser types generate records.
+     *
+     * @return the number of records of randomiser output
+     */
+    public int count() {
+        return this.count;
+    }
+
+    /**
+     * Sets the number of records of randomiser output, only applicable to
+     * the randomiser types generate records.
+     *
+     * @param count the number of records of randomiser output
+     * @throws IllegalArgumentException
+     *         if the count is negative
+     */
+    public void count(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count < 0");
+        }
+        this.count = count;
+    }
+
     /**
      * Returns the length of randomiser output
      *
@@ -171,6 +459,28 @@ public final class RstConfig {
         this.output = output;
     }
 
+    /**
+     * Returns the password policy descriptor for {@code PasswordRandomiser}.
+     *
+     * @return the password policy descriptor for {@code PasswordRandomiser}
+     */
+    public String policy() {
+        return this.policy;
+    }
+
+    /**
+     * Sets the password policy descriptor for {@code PasswordRandomiser}.
+     *
+     * @param policy the password policy descriptor for
+     *               {@code PasswordRandomiser}
+     * @throws NullPointerException
+     *         if the argument {@code policy} is {@code null}
+     */
+    public void policy(String policy) {
+        Objects.requireNonNull(policy, "policy == null");
+        this.policy = policy;
+    }
+
     /**
      * Appends a weight descriptor to this configuration container.
      *
@@ -259,18 +569,46 @@ public final class RstConfig {
         return this.weights.remove(index);
     }
 
+    /**
+     * Returns a copy of this configuration container.
+     *
+     * @return a copy of this configuration container
+     */
+    public RstConfig copy() {
+        RstConfig copy = new RstConfig();
+        copy.count = this.count;
+        copy.length = this.length;
+        copy.output = this.output;
+        copy.policy = this.policy;
+        copy.ratio = this.ratio;
+        copy.secure = this.secure;
+        copy.seed = this.seed;
+        copy.skip = this.skip;
+        copy.state = this.state;
+        copy.template = this.template;
+        copy.type = this.type;
+        copy.unique = this.unique;
+        copy.weights.clear();
+        copy.weights.addAll(this.weights);
+        return copy;
+    }
+
     /**
      * Resets the configuration container to default configuration.
      */
     public void reset() {
+        this.count = 1;
         this.length = 256;
         this.output = null;
+        this.policy = RstConfig.DEFAULT_POLICY;
         this.ratio = 10.0 / 36;
         this.secure = false;
         this.seed = null;
         this.skip = false;
         this.state = 0;
+        this.template = "";
         this.type = RstType.BASE64;
+        this.unique = false;
         this.weights.clear();
         this.weights.add("1:0..9a..z");
     }
@@ -312,6 +650,27 @@ public final class RstConfig {
         this.seed = seed;
     }
 
+    /**
+     * Returns the template for {@code TemplateRandomiser}.
+     *
+     * @return the template for {@code TemplateRandomiser}
+     */
+    public String template() {
+        return this.template;
+    }
+
+    /**
+     * Sets the template for {@code TemplateRandomiser}.
+     *
+     * @param template the template for {@code TemplateRandomiser}
+     * @throws NullPointerException
+     *         if the argument {@code template} is {@code null}
+     */
+    public void template(String template) {
+        Objects.requireNonNull(template, "template == null");
+        this.template = template;
+    }
+
     /**
      * Returns {@code true} if the skip flag is set in this configuration
      * container.
@@ -372,6 +731,26 @@ public final class RstConfig {
         this.type = type;
     }
 
+    /**
+     * Returns {@code true} if the unique flag is set, every generated record
+     * is unique; only applicable to the randomiser types generate records.
+     *
+     * @return {@code true} if the unique flag is set; or {@code false}
+     *         otherwise
+     */
+    public boolean unique() {
+        return this.unique;
+    }
+
+    /**
+     * Sets the unique flag of this configuration container.
+     *
+     * @param unique the unique flag
+     */
+    public void unique(boolean unique) {
+        this.unique = unique;
+    }
+
     /**
      * Returns the number of weight descriptors stored in this configuration
      * container.
@@ -392,13 +771,25 @@ public final class RstConfig {
         StringBuilder string = new StringBuilder();
         int log10 = (int) (Math.log10(this.weights.size() + 1.0) + 1);
         string.append("Algorithm: ").append(this.type()).append(System.lineSeparator());
-        string.append("Legnth: ").append(this.length()).append(System.lineSeparator());
+        if (this.type().record()) {
+            string.append("Count: ").append(this.count()).append(System.lineSeparator());
+            string.append("Unique: ").append(this.unique()).append(System.lineSeparator());
+        }
+        if (!this.type().record() || RstType.PASSWORD.equals(this.type())) {
+            string.append("Legnth: ").append(this.length()).append(System.lineSeparator());
+        }
         string.append("Output: ").append(RstUtils.toQuotedString(this.output())).append(System.lineSeparator());
         string.append("Seed: ").append(RstUtils.toQuotedString(this.seed())).append(System.lineSeparator());
         string.append("Secure: ").append(this.secure()).append(System.lineSeparator());
         if (RstType.ALPHANUMERIC.equals(this.type())) {
             string.append("Ratio: ").append(this.ratio()).append(System.lineSeparator());
         }
+        if (RstType.PASSWORD.equals(this.type())) {
+            string.append("Policy: ").append(RstUtils.toQuotedString(this.policy())).append(System.lineSeparator());
+        }
+        if (RstType.TEMPLATE.equals(this.type())) {
+            string.append("Template: ").append(RstUtils.toQuotedString(this.template())).append(System.lineSeparator());
+        }
         if (RstType.WEIGHTED.equals(this.type())) {
             IntStream.range(0, this.weights.size()).forEach(i -> string.append(String.format(String.format("%%%dd. %%s%%n", log10), i + 1, this.weights.get(i))));
             string.append(String.format(String.format("%%%dd. <new>%%n", log10), this.weights.size() + 1));
@@ -1,24 +1,27 @@
 package org.pgstyle.rst2.application.common;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
-import java.util.UUID;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.pgstyle.rst2.application.ApplicationException;
 
 /**
- * Resource handler class, it loads and stores resources from Jar at
- * initialisation.
+ * Resource handler class, it indexes resources from Jar at initialisation and
+ * loads the resource contents on demand.
  *
  * @since rst-2
  * @version rst-2.0
@@ -26,20 +29,14 @@ import org.pgstyle.rst2.application.ApplicationException;
  */
 public final class RstResources {
 
-    /** ${name} placeholder  */
-    private static final Pattern PLACEHOLDER;
-    /** $${name} escaped placeholder  */
-    private static final Pattern ESCAPED_PLACEHOLDER;
-    /** loaded resources entry */
+    /** indexed resources entry */
     private static final Properties resources;
-    /** loaded binary resources */
-    private static final Map<String, byte[]> binaries;
+    /** loaded resource contents */
+    private static final Map<String, String> loaded;
 
     static {
-        PLACEHOLDER = Pattern.compile("(?<!\\$)\\$\\{[^\\$\\{\\}]+\\}");
-        ESCAPED_PLACEHOLDER = Pattern.compile("\\$\\$\\{[^\\$\\{\\}]+\\}");
-        binaries = new HashMap<>();
-        resources = RstResources.loadResources();
+        loaded = new ConcurrentHashMap<>();
+        resources = RstResources.indexResources();
     }
 
     /**
@@ -54,66 +51,92 @@ public final class RstResources {
     }
 
     /**
-     * Returns the resource content in string.
+     * Returns the resource content in string. External resource text is
+     * loaded on the first access.
      *
      * @param key the resource key
      * @return the resource content in string
+     * @throws ApplicationException if failed to load external resource
      */
     public static String get(String key) {
-        return RstResources.exist(key) ? RstResources.resources.getProperty(key) : ("missing resource " + key);
+        if (!RstResources.exist(key)) {
+            return "missing resource " + key;
+        }
+        String value = RstResources.loaded.get(key);
+        if (Objects.isNull(value)) {
+            value = RstResources.load(key);
+            RstResources.loaded.putIfAbsent(key, value);
+        }
+        return value;
     }
 
     /**
-     * Returns the resource content in string.
+     * Returns the binary resource content in stream. The content is streamed
+     * from the Jar directly, every call opens a new stream.
      *
      * @param key the resource key
-     * @return the resource content in string
+     * @return the resource content in stream; or {@code null} if the key is
+     *         not a binary resource
      */
     public static InputStream getStream(String key) {
-        String uuid = RstResources.resources.getProperty(key);
-        return RstResources.binaries.containsKey(uuid) ? new ByteArrayInputStream(RstResources.binaries.get(uuid)) : null;
+        return Optional.ofNullable(RstResources.resources.getProperty(key))
+                       .filter(v -> v.startsWith("&binary "))
+                       .map(v -> RstResources.class.getResourceAsStream("/META-INF/" + v.substring(8)))
+                       .orElse(null);
     }
 
     /**
-     * Loads Jar resources.
+     * Indexes Jar resources, placeholders are resolved, but no external
+     * resource is loaded.
      *
-     * @return loaded resources entry
+     * @return indexed resources entry
      * @throws ApplicationException if failed to load the resource entries
      */
-    private static Properties loadResources() {
+    private static Properties indexResources() {
         try {
             Properties resources = new Properties();
             resources.load(new StringReader(RstUtils.loadResourceAsString("/META-INF/org/pgstyle/rst/resources")));
-            RstResources.resolve(resources);
-            resources.forEach((k, v) -> resources.put(k, RstResources.binary(k.toString(), v.toString())));
-            RstResources.resolve(resources);
-            resources.forEach((k, v) -> resources.put(k, RstResources.extern(k.toString(), v.toString())));
-            RstResources.resolve(resources);
-            resources.forEach((k, v) -> resources.put(k, RstResources.descape(v.toString())));
-            return resources;
+            return RstResources.resolve(resources);
         } catch (IOException | IllegalArgumentException e) {
             throw new ApplicationException("fail to load resource entries", e);
         }
     }
 
     /**
-     * Descapes escaped placeholders in string
+     * Loads the content of a resource entry.
+     *
+     * @param key the key of the resource entry
+     * @return the loaded resource content
+     * @throws ApplicationException if failed to load external resource
+     */
+    private static String load(String key) {
+        String value = RstResources.extern(key, RstResources.resources.getProperty(key));
+        return RstResources.descape(RstResources.resolve(RstResources.resources::getProperty, value));
+    }
+
+    /**
+     * Descapes escaped placeholders ({@code $${name}}) in string, and removes
+     * all unresolved placeholders ({@code ${name}}).
      *
      * @param value the string to be descaped
      * @return the descaped string
      */
     private static String descape(String value) {
-        Matcher placeholders = RstResources.PLACEHOLDER.matcher(value);
-        while (placeholders.find()) {
-            String source = placeholders.group();
-            value = value.replace(source, "");
-        }
-        Matcher escaped = RstResources.ESCAPED_PLACEHOLDER.matcher(value);
-        while (escaped.find()) {
-            String source = escaped.group();
-            value = value.replace(source, source.substring(1));
+        StringBuilder descaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length();) {
+            int end;
+            if (value.startsWith("$$", i) && (end = RstResources.placeholder(value, i + 1)) > 0) {
+                descaped.append(value, i + 1, end);
+                i = end;
+            }
+            else if ((end = RstResources.placeholder(value, i)) > 0) {
+                i = end;
+            }
+            else {
+                descaped.append(value.charAt(i++));
+            }
         }
-        return value;
+        return descaped.toString();
     }
 
     /**
@@ -133,32 +156,6 @@ public final class RstResources {
         }
     }
 
-    /**
-     * Resolves binary resource.
-     *
-     * @param key the key of the resource entry to be resolved
-     * @param value the value of the resource entry to be resolved
-     * @return resolved binary resource token
-     * @throws ApplicationException if failed to load external resource
-     */
-    private static String binary(String key, String value) {
-        try {
-            return Optional.ofNullable(value).filter(v -> v.startsWith("&binary ")).map(v -> {
-                String uuid = UUID.randomUUID().toString();
-                String path = v.substring(8);
-                try {
-                    RstResources.binaries.put(uuid, RstUtils.read(RstUtils.class.getResourceAsStream("/META-INF/" + path)));
-                } catch (IOException e) {
-                    throw new ApplicationException("fail to load resource: " + path, e);
-                }
-                return uuid;
-            }).orElse(value);
-        }
-        catch (RuntimeException e) {
-            throw new ApplicationException("fail to load binary resource: " + key, e);
-        }
-    }
-
     /**
      * Loads external resource contents in Jar.
      *
@@ -186,40 +183,117 @@ public final class RstResources {
     }
 
     /**
-     * Resolves external and internal references in the properties object.
+     * Resolves internal references in the properties object. The references
+     * form a dependency graph, every entry is resolved exactly once after all
+     * entries it references have been resolved.
      *
      * @param properties the properties object to be resolved
      * @return the properties object itself
+     * @throws IllegalArgumentException
+     *         if the references contain a cycle
      */
     private static Properties resolve(Properties properties) {
-        boolean resolved = false;
-        String identity = properties.toString();
-        while (!resolved) {
-            properties.forEach((k, v) -> properties.put(k, RstResources.resolve(properties, v.toString())));
-            String newIdentity = properties.toString();
-            resolved = identity.equals(newIdentity);
-            identity = newIdentity;
+        Map<String, String> resolved = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            RstResources.resolve(properties, key, resolved, new LinkedHashSet<>());
         }
+        properties.putAll(resolved);
         return properties;
     }
 
     /**
-     * Resolves external and internal references in the property entry.
+     * Resolves a property entry after resolving all entries it references, in
+     * depth-first order.
+     *
+     * @param properties the properties object to be resolved
+     * @param key the key of the property entry
+     * @param resolved the already resolved entries
+     * @param path the keys being resolved on the current reference path
+     * @throws IllegalArgumentException
+     *         if the references contain a cycle
+     */
+    private static void resolve(Properties properties, String key, Map<String, String> resolved, Set<String> path) {
+        if (resolved.containsKey(key) || !properties.containsKey(key)) {
+            return;
+        }
+        if (!path.add(key)) {
+            throw new IllegalArgumentException("cyclic reference: " + String.join(" -> ", path) + " -> " + key);
+        }
+        String value = properties.getProperty(key);
+        for (String reference : RstResources.references(value)) {
+            RstResources.resolve(properties, reference, resolved, path);
+        }
+        path.remove(key);
+        resolved.put(key, RstResources.resolve(resolved::get, value));
+    }
+
+    /**
+     * Resolves internal references in the property entry.
      *
-     * @param properties the properties object for internal reference
+     * @param lookup the resolved values of the internal references
      * @param value the value of the property entry
      * @return the resolved value
      */
-    private static String resolve(Properties properties, String value) {
-        Matcher placeholders = RstResources.PLACEHOLDER.matcher(value);
-        while (placeholders.find()) {
-            String source = placeholders.group();
-            String sourceValue = properties.getProperty(source.substring(2, source.length() - 1), "");
-            if (!sourceValue.isEmpty() && !sourceValue.startsWith("&extern ")) {
-                value = value.replace(source, sourceValue);
+    private static String resolve(Function<String, String> lookup, String value) {
+        StringBuilder resolved = new StringBuilder(value.length());
+        int start = 0;
+        for (int i = value.indexOf("${"); i >= 0; i = value.indexOf("${", i + 1)) {
+            int end = RstResources.placeholder(value, i);
+            if (end < 0 || i > 0 && value.charAt(i - 1) == '$') {
+                continue;
+            }
+            String source = Optional.ofNullable(lookup.apply(value.substring(i + 2, end - 1))).orElse("");
+            if (!source.isEmpty() && !source.startsWith("&extern ") && !source.startsWith("&binary ")) {
+                resolved.append(value, start, i).append(source);
+                start = end;
             }
         }
-        return value;
+        return resolved.append(value, start, value.length()).toString();
+    }
+
+    /**
+     * Returns the names of the internal references in the property entry.
+     *
+     * @param value the value of the property entry
+     * @return the names of the internal references
+     */
+    private static List<String> references(String value) {
+        List<String> references = new ArrayList<>();
+        for (int i = value.indexOf("${"); i >= 0; i = value.indexOf("${", i + 1)) {
+            int end = RstResources.placeholder(value, i);
+            if (end > 0 && (i == 0 || value.charAt(i - 1) != '$')) {
+                references.add(value.substring(i + 2, end - 1));
+            }
+        }
+        return references;
+    }
+
+    /**
+     * Matches a placeholder ({@code ${name}}) at the given index, the name of
+     * a placeholder must not be empty and must not contain {@code $},
+     * <code>{</code> or <code>}</code>.
+     *
+     * @param value the string to be matched
+     * @param index the index to be matched at
+     * @return the index after the end of the placeholder; or {@code -1} if no
+     *         placeholder is at the given index
+     */
+    private static int placeholder(String value, int index) {
+        if (!value.startsWith("${", index)) {
+            return -1;
+        }
+        for (int i = index + 2; i < value.length(); i++) {
+            switch (value.charAt(i)) {
+            case '}':
+                return i == index + 2 ? -1 : i + 1;
+            case '$':
+            case '{':
+                return -1;
+            default:
+                break;
+            }
+        }
+        return -1;
     }
 
     /** Unnewable @throws UnsupportedOperationException always */
@@ -1,6 +1,7 @@
 package org.pgstyle.rst2.application.common;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
@@ -18,6 +19,9 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.pgstyle.rst2.metrics.MeteredOutputStream;
+import org.pgstyle.rst2.random.CharacterSet;
+
 /**
  * The {@code RstUtils} class contains some useful methods for the random string
  * tools.
@@ -33,7 +37,7 @@ public final class RstUtils {
     /** String constant of backward slash. */
     public static final String BACK_SLASH = "\\";
     /** The list of escapable RST control characters. */
-    public static final String ESCAPABLE = "\\.:;";
+    public static final String ESCAPABLE = "\\.:;^";
     /** The list of RST control separators. */
     public static final String SEPARATORS = ":;";
 
@@ -264,7 +268,8 @@ public final class RstUtils {
     }
 
     /**
-     * Writes string into the print stream with line formatting.
+     * Writes string into the print stream with line formatting, each line
+     * contains 64 characters at most.
      *
      * @param printStream the stream to be written
      * @param output the string the be written
@@ -273,21 +278,67 @@ public final class RstUtils {
     public static long write(PrintStream printStream, String output) {
         final int step = 64;
         int iteration = 0;
-        for (int i = 0; i < output.length(); i += step, iteration++) {
-            printStream.println(output.substring(i, Math.min(i + step, output.length())));
+        for (int i = 0; i < output.length(); iteration++) {
+            // step in code points, never splits a surrogate pair
+            int next = i;
+            for (int n = 0; n < step && next < output.length(); n++) {
+                next += Character.charCount(output.codePointAt(next));
+            }
+            printStream.println(output.substring(i, next));
+            i = next;
         }
         return iteration * System.lineSeparator().length() + output.length();
     }
 
     /**
-     * Opens a file as a print stream.
+     * Writes UTF-8 encoded string into the print stream with line formatting,
+     * each line contains 64 characters at most. The bytes are written as is
+     * without being decoded or re-encoded.
+     *
+     * @param printStream the stream to be written
+     * @param output the UTF-8 bytes of the string the be written
+     * @return actual count of bytes written
+     */
+    public static long write(PrintStream printStream, byte[] output) {
+        final int step = 64;
+        int iteration = 0;
+        for (int i = 0; i < output.length; iteration++) {
+            int next = i;
+            for (int n = 0; n < step && next < output.length; n++) {
+                // skip the continuation bytes of the character
+                while (++next < output.length && (output[next] & 0xc0) == 0x80);
+            }
+            printStream.write(output, i, next - i);
+            printStream.println();
+            i = next;
+        }
+        return (long) iteration * System.lineSeparator().length() + output.length;
+    }
+
+    /**
+     * Opens a file as a buffered print stream, the stream is not flushed
+     * automatically and must be closed or flushed after writing.
      *
      * @param file the file to be open
      * @return a print stream
      * @throws IOException if any I/O error occurred
      */
     public static PrintStream openFile(File file) throws IOException {
-        return new PrintStream(new FileOutputStream(file), true, "utf-8");
+        return RstUtils.openFile(file, false);
+    }
+
+    /**
+     * Opens a file as a buffered print stream, the stream is not flushed
+     * automatically and must be closed or flushed after writing.
+     *
+     * @param file the file to be open
+     * @param append {@code true} to write after the end of the file; or
+     *               {@code false} to truncate the file
+     * @return a print stream
+     * @throws IOException if any I/O error occurred
+     */
+    public static PrintStream openFile(File file, boolean append) throws IOException {
+        return new PrintStream(new BufferedOutputStream(new MeteredOutputStream(new FileOutputStream(file, append)), 1 << 16), false, "utf-8");
     }
 
     /**
@@ -405,8 +456,8 @@ public final class RstUtils {
 
     /**
      * Normalises a weight statement. All continue characters will be compressed,
-     * ranged character sequence will be merged in possible, and unnecessary
-     * escape will be descaped.
+     * ranged character sequence will be merged in possible, excluded
+     * characters will be removed, and unnecessary escape will be descaped.
      *
      * @param statement the weight statement to be normalised
      * @return the normalised weight statement
@@ -416,9 +467,36 @@ public final class RstUtils {
      *         if the weight statement is {@code null}
      */
     public static String normalise(String statement) {
+        return RstUtils.format(RstUtils.parse(statement));
+    }
+
+    /**
+     * <p>
+     * Parses a weight statement into a set of characters. A weight statement
+     * is a sequence of characters and ranged character sequences (e.g.
+     * {@code a..z}); characters following an exclusion operator ({@code ^})
+     * are removed from the set, e.g. {@code 0..9a..z^0o1l} contains all
+     * digits and lower case letters except {@code 0}, {@code o}, {@code 1}
+     * and {@code l}.
+     * </p>
+     * <p>
+     * The ranged character sequences are never expanded, parsing a statement
+     * costs in proportion to the length of the statement only. The
+     * statement is parsed in code points, supplementary characters are
+     * supported; while the surrogate code points are always excluded.
+     * </p>
+     *
+     * @param statement the weight statement to be parsed
+     * @return the set of characters of the weight statement
+     * @throws IllegalArgumentException
+     *         if a syntax error exists in the weight statement
+     * @throws NullPointerException
+     *         if the weight statement is {@code null}
+     */
+    public static CharacterSet parse(String statement) {
         Objects.requireNonNull(statement, "statement == null");
         try {
-            return RstUtils.normaliseUnbounded(statement);
+            return RstUtils.parseUnbounded(statement);
         }
         catch (StringIndexOutOfBoundsException e) {
             throw new IllegalArgumentException("unexpected encounter of EOS at column: " + e.getMessage().substring(e.getMessage().indexOf(": ") + 2), e);
@@ -426,101 +504,99 @@ public final class RstUtils {
     }
 
     /**
-     * Normalises a weight statement.
+     * Parses a weight statement.
      *
-     * @param statement the weight statement to be normalised
-     * @return the normalised weight statement
+     * @param statement the weight statement to be parsed
+     * @return the set of characters of the weight statement
      * @throws IllegalArgumentException
      *         if a syntax error exists in the weight statement
      * @throws StringIndexOutOfBoundsException
      *         if unexpected EOS occurred
      */
-    private static String normaliseUnbounded(String statement) {
-        StringBuilder string = new StringBuilder();
+    private static CharacterSet parseUnbounded(String statement) {
+        List<CharacterSet> included = new ArrayList<>();
+        List<CharacterSet> excluded = new ArrayList<>();
+        List<CharacterSet> current = included;
         for (int i = 0; i < statement.length(); i++) {
-            boolean escape = RstUtils.requireNonSeperator(statement, i) == '\\' && RstUtils.isEscapable(statement.charAt(++i));
-            if (escape) {
-                // only necessary escape will keep the backward slash
-                string.append(RstUtils.BACK_SLASH);
+            int start = RstUtils.requireNonSeperator(statement, i);
+            if (start == '^') {
+                // unescaped exclusion operator, the rest are excluded
+                current = excluded;
+                continue;
+            }
+            if (start == '\\') {
+                // only escapable characters need escape, other escapes are
+                // simply descaped
+                start = statement.codePointAt(++i);
+            }
+            else if (start == '.') {
+                // uncaptured and unescaped range operator
+                throw new IllegalArgumentException("unexpected range operator at column: " + i);
+            }
+            else {
+                start = statement.codePointAt(i);
             }
-            string.append(statement.charAt(i));
-            // look forward for range operator
-            if (statement.indexOf("..", i + 1) - i == 1) {
-                char end = statement.charAt(i += 3);
-                string.append("..").append(end);
-                if (end == '\\') {
-                    string.append(statement.charAt(++i));
+            i += Character.charCount(start) - 1;
+            if (statement.startsWith("..", i + 1)) {
+                if (statement.charAt(i += 3) == '\\') {
+                    i++;
                 }
                 else {
                     RstUtils.requireNonEscapable(statement, i);
                 }
+                int end = statement.codePointAt(i);
+                i += Character.charCount(end) - 1;
+                current.add(CharacterSet.range(start, end));
             }
-            else if (!escape && statement.charAt(i) == '.') {
-                // uncaptured and unescaped range operator
-                throw new IllegalArgumentException("unexpected range operator at column: " + i);
+            else {
+                current.add(CharacterSet.of(start));
             }
         }
-        // recompressing will merge ranged sequences and convert new sequences
-        return RstUtils.compress(RstUtils.expand(string.toString()));
+        // surrogate code points are not characters, they are never included
+        excluded.add(CharacterSet.range(Character.MIN_SURROGATE, Character.MAX_SURROGATE));
+        return CharacterSet.union(included).difference(CharacterSet.union(excluded));
     }
 
     /**
-     * Compresses the characters sequence with ranged operator where if possible.
+     * Formats a set of characters into a normalised weight statement, the
+     * continuous characters are compressed into ranged character sequences.
      *
-     * @param characters the characters sequence to be compressed
-     * @return the compressed characters sequence
+     * @param characters the set of characters
+     * @return the normalised weight statement
+     * @throws NullPointerException
+     *         if the argument {@code characters} is {@code null}
      */
-    public static String compress(String characters) {
-        if (characters.isEmpty()) {
-            return characters;
-        }
-        // clean up characters sequence, remove duplicate and sort by code
-        characters = RstUtils.charStream(characters).sorted().distinct().map(String::valueOf).collect(Collectors.joining());
-        StringBuilder compressed = new StringBuilder();
-        int start = 0;
-        int end = 0;
-        for (int i = 0; i < characters.length(); i++) {
-            if (start != i && characters.charAt(end) != (characters.charAt(i) - 1)) {
-                // continuous sequence is broken, compress current sequence
-                compressed.append(RstUtils.compress(characters.charAt(start), characters.charAt(end)));
-                start = end = i;
+    public static String format(CharacterSet characters) {
+        Objects.requireNonNull(characters, "characters == null");
+        StringBuilder string = new StringBuilder();
+        for (int i = 0; i < characters.ranges(); i++) {
+            int start = characters.start(i);
+            int end = characters.end(i);
+            string.append(RstUtils.escape(start));
+            if (end - start >= 2) {
+                // only creates ranged sequence when the two characters are far enough
+                string.append("..");
             }
-            else {
-                end = i;
+            if (end - start >= 1) {
+                string.append(RstUtils.escape(end));
             }
         }
-        // compress current unbroken sequence until end of string
-        compressed.append(RstUtils.compress(characters.charAt(start), characters.charAt(end)));
-        return compressed.toString();
+        return string.toString();
     }
 
     /**
-     * Creates a ranged characters sequence of the start and end characters.
+     * Compresses the characters sequence with ranged operator where if possible.
      *
-     * @param start the starting character
-     * @param end the ending character
-     * @return the ranged characters sequence
-     * @throws IllegalArgumentException
-     *         if the ending character is larger than the starting character
+     * @param characters the characters sequence to be compressed
+     * @return the compressed characters sequence
      */
-    private static String compress(char start, char end) {
-        if (end < start) {
-            throw new IllegalArgumentException(String.format("invalid ranged sequence: start:'%c', end:'%c'", start, end));
-        }
-        StringBuilder string = new StringBuilder(4);
-        string.append(RstUtils.escape(start));
-        if (end - start >= 2) {
-            // only creates ranged sequence when the two characters are far enough
-            string.append("..");
-        }
-        if (end - start >= 1) {
-            string.append(RstUtils.escape(end));
-        }
-        return string.toString();
+    public static String compress(String characters) {
+        return RstUtils.format(CharacterSet.of(characters));
     }
 
     /**
-     * Expands a characters sequence into its characters components.
+     * Expands a characters sequence into its characters components, the
+     * expanded characters are sorted and distinct.
      *
      * @param characters the characters sequence to be expanded
      * @return the expanded characters sequence
@@ -530,46 +606,8 @@ public final class RstUtils {
      *         error
      */
     public static String expand(String characters) {
-        StringBuilder expanded = new StringBuilder();
-        for (int i = 0; i < characters.length(); i++) {
-            char current = characters.charAt(i);
-            if (current == '\\') {
-                // check for unexpected escape characters
-                current = RstUtils.requireEscapable(characters, ++i);
-            }
-            if (characters.indexOf("..", i) - i == 1) {
-                // capture ranged statement and expand it
-                char start = current;
-                char last = characters.charAt(i += 3);
-                last = last == '\\' ? RstUtils.requireEscapable(characters, ++i) : RstUtils.requireNonEscapable(characters, i);
-                expanded.append(RstUtils.expand(start, last));
-            }
-            else {
-                expanded.append(current);
-            }
-        }
-        return expanded.toString();
-    }
-
-    /**
-     * Creates an expanded characters sequence of {@code start} to {@code end}.
-     *
-     * @param start the start of the ranged sequence
-     * @param end the end of the ranged sequence
-     * @return the expanded characters sequence
-     * @throws IllegalArgumentException
-     *         if the ending character of ranged statement is larger than its
-     *         starting character
-     */
-    private static String expand(char start, char end) {
-        if (end < start) {
-            throw new IllegalArgumentException(String.format("invalid ranged sequence: %c, %c", start, end));
-        }
-        StringBuilder expanded = new StringBuilder(end - start + 1);
-        for (; start <= end; start++) {
-            expanded.append(start);
-        }
-        return expanded.toString();
+        return RstUtils.parse(characters).codePoints()
+                       .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append).toString();
     }
 
     /**
@@ -579,20 +617,21 @@ public final class RstUtils {
      * @return the escaped string
      */
     public static String escape(String string) {
-        return RstUtils.charStream(string).map(RstUtils::escape).collect(Collectors.joining());
+        return string.codePoints().mapToObj(RstUtils::escape).collect(Collectors.joining());
     }
 
     /**
      * Returns the escaped character of the character {@code c} if it is
      * escapable.
      *
-     * @param c the character to be escaped
+     * @param c the code point of the character to be escaped
      * @return the escaped character of the character {@code c} if it is
      *         escapable; or the character {@code c} itself if it is not
      *         escapable
      */
-    private static String escape(char c) {
-        return RstUtils.isEscapable(c) ? RstUtils.BACK_SLASH + c : String.valueOf(c);
+    private static String escape(int c) {
+        String character = new String(Character.toChars(c));
+        return RstUtils.ESCAPABLE.contains(character) ? RstUtils.BACK_SLASH + character : character;
     }
 
     /**
@@ -606,24 +645,6 @@ public final class RstUtils {
         return RstUtils.ESCAPABLE.contains(String.valueOf(c));
     }
 
-    /**
-     * Throws an {@code IllegalArgumentException} if the character at index is
-     * not a escapable character.
-     *
-     * @param characters the characters sequence
-     * @param index the index of character to be checked
-     * @return the character at index
-     * @throws IllegalArgumentException
-     *         if the character at index is not a escapable character
-     */
-    private static char requireEscapable(String characters, int index) {
-        char target = characters.charAt(index);
-        if (!RstUtils.isEscapable(target)) {
-            throw new IllegalArgumentException(String.format("unexpected escaped character: \"\\%c\", at column: %d", target, index));
-        }
-        return target;
-    }
-
     /**
      * Throws an {@code IllegalArgumentException} if the character at index is a
      * escapable character.
@@ -0,0 +1,272 @@
+package org.pgstyle.rst2.application.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.pgstyle.rst2.application.RandomStringTools;
+import org.pgstyle.rst2.application.cli.CmdUtils;
+import org.pgstyle.rst2.application.cli.CommandLineArguments;
+import org.pgstyle.rst2.application.common.RstResources;
+import org.pgstyle.rst2.application.common.RstUtils;
+import org.pgstyle.rst2.metrics.RstMetrics;
+import org.pgstyle.rst2.random.RandomUtils;
+
+/**
+ * <p>
+ * The {@code RstDaemon} keeps a warmed {@code RandomStringTools} running in
+ * background and serves requests forwarded by the {@link RstDaemonClient}
+ * over a Unix domain socket. Each request is executed as if the
+ * {@code RandomStringTools} was started with the forwarded command-line
+ * arguments, without paying the start-up cost of the JVM, the resources
+ * loading and the seeding of the secure random generators.
+ * </p>
+ * <p>
+ * The request is the argument map of a {@code CommandLineArguments},
+ * encoded as an {@code int} of entry count followed by pairs of
+ * {@link DataOutputStream#writeUTF(String) UTF} key and value. The response
+ * is a sequence of frames, a frame starts with a byte of frame type. The
+ * {@code STDOUT} and {@code STDERR} frames carry an {@code int} of length and
+ * the content bytes; and the {@code EXIT} frame carries an {@code int} of
+ * exiting state and ends the response.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public final class RstDaemon implements Callable<Integer> {
+
+    /** Frame type: exiting state */
+    static final int EXIT   = 0;
+    /** Frame type: standard output content */
+    static final int STDOUT = 1;
+    /** Frame type: standard error output content */
+    static final int STDERR = 2;
+
+    /**
+     * Returns the path of the socket file used by the daemon. The path is
+     * specified by the {@code Socket} argument, or defaulted as
+     * {@code rst-2-<user>.sock} in the temporary directory.
+     *
+     * @param cmdlArgs the command-line arguments container
+     * @return the path of the socket file
+     */
+    public static Path socket(CommandLineArguments cmdlArgs) {
+        if (!cmdlArgs.socket().isEmpty()) {
+            return Paths.get(cmdlArgs.socket());
+        }
+        String runtime = System.getenv("XDG_RUNTIME_DIR");
+        if (Objects.nonNull(runtime) && !runtime.isEmpty()) {
+            return Paths.get(runtime, "rst-2", "rst-2.sock");
+        }
+        return Paths.get(System.getProperty("java.io.tmpdir"), "rst-2-" + System.getProperty("user.name"), "rst-2.sock");
+    }
+
+    /**
+     * Creates a daemon serves on the given socket file.
+     *
+     * @param socket the path of the socket file
+     * @throws NullPointerException
+     *         if the argument {@code socket} is {@code null}
+     */
+    public RstDaemon(Path socket) {
+        Objects.requireNonNull(socket, "socket == null");
+        this.socket = socket;
+        this.workers = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "rst-daemon-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** The path of the socket file. */
+    private final Path socket;
+    /** The worker threads for serving requests. */
+    private final ExecutorService workers;
+
+    /**
+     * Starts the daemon and serves requests until the daemon is terminated.
+     *
+     * @return the exiting state, a non-zero state indicate error has occurred
+     */
+    @Override
+    public Integer call() {
+        if (!UnixSockets.supported()) {
+            CmdUtils.stderr("failed to start daemon%nunix domain socket requires Java 16 or later%n");
+            return RandomStringTools.FAIL_INIT;
+        }
+        if (RstDaemonClient.running(this.socket)) {
+            CmdUtils.stderr("failed to start daemon%nanother daemon is serving on %s%n", this.socket);
+            return RandomStringTools.FAIL_INIT;
+        }
+        try (ServerSocketChannel server = UnixSockets.bind(this.socket)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> this.shutdown(server), "rst-daemon-shutdown"));
+            RstDaemon.warmup();
+            // a long-running daemon affords the start-up of the MBean server
+            RstMetrics.register();
+            CmdUtils.stdout("Daemon serving on %s%n", this.socket);
+            while (true) {
+                SocketChannel channel = server.accept();
+                this.workers.execute(() -> this.serve(channel));
+            }
+        }
+        catch (AsynchronousCloseException e) {
+            // daemon shutting down
+            return RandomStringTools.SUCCESS;
+        }
+        catch (IOException | RuntimeException e) {
+            CmdUtils.stderr("daemon failure%n%s", RstUtils.stackTraceOf(e));
+            return RandomStringTools.FAIL_INIT;
+        }
+    }
+
+    /**
+     * Initialises the resources and random seed generators before serving any
+     * request.
+     */
+    private static void warmup() {
+        RstResources.exist("rst.text.version");
+        RandomUtils.randomLongSeed();
+        RandomUtils.randomBytesSeed();
+    }
+
+    /**
+     * Stops accepting request and removes the socket file.
+     *
+     * @param server the server socket channel
+     */
+    private void shutdown(ServerSocketChannel server) {
+        try {
+            server.close();
+            Files.deleteIfExists(this.socket);
+        }
+        catch (IOException e) {
+            CmdUtils.stderr("failed to remove socket%n%s", RstUtils.stackTraceOf(e));
+        }
+        this.workers.shutdownNow();
+    }
+
+    /**
+     * Serves a request.
+     *
+     * @param channel the socket channel of the request
+     */
+    private void serve(SocketChannel channel) {
+        try (SocketChannel c = channel;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(c)));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(c), 1 << 16))) {
+            Map<String, String> arguments = new HashMap<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                arguments.put(in.readUTF(), in.readUTF());
+            }
+            int code;
+            try (PrintStream stdout = new PrintStream(new BufferedOutputStream(new FrameOutputStream(out, RstDaemon.STDOUT), 1 << 13), false, "utf-8");
+                 PrintStream stderr = new PrintStream(new BufferedOutputStream(new FrameOutputStream(out, RstDaemon.STDERR), 1 << 13), false, "utf-8")) {
+                code = RstDaemon.execute(arguments, stdout, stderr);
+            }
+            out.writeByte(RstDaemon.EXIT);
+            out.writeInt(code);
+            out.flush();
+        }
+        catch (IOException e) {
+            CmdUtils.stderr("failed to serve request%n%s", RstUtils.stackTraceOf(e));
+        }
+    }
+
+    /**
+     * Executes a request with the {@code RandomStringTools}.
+     *
+     * @param arguments the argument map of the request
+     * @param stdout the stream for the standard output
+     * @param stderr the stream for the standard error output
+     * @return the exiting state, a non-zero state indicate error has occurred
+     */
+    private static int execute(Map<String, String> arguments, PrintStream stdout, PrintStream stderr) {
+        try {
+            CommandLineArguments cmdlArgs = new CommandLineArguments(arguments, false);
+            if (cmdlArgs.gui() || cmdlArgs.interactive() || cmdlArgs.daemon()) {
+                stderr.printf("daemon cannot serve GUI, interactive or daemon mode%n");
+                return RandomStringTools.FAIL_ARG;
+            }
+            return new RandomStringTools(cmdlArgs, stdout, stderr).call();
+        }
+        catch (RuntimeException e) {
+            stderr.print(RstUtils.stackTraceOf(e));
+            return RandomStringTools.FAIL_ARG;
+        }
+    }
+
+    /**
+     * An output stream writes contents as frames of a given frame type.
+     */
+    private static final class FrameOutputStream extends OutputStream {
+
+        /**
+         * Creates a frame output stream.
+         *
+         * @param out the underlying stream of the response
+         * @param type the frame type
+         */
+        public FrameOutputStream(DataOutputStream out, int type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        /** The underlying stream of the response. */
+        private final DataOutputStream out;
+        /** The frame type. */
+        private final int type;
+
+        @Override
+        public void write(int b) throws IOException {
+            this.write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            // both stdout and stderr frames share the same response stream
+            synchronized (this.out) {
+                this.out.writeByte(this.type);
+                this.out.writeInt(len);
+                this.out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            this.out.flush();
+        }
+
+        /**
+         * Flushes the stream, the underlying stream of the response will not
+         * be closed.
+         */
+        @Override
+        public void close() throws IOException {
+            this.flush();
+        }
+
+    }
+
+}
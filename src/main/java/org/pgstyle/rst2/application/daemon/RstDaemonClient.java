@@ -0,0 +1,165 @@
+package org.pgstyle.rst2.application.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.pgstyle.rst2.application.RandomStringTools;
+import org.pgstyle.rst2.application.cli.CmdUtils;
+import org.pgstyle.rst2.application.cli.CommandLineArguments;
+
+/**
+ * <p>
+ * The {@code RstDaemonClient} is the thin client of the {@link RstDaemon}. It
+ * forwards the {@code CommandLineArguments} to a running daemon and streams
+ * the results back onto the standard output streams. The path arguments are
+ * resolved against the working directory of the client before forwarding,
+ * see {@link CommandLineArguments#resolve(Path)}.
+ * </p>
+ * <p>
+ * The client does not load any resource nor randomiser, the forwarding path
+ * only needs the command-line arguments to be parsed. The arguments are only
+ * forwarded to a socket file trusted by {@link UnixSockets#trusted(Path)},
+ * otherwise the invocation runs in-process.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public final class RstDaemonClient {
+
+    /**
+     * Returns {@code true} if a daemon is serving on the socket file.
+     *
+     * @param socket the path of the socket file
+     * @return {@code true} if a daemon is serving on the socket file; or
+     *         {@code false} otherwise
+     */
+    public static boolean running(Path socket) {
+        if (!UnixSockets.supported() || !Files.exists(socket)) {
+            return false;
+        }
+        try {
+            UnixSockets.connect(socket).close();
+            return true;
+        }
+        catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns {@code true} if the command-line arguments can be forwarded to
+     * a daemon. The GUI, interactive and daemon mode are never forwarded.
+     *
+     * @param cmdlArgs the command-line arguments container
+     * @return {@code true} if the command-line arguments can be forwarded; or
+     *         {@code false} otherwise
+     */
+    public static boolean forwardable(CommandLineArguments cmdlArgs) {
+        return !cmdlArgs.gui() && !cmdlArgs.interactive() && !cmdlArgs.daemon();
+    }
+
+    /**
+     * Creates a client of the daemon serving on the given socket file.
+     *
+     * @param socket the path of the socket file
+     * @throws NullPointerException
+     *         if the argument {@code socket} is {@code null}
+     */
+    public RstDaemonClient(Path socket) {
+        Objects.requireNonNull(socket, "socket == null");
+        this.socket = socket;
+    }
+
+    /** The path of the socket file. */
+    private final Path socket;
+
+    /**
+     * Forwards the command-line arguments to the daemon.
+     *
+     * @param cmdlArgs the command-line arguments container
+     * @return the exiting state of the forwarded request; or an empty optional
+     *         if no daemon is available for forwarding
+     */
+    public Optional<Integer> forward(CommandLineArguments cmdlArgs) {
+        if (!RstDaemonClient.forwardable(cmdlArgs) || !UnixSockets.supported() || !Files.exists(this.socket)) {
+            return Optional.empty();
+        }
+        if (!UnixSockets.trusted(this.socket)) {
+            // the socket may be served by another user, run in-process
+            return Optional.empty();
+        }
+        SocketChannel channel;
+        try {
+            channel = UnixSockets.connect(this.socket);
+        }
+        catch (IOException | RuntimeException e) {
+            // stale socket file, no daemon is serving
+            return Optional.empty();
+        }
+        try (SocketChannel c = channel;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(c), 1 << 16));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(c)))) {
+            // the daemon does not share the working directory of the client
+            Map<String, String> arguments = cmdlArgs.resolve(Paths.get("")).arguments();
+            out.writeInt(arguments.size());
+            for (Map.Entry<String, String> entry : arguments.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeUTF(entry.getValue());
+            }
+            out.flush();
+            return Optional.of(RstDaemonClient.receive(in));
+        }
+        catch (IOException e) {
+            CmdUtils.stderr("daemon connection failure%n%s%n", e.getMessage());
+            return Optional.of(RandomStringTools.FAIL_WRITE);
+        }
+    }
+
+    /**
+     * Receives the response frames of the daemon.
+     *
+     * @param in the response stream
+     * @return the exiting state of the request
+     * @throws IOException
+     *         if an I/O error occurs during reading the response
+     */
+    private static int receive(DataInputStream in) throws IOException {
+        byte[] buffer = new byte[1 << 13];
+        try {
+            while (true) {
+                int type = in.readByte();
+                if (type == RstDaemon.EXIT) {
+                    return in.readInt();
+                }
+                PrintStream target = type == RstDaemon.STDERR ? CmdUtils.stderr() : CmdUtils.stdout();
+                for (int length = in.readInt(); length > 0;) {
+                    int read = in.read(buffer, 0, Math.min(length, buffer.length));
+                    if (read < 0) {
+                        throw new IOException("unexpected end of response");
+                    }
+                    target.write(buffer, 0, read);
+                    length -= read;
+                }
+            }
+        }
+        finally {
+            CmdUtils.stdout().flush();
+            CmdUtils.stderr().flush();
+        }
+    }
+
+}
@@ -0,0 +1,232 @@
+package org.pgstyle.rst2.application.daemon;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * <p>
+ * The {@code UnixSockets} opens Unix domain socket channels.
+ * </p>
+ * <p>
+ * Unix domain sockets are only available since Java 16, while the
+ * {@code RandomStringTools} is built for Java 8. The socket API is therefore
+ * looked up reflectively, and {@link #supported()} reports whether the running
+ * JRE provides it.
+ * </p>
+ * <p>
+ * A socket file is only trusted in a directory private to the user, a socket
+ * created by another user may serve forged output and receive the arguments
+ * of the requests. The directory is created with the permission {@code 0700}
+ * and the socket file is restricted to {@code 0600} once bound.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+final class UnixSockets {
+
+    /** The {@code UNIX} protocol family; {@code null} if not supported. */
+    private static final ProtocolFamily UNIX;
+    /** {@code UnixDomainSocketAddress.of(Path)} */
+    private static final Method ADDRESS;
+    /** {@code ServerSocketChannel.open(ProtocolFamily)} */
+    private static final Method SERVER;
+    /** {@code SocketChannel.open(ProtocolFamily)} */
+    private static final Method CLIENT;
+    /** The permissions of the group and others, never granted. */
+    private static final Set<PosixFilePermission> SHARED = EnumSet.of(PosixFilePermission.GROUP_READ,
+                                                                      PosixFilePermission.GROUP_WRITE,
+                                                                      PosixFilePermission.GROUP_EXECUTE,
+                                                                      PosixFilePermission.OTHERS_READ,
+                                                                      PosixFilePermission.OTHERS_WRITE,
+                                                                      PosixFilePermission.OTHERS_EXECUTE);
+
+    static {
+        ProtocolFamily unix = null;
+        Method address = null;
+        Method server = null;
+        Method client = null;
+        try {
+            unix = StandardProtocolFamily.valueOf("UNIX");
+            address = Class.forName("java.net.UnixDomainSocketAddress").getMethod("of", Path.class);
+            server = ServerSocketChannel.class.getMethod("open", ProtocolFamily.class);
+            client = SocketChannel.class.getMethod("open", ProtocolFamily.class);
+        }
+        catch (IllegalArgumentException | ReflectiveOperationException e) {
+            // JRE older than Java 16, Unix domain socket is not available
+            unix = null;
+        }
+        UNIX = unix;
+        ADDRESS = address;
+        SERVER = server;
+        CLIENT = client;
+    }
+
+    /**
+     * Returns {@code true} if the running JRE supports Unix domain sockets.
+     *
+     * @return {@code true} if Unix domain sockets are supported; or
+     *         {@code false} otherwise
+     */
+    public static boolean supported() {
+        return Objects.nonNull(UnixSockets.UNIX);
+    }
+
+    /**
+     * Returns {@code true} if the file is owned by the user running this
+     * process and not accessible by the group or others. A symbolic link is
+     * never private.
+     *
+     * @param path the path of the file
+     * @return {@code true} if the file is private to the user; or
+     *         {@code false} otherwise, or if the file system does not support
+     *         POSIX permissions
+     */
+    public static boolean isPrivate(Path path) {
+        try {
+            PosixFileAttributes attributes = Files.readAttributes(path, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            UserPrincipal user = path.getFileSystem().getUserPrincipalLookupService()
+                                     .lookupPrincipalByName(System.getProperty("user.name"));
+            return !attributes.isSymbolicLink() && attributes.owner().equals(user)
+                   && Collections.disjoint(attributes.permissions(), UnixSockets.SHARED);
+        }
+        catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns {@code true} if the socket file and its directory are private
+     * to the user, the socket file is then trusted.
+     *
+     * @param path the path of the socket file
+     * @return {@code true} if the socket file is trusted; or {@code false}
+     *         otherwise
+     */
+    public static boolean trusted(Path path) {
+        Path directory = path.toAbsolutePath().getParent();
+        return Objects.nonNull(directory) && UnixSockets.isPrivate(directory) && UnixSockets.isPrivate(path);
+    }
+
+    /**
+     * Opens a server socket channel bound to the socket file. The directory
+     * of the socket file is created private to the user if not exist, and the
+     * socket file is made private to the user once bound.
+     *
+     * @param path the path of the socket file
+     * @return a bound server socket channel
+     * @throws IOException
+     *         if failed to bind the socket; or the directory of the socket
+     *         file is not private to the user
+     * @throws UnsupportedOperationException
+     *         if Unix domain sockets are not supported
+     */
+    public static ServerSocketChannel bind(Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        if (!Files.exists(directory, LinkOption.NOFOLLOW_LINKS)) {
+            Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        }
+        if (!UnixSockets.isPrivate(directory)) {
+            throw new IOException("socket directory is not private to the user: " + directory);
+        }
+        // remove socket file left by a daemon not terminated normally
+        Files.deleteIfExists(path);
+        ServerSocketChannel channel = (ServerSocketChannel) UnixSockets.invoke(UnixSockets.SERVER, UnixSockets.UNIX);
+        try {
+            channel.bind(UnixSockets.address(path));
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-------"));
+        }
+        catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    /**
+     * Opens a socket channel connected to the socket file.
+     *
+     * @param path the path of the socket file
+     * @return a connected socket channel
+     * @throws IOException
+     *         if failed to connect to the socket
+     * @throws UnsupportedOperationException
+     *         if Unix domain sockets are not supported
+     */
+    public static SocketChannel connect(Path path) throws IOException {
+        SocketChannel channel = (SocketChannel) UnixSockets.invoke(UnixSockets.CLIENT, UnixSockets.UNIX);
+        try {
+            channel.connect(UnixSockets.address(path));
+        }
+        catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+
+    /**
+     * Creates the socket address of the socket file.
+     *
+     * @param path the path of the socket file
+     * @return the socket address
+     * @throws IOException
+     *         if failed to create the socket address
+     */
+    private static SocketAddress address(Path path) throws IOException {
+        return (SocketAddress) UnixSockets.invoke(UnixSockets.ADDRESS, path);
+    }
+
+    /**
+     * Invokes a static method of the socket API.
+     *
+     * @param method the method to be invoked
+     * @param argument the only argument of the method
+     * @return the returned object of the method
+     * @throws IOException
+     *         if the method throws an {@code IOException}
+     * @throws UnsupportedOperationException
+     *         if Unix domain sockets are not supported
+     */
+    private static Object invoke(Method method, Object argument) throws IOException {
+        if (!UnixSockets.supported()) {
+            throw new UnsupportedOperationException("unix domain socket requires Java 16 or later");
+        }
+        try {
+            return method.invoke(null, argument);
+        }
+        catch (InvocationTargetException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException("failed to access unix domain socket", e.getCause());
+        }
+        catch (IllegalAccessException e) {
+            throw new IllegalStateException("failed to access unix domain socket", e);
+        }
+    }
+
+    /** Unnewable @throws UnsupportedOperationException always */
+    private UnixSockets() {
+        throw new UnsupportedOperationException("unnewable");
+    }
+
+}
@@ -0,0 +1,6 @@
+/**
+ * This package contains the daemon of the {@code RandomStringTools} and its
+ * thin client, which forwards command-line invocations to a warmed daemon
+ * over a Unix domain socket.
+ */
+package org.pgstyle.rst2.application.daemon;
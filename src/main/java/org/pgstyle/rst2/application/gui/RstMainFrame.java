@@ -8,12 +8,22 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Image;
 import java.awt.Toolkit;
+import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.StringSelection;
+import java.awt.datatransfer.Transferable;
+import java.awt.datatransfer.UnsupportedFlavorException;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintStream;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Function;
 
 import javax.imageio.ImageIO;
@@ -27,22 +37,25 @@ import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.JSpinner;
-import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.ScrollPaneConstants;
 import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingWorker;
 import javax.swing.WindowConstants;
 import javax.swing.filechooser.FileFilter;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
+import org.pgstyle.rst2.application.ApplicationException;
 import org.pgstyle.rst2.application.cli.CmdUtils;
 import org.pgstyle.rst2.application.common.RandomStringGenerator;
 import org.pgstyle.rst2.application.common.RstConfig;
 import org.pgstyle.rst2.application.common.RstConfig.RstType;
 import org.pgstyle.rst2.application.common.RstResources;
 import org.pgstyle.rst2.application.common.RstUtils;
+import org.pgstyle.rst2.random.EncodingRandomiser;
 
 /**
  * <p>
@@ -58,6 +71,13 @@ import org.pgstyle.rst2.application.common.RstUtils;
  */
 public final class RstMainFrame {
 
+    /** The interval between the batches of partial results, one frame at 60 fps. */
+    private static final long BATCH_INTERVAL = 16_000_000;
+    /** The maximum generating length. */
+    private static final int  MAX_LENGTH = 1 << 29;
+    /** The maximum number of bytes of output copied at once, larger output is copied on paste. */
+    private static final long COPY_LIMIT = 1 << 24;
+
     public static final Font MONO;
     public static final Font MONOBOLD;
     public static final Image ICON;
@@ -67,8 +87,8 @@ public final class RstMainFrame {
         System.setProperty("awt.useSystemAAFontSettings","on");
         System.setProperty("swing.aatext", "true");
         Function<String, Font> getFont = key -> {
-            try {
-                return Font.createFont(Font.TRUETYPE_FONT, RstResources.getStream(key)).deriveFont(Font.PLAIN, 13);
+            try (InputStream stream = RstResources.getStream(key)) {
+                return Font.createFont(Font.TRUETYPE_FONT, stream).deriveFont(Font.PLAIN, 13);
             } catch (FontFormatException | IOException e) {
                 CmdUtils.stderr(RstUtils.stackTraceOf(e));
                 return null;
@@ -77,8 +97,8 @@ public final class RstMainFrame {
         MONO = getFont.apply("rst.font.mono");
         MONOBOLD = getFont.apply("rst.font.monobold");
         Image icon = null;
-        try {
-            icon = ImageIO.read(RstResources.getStream("rst.icon.rst2"));
+        try (InputStream stream = RstResources.getStream("rst.icon.rst2")) {
+            icon = ImageIO.read(stream);
         } catch (IOException | RuntimeException e) {
             CmdUtils.stderr(RstUtils.stackTraceOf(e));
         }
@@ -129,8 +149,10 @@ public final class RstMainFrame {
 
     /** Reference to the main window. */
     private JFrame frame;
-    /** Text area for outputting generated string or program messages. */
-    private JTextArea output;
+    /** Buffer of the generated string or program messages. */
+    private RstOutputBuffer buffer;
+    /** View of the output buffer. */
+    private RstOutputView output;
     /** The generator type selector. */
     private JComboBox<RstType> algorithm;
     /** The ratio selector of the {@code AlphanumericRandomiser}. */
@@ -143,6 +165,25 @@ public final class RstMainFrame {
     private JTextField seed;
     /** The generating length input of all types of randomiser. */
     private JSpinner length;
+    /** The button to start the generation. */
+    private JButton generate;
+    /** The button to start the generation into a file. */
+    private JButton generateToFile;
+    /** The button to cancel the running generation. */
+    private JButton cancel;
+    /** The progress of the running generation. */
+    private JProgressBar progress;
+    /** Cancelling state of the running generation. */
+    private volatile boolean cancelled;
+    /**
+     * The messages written during the running generation or saving; or
+     * {@code null} if no generation or saving is running.
+     */
+    private List<String> deferred;
+    /** The button to copy the output. */
+    private JButton copy;
+    /** The button to write the output into a file. */
+    private JButton save;
 
     /**
      * Returns {@code true} if the main window is closed.
@@ -155,24 +196,33 @@ public final class RstMainFrame {
     }
 
     /**
-     * Resets the output text field of the main window and prints string onto it.
+     * Resets the output text field of the main window and prints string onto
+     * it. During a running generation, the output is not reset and the string
+     * is printed after the generation is done.
      *
      * @param string the string to be printed
      */
     public void rewrite(String string) {
-        this.output.setText("");
+        if (Objects.isNull(this.deferred)) {
+            this.buffer.clear();
+            this.output.reset();
+        }
         this.write(string);
     }
 
     /**
-     * Prints string onto the output text field of the main window.
+     * Prints string onto the output text field of the main window. During a
+     * running generation, the string is printed after the generation is done.
      *
      * @param string the string to be printed
      */
     public void write(String string) {
-        this.output.append(string);
-        this.output.append(System.lineSeparator());
-        this.output.setCaretPosition(this.output.getDocument().getLength());
+        if (Objects.nonNull(this.deferred)) {
+            this.deferred.add(string);
+            return;
+        }
+        this.buffer.append(string + System.lineSeparator());
+        this.output.refresh();
     }
 
     /**
@@ -205,6 +255,10 @@ public final class RstMainFrame {
         algorithm.setFont(RstMainFrame.MONOBOLD);
         this.algorithm.addItem(RstType.ALPHANUMERIC);
         this.algorithm.addItem(RstType.BASE64);
+        this.algorithm.addItem(RstType.HEX);
+        this.algorithm.addItem(RstType.BASE32);
+        this.algorithm.addItem(RstType.CROCKFORD);
+        this.algorithm.addItem(RstType.BASE58);
         this.algorithm.addItem(RstType.WEIGHTED);
         // secure selector
         this.secure = new JCheckBox("useSecureInstance");
@@ -250,6 +304,10 @@ public final class RstMainFrame {
                     weightsButton.setVisible(false);
                     break;
                 case BASE64:
+                case HEX:
+                case BASE32:
+                case CROCKFORD:
+                case BASE58:
                     layer2.setVisible(false);
                     break;
                 case WEIGHTED:
@@ -292,14 +350,33 @@ public final class RstMainFrame {
         JPanel layer4 = new JPanel(defaultLayout);
         JLabel lengthLabel = new JLabel("length =");
         lengthLabel.setFont(RstMainFrame.MONOBOLD);
-        this.length = new JSpinner(new SpinnerNumberModel(0, 0, 65536, 1));
+        this.length = new JSpinner(new SpinnerNumberModel(0, 0, RstMainFrame.MAX_LENGTH, 1));
         length.setFont(RstMainFrame.MONO);
-        JButton generate = new JButton("Generate");
-        generate.setFont(RstMainFrame.MONOBOLD);
-        generate.addActionListener(e -> this.commit());
+        this.generate = new JButton("Generate");
+        this.generate.setFont(RstMainFrame.MONOBOLD);
+        this.generate.addActionListener(e -> this.commit(null));
+        this.generateToFile = new JButton("To File");
+        this.generateToFile.setFont(RstMainFrame.MONOBOLD);
+        this.generateToFile.addActionListener(e -> {
+            File file = this.chooseFile("Generate");
+            if (Objects.nonNull(file)) {
+                this.commit(file);
+            }
+        });
+        this.cancel = new JButton("Cancel");
+        this.cancel.setFont(RstMainFrame.MONOBOLD);
+        this.cancel.setEnabled(false);
+        this.cancel.addActionListener(e -> this.cancelled = true);
+        this.progress = new JProgressBar(0, 100);
+        this.progress.setFont(RstMainFrame.MONO);
+        this.progress.setStringPainted(true);
+        this.progress.setVisible(false);
         layer4.add(lengthLabel);
         layer4.add(this.length);
-        layer4.add(generate);
+        layer4.add(this.generate);
+        layer4.add(this.generateToFile);
+        layer4.add(this.cancel);
+        layer4.add(this.progress);
 
         // layout settings
         layout.setHorizontalGroup(
@@ -333,19 +410,25 @@ public final class RstMainFrame {
         // subelements
         JLabel outputLabel = new JLabel("output:");
         outputLabel.setFont(RstMainFrame.MONOBOLD);
-        JButton copy = new JButton("Copy");
-        copy.setFont(RstMainFrame.MONOBOLD);
-        copy.addActionListener(e -> this.copy());
-        JButton save = new JButton("Write");
-        save.setFont(RstMainFrame.MONOBOLD);
-        save.addActionListener(e -> this.save());
-        this.output = new JTextArea("");
+        this.copy = new JButton("Copy");
+        this.copy.setFont(RstMainFrame.MONOBOLD);
+        this.copy.addActionListener(e -> this.copy());
+        this.save = new JButton("Write");
+        this.save.setFont(RstMainFrame.MONOBOLD);
+        this.save.addActionListener(e -> this.save());
+        try {
+            this.buffer = new RstOutputBuffer();
+        }
+        catch (IOException e) {
+            throw new ApplicationException("failed to create output buffer", e);
+        }
+        this.output = new RstOutputView(this.buffer);
         JScrollPane outputPane = new JScrollPane(this.output,
                                                  ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED,
                                                  ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
-        this.output.setFont(MONO);
-        this.output.setLineWrap(true);
-        this.output.setEditable(false);
+        if (RstMainFrame.MONO != null) {
+            this.output.setFont(RstMainFrame.MONO);
+        }
         this.output.setBorder(BorderFactory.createEtchedBorder());
 
         // setup layout
@@ -356,9 +439,9 @@ public final class RstMainFrame {
                                         .addGap(5)
                                         .addComponent(outputLabel)
                                         .addGap(5)
-                                        .addComponent(copy)
+                                        .addComponent(this.copy)
                                         .addGap(5)
-                                        .addComponent(save)
+                                        .addComponent(this.save)
                         )
                         .addGroup(
                             outputLayout.createSequentialGroup()
@@ -372,8 +455,8 @@ public final class RstMainFrame {
                         .addGroup(
                             outputLayout.createParallelGroup(Alignment.BASELINE)
                                         .addComponent(outputLabel)
-                                        .addComponent(copy)
-                                        .addComponent(save)
+                                        .addComponent(this.copy)
+                                        .addComponent(this.save)
                         )
                         .addGroup(
                             outputLayout.createParallelGroup(Alignment.BASELINE)
@@ -395,25 +478,33 @@ public final class RstMainFrame {
         this.ratio.setValue(Math.max(Math.min(config.ratio(), 1.0), 0.0));
         this.weights.setText(config.raw());
         this.seed.setText(config.seed());
-        this.length.setValue(Math.max(Math.min(config.length(), 65536), 0));
+        this.length.setValue(Math.max(Math.min(config.length(), RstMainFrame.MAX_LENGTH), 0));
         // print to output text area
         this.write("loaded settings from RstConfig/CommandLineArguments");
         this.write("algorithm = " + config.type());
         this.write("secure = " + config.secure());
         this.write("seed = " + RstUtils.toQuotedString(config.seed()));
-        this.write("length = " + config.length() + (config.length() < 0 || config.length() > 65536 ? " (confined)" : ""));
+        this.write("length = " + config.length() + (config.length() < 0 || config.length() > RstMainFrame.MAX_LENGTH ? " (confined)" : ""));
         if (config.type().equals(RstType.ALPHANUMERIC)) {
             this.write("ratio = " + config.ratio() + (config.ratio() < 0 || config.ratio() > 1 ? " (confined)" : ""));
         }
         if (config.type().equals(RstType.WEIGHTED)) {
             this.write("weights = " + RstUtils.toQuotedString(config.raw()));
         }
+        if (EnumSet.of(RstType.HEX, RstType.BASE32, RstType.CROCKFORD, RstType.BASE58).contains(config.type())) {
+            this.write("radix = " + EncodingRandomiser.Encoding.valueOf(config.type().name()).radix());
+        }
     }
 
     /**
-     * Commits all configurations and engages the randomiser.
+     * Commits all configurations and engages the randomiser in the background,
+     * the result is streamed into the output text area in batches, or written
+     * into the file directly without entering the output text area.
+     *
+     * @param file the file to be written; or {@code null} to write into the
+     *             output text area
      */
-    private void commit() {
+    private void commit(File file) {
         try {
             // load configuration from GUI configurator
             RstConfig current = new RstConfig();
@@ -426,8 +517,18 @@ public final class RstMainFrame {
             }
             current.seed(this.seed.getText());
             current.length(Integer.parseInt(((JSpinner.NumberEditor) this.length.getEditor()).getTextField().getText().replace(",", "")));
-            // create randomiser with configuration and generate result
-            this.rewrite(new RandomStringGenerator(current).generate());
+            this.buffer.clear();
+            this.output.reset();
+            if (Objects.nonNull(file)) {
+                this.write(String.format("Generating to '%s'...", file));
+            }
+            this.cancelled = false;
+            // the output buffer belongs to the generation until it is done
+            this.busy(true);
+            this.cancel.setEnabled(true);
+            this.progress.setValue(0);
+            this.progress.setVisible(true);
+            this.makeWorker(current, file).execute();
         }
         catch (RuntimeException e) {
             this.rewrite(RstUtils.stackTraceOf(e));
@@ -435,18 +536,224 @@ public final class RstMainFrame {
     }
 
     /**
-     * Copies text from the output text area to the system clipboard.
+     * Creates a worker generating the result of the configuration. The worker
+     * creates the randomiser and generates the result step by step off the
+     * event dispatch thread into the output buffer, the new steps are shown at
+     * most once a frame and the generation stops between steps when
+     * cancelled. If a file is given, the steps are written into the file with
+     * line formatting the same as the command-line mode instead.
+     *
+     * @param config the configuration container
+     * @param file the file to be written; or {@code null} to write into the
+     *             output buffer
+     * @return the worker generating the result, which results {@code true} if
+     *         the generation is completed; or {@code false} if cancelled
+     */
+    private SwingWorker<Boolean, Long> makeWorker(RstConfig config, File file) {
+        SwingWorker<Boolean, Long> worker = new SwingWorker<Boolean, Long>() {
+
+            /** The number of bytes written into the file. */
+            private long written;
+
+            @Override
+            protected Boolean doInBackground() throws IOException {
+                // create randomiser with configuration and generate result
+                RandomStringGenerator rsg = new RandomStringGenerator(config);
+                if (Objects.isNull(file)) {
+                    return this.generate(rsg, null);
+                }
+                try (PrintStream ps = RstUtils.openFile(file)) {
+                    boolean completed = this.generate(rsg, ps);
+                    // checkError flushes the stream before checking
+                    if (ps.checkError()) {
+                        throw new IOException("failed to write output: " + file);
+                    }
+                    return completed;
+                }
+            }
+
+            /**
+             * Generates the result step by step.
+             *
+             * @param rsg the generator
+             * @param ps the stream of the file; or {@code null} to write into
+             *           the output buffer
+             * @return {@code true} if the generation is completed; or
+             *         {@code false} if cancelled
+             */
+            private boolean generate(RandomStringGenerator rsg, PrintStream ps) {
+                long published = System.nanoTime();
+                while (rsg.available()) {
+                    if (RstMainFrame.this.cancelled) {
+                        return false;
+                    }
+                    byte[] step = rsg.stepBytes();
+                    if (Objects.isNull(ps)) {
+                        RstMainFrame.this.buffer.append(step, 0, step.length);
+                    }
+                    else {
+                        this.written += RstUtils.write(ps, step);
+                    }
+                    if (System.nanoTime() - published >= RstMainFrame.BATCH_INTERVAL) {
+                        if (Objects.isNull(ps)) {
+                            this.publish(RstMainFrame.this.buffer.size());
+                        }
+                        this.setProgress((int) Math.min(100, 100L * rsg.count() / Math.max(1, config.length())));
+                        published = System.nanoTime();
+                    }
+                }
+                return true;
+            }
+
+            @Override
+            protected void process(List<Long> sizes) {
+                RstMainFrame.this.output.refresh();
+            }
+
+            @Override
+            protected void done() {
+                List<String> deferred = RstMainFrame.this.busy(false);
+                RstMainFrame.this.cancel.setEnabled(false);
+                RstMainFrame.this.progress.setVisible(false);
+                try {
+                    boolean completed = this.get();
+                    if (Objects.nonNull(file)) {
+                        RstMainFrame.this.write(String.format("Wrote %d bytes to '%s'", this.written, file));
+                    }
+                    else {
+                        RstMainFrame.this.write("");
+                    }
+                    if (!completed) {
+                        RstMainFrame.this.write("Cancelled");
+                    }
+                }
+                catch (ExecutionException e) {
+                    RstMainFrame.this.rewrite(RstUtils.stackTraceOf(e.getCause()));
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                deferred.forEach(RstMainFrame.this::write);
+            }
+
+        };
+        worker.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) {
+                this.progress.setValue((Integer) e.getNewValue());
+            }
+        });
+        return worker;
+    }
+
+    /**
+     * Copies text from the output buffer to the system clipboard, the text of
+     * a large output is read from the buffer only when it is pasted, and fails
+     * if the output has been cleared.
      */
     private void copy() {
-        this.output.select(0, Integer.MAX_VALUE);
-        this.output.requestFocus();
-        Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(this.output.getText()), null);
+        long size = this.buffer.size();
+        int version = this.buffer.version();
+        if (size <= RstMainFrame.COPY_LIMIT) {
+            Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new StringSelection(this.buffer.text(size)), null);
+            return;
+        }
+        Toolkit.getDefaultToolkit().getSystemClipboard().setContents(new Transferable() {
+
+            @Override
+            public DataFlavor[] getTransferDataFlavors() {
+                return new DataFlavor[] {DataFlavor.stringFlavor};
+            }
+
+            @Override
+            public boolean isDataFlavorSupported(DataFlavor flavor) {
+                return DataFlavor.stringFlavor.equals(flavor);
+            }
+
+            @Override
+            public Object getTransferData(DataFlavor flavor) throws UnsupportedFlavorException, IOException {
+                if (!this.isDataFlavorSupported(flavor)) {
+                    throw new UnsupportedFlavorException(flavor);
+                }
+                if (RstMainFrame.this.buffer.version() != version) {
+                    throw new IOException("output has changed since copied");
+                }
+                return RstMainFrame.this.buffer.text(size);
+            }
+
+        }, null);
     }
 
     /**
-     * Saves text from the output text area to a specified file.
+     * Saves text from the output text area to a specified file. The file is
+     * written off the event dispatch thread, the output buffer is not changed
+     * until the saving is done.
      */
     private void save() {
+        File file = this.chooseFile("Save");
+        if (Objects.isNull(file)) {
+            return;
+        }
+        this.busy(true);
+        new SwingWorker<Long, Void>() {
+
+            @Override
+            protected Long doInBackground() throws IOException {
+                try (PrintStream ps = RstUtils.openFile(file)) {
+                    long written = RstMainFrame.this.buffer.write(ps);
+                    // checkError flushes the stream before checking
+                    if (ps.checkError()) {
+                        throw new IOException("failed to write output: " + file);
+                    }
+                    return written;
+                }
+            }
+
+            @Override
+            protected void done() {
+                List<String> deferred = RstMainFrame.this.busy(false);
+                try {
+                    RstMainFrame.this.rewrite(String.format("Wrote %d bytes to '%s'", this.get(), file));
+                }
+                catch (ExecutionException e) {
+                    RstMainFrame.this.rewrite(RstUtils.stackTraceOf(e.getCause()));
+                    RstMainFrame.this.write("Failed to write file, " + RstUtils.messageOf(e.getCause()));
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                deferred.forEach(RstMainFrame.this::write);
+            }
+
+        }.execute();
+    }
+
+    /**
+     * Marks the output buffer as used by a background task. While busy, the
+     * buttons changing or reading the output buffer are disabled and the
+     * messages written are deferred.
+     *
+     * @param busy {@code true} if a background task starts; or {@code false}
+     *             if the background task is done
+     * @return the messages deferred during the background task; or an empty
+     *         list if a background task starts
+     */
+    private List<String> busy(boolean busy) {
+        List<String> deferred = Objects.isNull(this.deferred) ? new ArrayList<>() : this.deferred;
+        this.deferred = busy ? new ArrayList<>() : null;
+        this.generate.setEnabled(!busy);
+        this.generateToFile.setEnabled(!busy);
+        this.copy.setEnabled(!busy);
+        this.save.setEnabled(!busy);
+        return busy ? new ArrayList<>() : deferred;
+    }
+
+    /**
+     * Selects a file to be written.
+     *
+     * @param approve the text of the approve button
+     * @return the selected file; or {@code null} if cancelled
+     */
+    private File chooseFile(String approve) {
         // select file in current working directory
         JFileChooser fc = new JFileChooser(".");
         // rst2 is the default file extension, but other also supported
@@ -454,20 +761,15 @@ public final class RstMainFrame {
         fc.setFileFilter(new FileNameExtensionFilter("RST Output (*.rst2,*.rst)", "rst2", "rst"));
         fc.addChoosableFileFilter(new FileNameExtensionFilter("Plain Text (*.txt)", "txt"));
 
-        if (fc.showDialog(this.frame, "Save") == JFileChooser.APPROVE_OPTION) {
-            // setup file extension if required but not given
-            FileFilter filter = fc.getFileFilter();
-            String file = filter.accept(fc.getSelectedFile()) ?
-                              fc.getSelectedFile().toString() :
-                              fc.getSelectedFile().toString() + "." + ((FileNameExtensionFilter) filter).getExtensions()[0];
-            try (PrintStream ps = RstUtils.openFile(Paths.get(file).toFile())) {
-                this.rewrite(String.format("Wrote %d bytes to '%s'", RstUtils.write(ps, this.output.getText().trim()), file));
-            }
-            catch (IOException e) {
-                this.rewrite(RstUtils.stackTraceOf(e));
-                this.write("Failed to write file, " + RstUtils.messageOf(e));
-            }
+        if (fc.showDialog(this.frame, approve) != JFileChooser.APPROVE_OPTION) {
+            return null;
         }
+        // setup file extension if required but not given
+        FileFilter filter = fc.getFileFilter();
+        String file = filter.accept(fc.getSelectedFile()) ?
+                          fc.getSelectedFile().toString() :
+                          fc.getSelectedFile().toString() + "." + ((FileNameExtensionFilter) filter).getExtensions()[0];
+        return Paths.get(file).toFile();
     }
 
 }
@@ -0,0 +1,236 @@
+package org.pgstyle.rst2.application.gui;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.pgstyle.rst2.application.ApplicationException;
+import org.pgstyle.rst2.application.common.RstUtils;
+
+/**
+ * <p>
+ * The {@code RstOutputBuffer} holds the UTF-8 bytes of the output of the
+ * {@link RstMainFrame} outside the Java heap, the bytes are appended to a
+ * temporary file memory-mapped in segments of {@value #SEGMENT_SIZE} bytes,
+ * therefore an output of hundreds of megabytes costs no heap.
+ * </p>
+ * <p>
+ * The bytes are appended by one thread at a time and may be read by another
+ * thread, the reader sees the bytes up to the {@link #size()} it reads.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+final class RstOutputBuffer {
+
+    /** The number of bytes of a mapped segment, a power of two. */
+    private static final int SEGMENT_SIZE = 1 << 26;
+    /** The number of bytes of a chunk read from the buffer in bulk. */
+    private static final int CHUNK = 1 << 16;
+
+    /**
+     * Creates an empty buffer on a temporary file. The file is deleted once
+     * opened if the platform allows, the mappings remain valid until they are
+     * collected.
+     *
+     * @throws IOException
+     *         if failed to create the temporary file
+     */
+    RstOutputBuffer() throws IOException {
+        File file = File.createTempFile("rst-2-output-", ".txt");
+        file.deleteOnExit();
+        this.channel = new RandomAccessFile(file, "rw").getChannel();
+        file.delete();
+        this.segments = new MappedByteBuffer[0];
+    }
+
+    private final FileChannel           channel;
+    private volatile MappedByteBuffer[] segments;
+    private volatile long               size;
+    /** The number of times this buffer is cleared. */
+    private volatile int                version;
+
+    /**
+     * Returns the number of bytes in this buffer.
+     *
+     * @return the number of bytes in this buffer
+     */
+    long size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the version of this buffer, the version changes when this buffer
+     * is cleared.
+     *
+     * @return the version of this buffer
+     */
+    int version() {
+        return this.version;
+    }
+
+    /**
+     * Appends the UTF-8 bytes of a string into this buffer.
+     *
+     * @param string the string to be appended
+     * @throws ApplicationException
+     *         if failed to map the temporary file
+     */
+    void append(String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        this.append(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Appends bytes into this buffer.
+     *
+     * @param bytes the bytes to be appended
+     * @param offset the offset of the bytes
+     * @param length the number of bytes
+     * @throws ApplicationException
+     *         if failed to map the temporary file
+     */
+    synchronized void append(byte[] bytes, int offset, int length) {
+        long position = this.size;
+        int end = offset + length;
+        while (offset < end) {
+            ByteBuffer segment = this.segment(position).duplicate();
+            segment.position((int) (position & RstOutputBuffer.SEGMENT_SIZE - 1));
+            int count = Math.min(segment.remaining(), end - offset);
+            segment.put(bytes, offset, count);
+            offset += count;
+            position += count;
+        }
+        this.size = position;
+    }
+
+    /**
+     * Reads bytes from this buffer.
+     *
+     * @param position the position in this buffer to read from
+     * @param bytes the array to read into
+     * @param offset the offset of the array
+     * @param length the number of bytes to read, within the size
+     */
+    void read(long position, byte[] bytes, int offset, int length) {
+        MappedByteBuffer[] segments = this.segments;
+        int end = offset + length;
+        while (offset < end) {
+            ByteBuffer segment = segments[(int) (position / RstOutputBuffer.SEGMENT_SIZE)].duplicate();
+            segment.position((int) (position & RstOutputBuffer.SEGMENT_SIZE - 1));
+            int count = Math.min(segment.remaining(), end - offset);
+            segment.get(bytes, offset, count);
+            offset += count;
+            position += count;
+        }
+    }
+
+    /**
+     * Empties this buffer, the mapped segments are reused.
+     */
+    synchronized void clear() {
+        this.size = 0;
+        this.version++;
+    }
+
+    /**
+     * Returns the head of this buffer as a string, truncated to the maximum
+     * size of an array.
+     *
+     * @param size the number of bytes of the head, within the size
+     * @return the head of this buffer
+     */
+    String text(long size) {
+        byte[] bytes = new byte[(int) Math.min(size, Integer.MAX_VALUE - 8)];
+        this.read(0, bytes, 0, bytes.length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the content of this buffer into the print stream with line
+     * formatting, the whitespaces around the content are trimmed. The result
+     * is the same as {@link RstUtils#write(PrintStream, byte[])} writes the
+     * whole content at once, but written in chunks of lines.
+     *
+     * @param printStream the stream to be written
+     * @return actual count of bytes written
+     */
+    long write(PrintStream printStream) {
+        long start = 0;
+        long end = this.size;
+        byte[] bytes = new byte[1];
+        while (start < end && (this.byteAt(start, bytes) & 0xff) <= ' ') {
+            start++;
+        }
+        while (end > start && (this.byteAt(end - 1, bytes) & 0xff) <= ' ') {
+            end--;
+        }
+        bytes = new byte[RstOutputBuffer.CHUNK];
+        long written = 0;
+        while (start < end) {
+            int length = (int) Math.min(bytes.length, end - start);
+            this.read(start, bytes, 0, length);
+            int cut = length;
+            if (start + length < end) {
+                // cut before the first character of the last full line
+                int characters = 0;
+                for (int i = 0; i < length; i++) {
+                    if ((bytes[i] & 0xc0) != 0x80 && characters++ % 64 == 0) {
+                        cut = i;
+                    }
+                }
+                cut = cut == 0 ? length : cut;
+            }
+            written += RstUtils.write(printStream, Arrays.copyOf(bytes, cut));
+            start += cut;
+        }
+        return written;
+    }
+
+    /**
+     * Reads a byte from this buffer.
+     *
+     * @param position the position of the byte
+     * @param bytes a single byte array to read into
+     * @return the byte at the position
+     */
+    private byte byteAt(long position, byte[] bytes) {
+        this.read(position, bytes, 0, 1);
+        return bytes[0];
+    }
+
+    /**
+     * Returns the segment containing the position, the segments are mapped up
+     * to the position if not yet mapped.
+     *
+     * @param position the position in this buffer
+     * @return the segment containing the position
+     * @throws ApplicationException
+     *         if failed to map the temporary file
+     */
+    private MappedByteBuffer segment(long position) {
+        int index = (int) (position / RstOutputBuffer.SEGMENT_SIZE);
+        if (index >= this.segments.length) {
+            MappedByteBuffer[] segments = Arrays.copyOf(this.segments, index + 1);
+            try {
+                for (int i = this.segments.length; i < segments.length; i++) {
+                    segments[i] = this.channel.map(FileChannel.MapMode.READ_WRITE, (long) i * RstOutputBuffer.SEGMENT_SIZE, RstOutputBuffer.SEGMENT_SIZE);
+                }
+            }
+            catch (IOException e) {
+                throw new ApplicationException("failed to map output buffer", e);
+            }
+            this.segments = segments;
+        }
+        return this.segments[index];
+    }
+
+}
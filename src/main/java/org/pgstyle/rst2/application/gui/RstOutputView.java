@@ -0,0 +1,263 @@
+package org.pgstyle.rst2.application.gui;
+
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Insets;
+import java.awt.Rectangle;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.swing.JComponent;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import javax.swing.UIManager;
+
+/**
+ * <p>
+ * The {@code RstOutputView} is a read-only view of a {@link RstOutputBuffer}
+ * in a scroll pane, the content is wrapped at the width of the view and only
+ * the visible lines are read from the buffer and painted, therefore the view
+ * of an output of hundreds of megabytes scrolls as fast as a short one.
+ * </p>
+ * <p>
+ * The view keeps an index of the positions of every {@value #STRIDE} lines in
+ * the buffer, a visible line is found by scanning forward from the indexed
+ * line before it. The bytes appended into the buffer are indexed on
+ * {@link #refresh()}; the whole buffer is indexed again only when the width of
+ * the view changes. The lines are wrapped at a number of characters, as the
+ * font is monospaced.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+final class RstOutputView extends JComponent implements Scrollable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The number of bytes of a chunk indexed in bulk. */
+    private static final int CHUNK = 1 << 16;
+    /** The number of lines between the indexed lines. */
+    private static final int STRIDE = 64;
+
+    /**
+     * Creates a view of the buffer.
+     *
+     * @param buffer the buffer to be viewed
+     */
+    RstOutputView(RstOutputBuffer buffer) {
+        this.buffer = buffer;
+        this.chunk = new byte[RstOutputView.CHUNK];
+        this.lines = new long[1024];
+        this.scan = new byte[1024];
+        this.columns = 1;
+        this.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 13));
+        this.setOpaque(true);
+        this.setBackground(UIManager.getColor("TextArea.background"));
+        this.setForeground(UIManager.getColor("TextArea.foreground"));
+        this.reset();
+    }
+
+    private final transient RstOutputBuffer buffer;
+    private final byte[]                    chunk;
+    private final byte[]                    scan;
+    /** The positions of every {@value #STRIDE} lines in the buffer. */
+    private long[]                          lines;
+    /** The number of lines indexed. */
+    private int                             count;
+    /** The number of bytes indexed. */
+    private long                            indexed;
+    /** The number of characters in the last line indexed. */
+    private int                             column;
+    /** The number of characters per line. */
+    private int                             columns;
+
+    /**
+     * Clears the index of the view, call after the buffer is cleared.
+     */
+    void reset() {
+        this.lines[0] = 0;
+        this.count = 1;
+        this.indexed = 0;
+        this.column = 0;
+        this.revalidate();
+        this.repaint();
+    }
+
+    /**
+     * Indexes the bytes appended into the buffer and scrolls to the end.
+     */
+    void refresh() {
+        this.index();
+        this.revalidate();
+        this.repaint();
+        Rectangle end = new Rectangle(0, this.getPreferredSize().height - 1, 1, 1);
+        this.scrollRectToVisible(end);
+    }
+
+    @Override
+    public void setBounds(int x, int y, int width, int height) {
+        super.setBounds(x, y, width, height);
+        Insets insets = this.getInsets();
+        int columns = Math.max(1, (width - insets.left - insets.right) / this.charWidth());
+        if (columns != this.columns) {
+            // wrapped at a new width, index the whole buffer again
+            this.columns = columns;
+            this.reset();
+            this.index();
+        }
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        Insets insets = this.getInsets();
+        long height = (long) this.count * this.lineHeight() + insets.top + insets.bottom;
+        return new Dimension(this.columns * this.charWidth() + insets.left + insets.right, (int) Math.min(height, Integer.MAX_VALUE));
+    }
+
+    @Override
+    protected void paintComponent(Graphics graphics) {
+        super.paintComponent(graphics);
+        Insets insets = this.getInsets();
+        Rectangle clip = graphics.getClipBounds();
+        graphics.setColor(this.getBackground());
+        graphics.fillRect(clip.x, clip.y, clip.width, clip.height);
+        graphics.setColor(this.getForeground());
+        graphics.setFont(this.getFont());
+        FontMetrics metrics = graphics.getFontMetrics();
+        int height = this.lineHeight();
+        int first = Math.max(0, (clip.y - insets.top) / height);
+        int last = Math.min(this.count - 1, (clip.y + clip.height - insets.top) / height);
+        long start = first < this.count ? this.lines[first / RstOutputView.STRIDE] : this.indexed;
+        for (int i = first - first % RstOutputView.STRIDE; i < first; i++) {
+            start = this.end(start);
+        }
+        for (int i = first; i <= last; i++) {
+            long end = this.end(start);
+            byte[] bytes = new byte[(int) (end - start)];
+            this.buffer.read(start, bytes, 0, bytes.length);
+            int length = bytes.length;
+            while (length > 0 && (bytes[length - 1] == '\n' || bytes[length - 1] == '\r')) {
+                length--;
+            }
+            graphics.drawString(new String(bytes, 0, length, StandardCharsets.UTF_8), insets.left,
+                                insets.top + i * height + metrics.getAscent());
+            start = end;
+        }
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        return this.getPreferredSize();
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? this.lineHeight() : this.charWidth();
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return true;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+
+    /**
+     * Indexes the lines of the bytes appended into the buffer since the last
+     * indexing. A line ends after a line feed or before the character
+     * exceeding the number of characters per line.
+     */
+    private void index() {
+        long size = this.buffer.size();
+        while (this.indexed < size) {
+            int length = (int) Math.min(this.chunk.length, size - this.indexed);
+            this.buffer.read(this.indexed, this.chunk, 0, length);
+            for (int i = 0; i < length; i++) {
+                byte b = this.chunk[i];
+                if (b == '\n') {
+                    this.line(this.indexed + i + 1);
+                }
+                // count the first byte of a character, except carriage returns
+                else if (b != '\r' && (b & 0xc0) != 0x80 && this.column++ == this.columns) {
+                    this.line(this.indexed + i);
+                    this.column = 1;
+                }
+            }
+            this.indexed += length;
+        }
+    }
+
+    /**
+     * Counts a line, the position of every {@value #STRIDE} lines is added to
+     * the index.
+     *
+     * @param position the position of the line in the buffer
+     */
+    private void line(long position) {
+        if (this.count % RstOutputView.STRIDE == 0) {
+            int index = this.count / RstOutputView.STRIDE;
+            if (index == this.lines.length) {
+                this.lines = Arrays.copyOf(this.lines, this.lines.length * 2);
+            }
+            this.lines[index] = position;
+        }
+        this.count++;
+        this.column = 0;
+    }
+
+    /**
+     * Finds the end of a line by the same rule of the indexing.
+     *
+     * @param start the position of the line in the buffer
+     * @return the position after the end of the line, the position of the
+     *         next line
+     */
+    private long end(long start) {
+        int column = 0;
+        for (long position = start; position < this.indexed; position += this.scan.length) {
+            int length = (int) Math.min(this.scan.length, this.indexed - position);
+            this.buffer.read(position, this.scan, 0, length);
+            for (int i = 0; i < length; i++) {
+                byte b = this.scan[i];
+                if (b == '\n') {
+                    return position + i + 1;
+                }
+                if (b != '\r' && (b & 0xc0) != 0x80 && column++ == this.columns) {
+                    return position + i;
+                }
+            }
+        }
+        return this.indexed;
+    }
+
+    /**
+     * Returns the height of a line.
+     *
+     * @return the height of a line in pixels
+     */
+    private int lineHeight() {
+        return this.getFontMetrics(this.getFont()).getHeight();
+    }
+
+    /**
+     * Returns the width of a character.
+     *
+     * @return the width of a character in pixels
+     */
+    private int charWidth() {
+        return Math.max(1, this.getFontMetrics(this.getFont()).charWidth('m'));
+    }
+
+}
@@ -2,37 +2,54 @@ package org.pgstyle.rst2.application.gui;
 
 import java.awt.BorderLayout;
 import java.awt.Color;
+import java.awt.Component;
 import java.awt.Dimension;
+import java.awt.Graphics;
 import java.awt.GridLayout;
 import java.awt.Insets;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-import java.util.AbstractMap.SimpleEntry;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 import javax.swing.BorderFactory;
-import javax.swing.BoxLayout;
 import javax.swing.JButton;
+import javax.swing.JComponent;
 import javax.swing.JDialog;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
-import javax.swing.JSpinner;
-import javax.swing.JTextField;
+import javax.swing.JTable;
+import javax.swing.ListSelectionModel;
 import javax.swing.ScrollPaneConstants;
-import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 import javax.swing.WindowConstants;
-import javax.swing.event.DocumentEvent;
-import javax.swing.event.DocumentListener;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
 
 import org.pgstyle.rst2.application.common.RstUtils;
+import org.pgstyle.rst2.random.CharacterSet;
+import org.pgstyle.rst2.random.CompiledWeights;
 
 /**
+ * <p>
  * Frame controller for the config function of weight descriptors of the
  * {@link org.pgstyle.rst2.random.WeightedRandomiser WeightedRandomiser}.
+ * </p>
+ * <p>
+ * The descriptors are edited in a table. An edit is validated
+ * {@value #DEBOUNCE} milliseconds after the last edit on a background
+ * thread, only the statements changed since the last validation are parsed.
+ * The validation also compiles the weights of the valid descriptors for the
+ * preview of the probabilities of the characters.
+ * </p>
  *
  * @since rst-2
  * @version rst-2.0
@@ -41,225 +58,351 @@ import org.pgstyle.rst2.application.common.RstUtils;
 public class RstWeightsFrame {
 
     /**
-     * Weight descriptor container and controller. It is a subelement of a
-     * {@code RstWeightsFrame}. It contains an action button for adding and
-     * removing cells and the input area for the weight and statement.
+     * A weight descriptor, a row of the {@code WeightsModel}. The descriptor
+     * is accessed on the event dispatch thread only.
      */
-    private class RstWeightCell extends JPanel {
+    private static final class Descriptor {
 
         /**
-         * Event handler of the action button of a {@code RstWeightCell}.
+         * Creates a weight descriptor.
+         *
+         * @param weight the weight of the descriptor
+         * @param statement the statement of the descriptor
          */
-        private class CellOperation implements ActionListener {
+        Descriptor(int weight, String statement) {
+            this.weight = weight;
+            this.statement = statement;
+            this.validated = -1;
+        }
 
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                switch (RstWeightCell.this.action.getText()) {
-                case RstWeightsFrame.REMOVE:
-                    RstWeightsFrame.this.descriptors.remove(RstWeightCell.this);
-                    break;
-                case RstWeightsFrame.ADD:
-                    // to add a new weight cell,
-                    // turn this cell into inputable cell, and create a new cell
-                    RstWeightCell.this.realise(0, "");
-                    RstWeightsFrame.this.descriptors.add(new RstWeightCell(false));
-                    break;
-                default:
-                    RstWeightsFrame.this.main.write(RstUtils.messageOf(new IllegalAccessException("action")));
-                    break;
-                }
-                // manipulate weight cells will not update the config dialog
-                // automatically, trigger the update of GUI component
-                this.redraw();
-            }
+        private int          weight;
+        private String       statement;
+        /** The revision of the statement, increased on every change. */
+        private int          revision;
+        /** The revision of the statement validated; or {@code -1} if none. */
+        private int          validated;
+        /** The characters of the validated statement; or {@code null} if invalid. */
+        private CharacterSet characters;
+        /** The error of the validated statement; or {@code null} if valid. */
+        private String       error;
 
-            /**
-             * Triggers redraw of the descriptors component of the weights
-             * configuration dialog.
-             */
-            private void redraw() {
-                RstWeightsFrame.this.descriptors.revalidate();
-                RstWeightsFrame.this.descriptors.repaint();
-            }
+        /**
+         * Returns {@code true} if the current statement is validated.
+         *
+         * @return {@code true} if the current statement is validated; or
+         *         {@code false} otherwise
+         */
+        boolean isValidated() {
+            return this.validated == this.revision;
         }
 
         /**
-         * Event handler of the weight text input of a {@code RstWeightCell}.
+         * Returns the string representation of this descriptor. Will return
+         * the normalised form if possible.
+         *
+         * @return the normalised descriptor text of this descriptor; or the
+         *         raw descriptor text if the descriptor statement contains
+         *         syntax error
          */
-        private class CellValidation implements DocumentListener {
-
-            @Override
-            public void insertUpdate(DocumentEvent e) {
-                this.changedUpdate(e);
+        @Override
+        public String toString() {
+            if (this.isValidated() && Objects.nonNull(this.characters)) {
+                return this.weight + ":" + RstUtils.format(this.characters);
             }
-
-            @Override
-            public void removeUpdate(DocumentEvent e) {
-                this.changedUpdate(e);
+            try {
+                return this.weight + ":" + RstUtils.normalise(this.statement);
             }
-
-            @Override
-            public void changedUpdate(DocumentEvent e) {
-                // perform realtime syntax checking for weight descriptor statement
-                // syntax check on initialisation will be performed in the realise stage
-                if (RstWeightCell.this.isRealised()) {
-                    try {
-                        // use the syntax checking function in the normalise method
-                        RstUtils.normalise(new SimpleEntry<>(RstWeightCell.this.getStatement(), RstWeightCell.this.getWeight()));
-                        RstWeightCell.this.statement.setBackground(Color.WHITE);
-                    }
-                    catch (RuntimeException ex) {
-                        // syntax error visual notification
-                        RstWeightCell.this.statement.setBackground(Color.PINK);
-                    }
-                }
+            catch (RuntimeException e) {
+                // syntax error
+                return this.weight + ":" + this.statement;
             }
         }
 
+    }
+
+    /**
+     * The snapshot of a descriptor taken for a validation.
+     */
+    private static final class Snapshot {
+
         /**
-         * Initialises a weight descriptor container unit.
+         * Takes a snapshot of a descriptor.
          *
-         * @param realise directly realises this cell when {@code true}
+         * @param descriptor the descriptor
          */
-        public RstWeightCell(boolean realise) {
-            // lock realising state
-            this.realised = false;
-            // create the subelements
-            this.action = new JButton(RstWeightsFrame.ADD);
-            this.action.setFont(RstMainFrame.MONOBOLD);
-            this.weight = new JSpinner(new SpinnerNumberModel(0, 0, 65535, 1));
-            this.weight.setFont(RstMainFrame.MONO);
-            this.statement = new JTextField(16);
-            this.statement.setFont(RstMainFrame.MONO);
-
-            // setup the GUI appearance
-            this.setMinimumSize(RstWeightsFrame.CELL_SIZE);
-            this.setPreferredSize(RstWeightsFrame.CELL_SIZE);
-            this.setMaximumSize(RstWeightsFrame.CELL_SIZE);
-            this.setBorder(BorderFactory.createEtchedBorder());
-            this.setLayout(new BoxLayout(this, BoxLayout.X_AXIS));
-            this.action.setMargin(new Insets(0, 0, 0, 0));
-            this.action.setMinimumSize(RstWeightsFrame.ACTION_SIZE);
-            this.action.setPreferredSize(RstWeightsFrame.ACTION_SIZE);
-            this.action.setMaximumSize(RstWeightsFrame.ACTION_SIZE);
-            ((JSpinner.NumberEditor) this.weight.getEditor()).getTextField().setColumns(4);
-
-            // setup events
-            this.action.addActionListener(this.new CellOperation());
-            this.statement.getDocument().addDocumentListener(this.new CellValidation());
-
-            this.add(this.action);
-            if (realise) {
-                this.realise(0, "");
-            }
+        Snapshot(Descriptor descriptor) {
+            this.descriptor = descriptor;
+            this.weight = descriptor.weight;
+            this.statement = descriptor.statement;
+            this.revision = descriptor.revision;
+            this.parsed = descriptor.isValidated();
+            this.characters = descriptor.characters;
+            this.error = descriptor.error;
         }
 
-        private final JButton action;
-        private final JSpinner weight;
-        private final JTextField statement;
+        private final Descriptor descriptor;
+        private final int        weight;
+        private final String     statement;
+        private final int        revision;
+        /** {@code true} if the statement is validated before the snapshot. */
+        private final boolean    parsed;
+        private CharacterSet     characters;
+        private String           error;
 
-        private boolean realised;
+    }
+
+    /**
+     * Table model of the weight descriptors, an edit of a descriptor
+     * schedules a validation.
+     */
+    private final class WeightsModel extends AbstractTableModel {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Creates an empty table model. */
+        WeightsModel() {
+            this.descriptors = new ArrayList<>();
+        }
+
+        private final transient List<Descriptor> descriptors;
+
+        @Override
+        public int getRowCount() {
+            return this.descriptors.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return 2;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return column == 0 ? "weight" : "statement";
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 0 ? Integer.class : String.class;
+        }
+
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return true;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            Descriptor descriptor = this.descriptors.get(row);
+            return column == 0 ? (Object) descriptor.weight : descriptor.statement;
+        }
+
+        @Override
+        public void setValueAt(Object value, int row, int column) {
+            Descriptor descriptor = this.descriptors.get(row);
+            if (column == 0) {
+                int weight = Objects.isNull(value) ? 0 : (Integer) value;
+                descriptor.weight = Math.max(Math.min(weight, RstWeightsFrame.MAX_WEIGHT), 0);
+            }
+            else if (!descriptor.statement.equals(value)) {
+                descriptor.statement = Objects.toString(value, "");
+                descriptor.revision++;
+            }
+            this.fireTableCellUpdated(row, column);
+            RstWeightsFrame.this.debounce.restart();
+        }
 
         /**
-         * Returns {@code true} if this cell has finished realising.
+         * Returns the descriptor of a row.
          *
-         * @return {@code true} if this cell has finished realising; or
-         *         {@code false} otherwise
+         * @param row the row
+         * @return the descriptor of the row
          */
-        public boolean isRealised() {
-            return this.realised;
+        Descriptor get(int row) {
+            return this.descriptors.get(row);
         }
 
         /**
-         * Returns the weight value of this cell.
+         * Returns the descriptors.
          *
-         * @return the weight value of this cell
+         * @return the descriptors
          */
-        public int getWeight() {
-            return (int) this.weight.getValue();
+        List<Descriptor> descriptors() {
+            return this.descriptors;
         }
 
         /**
-         * Returns the statement of this cell.
+         * Adds an empty descriptor at the end.
          *
-         * @return the statement of this cell
+         * @return the row of the new descriptor
          */
-        public String getStatement() {
-            return this.statement.getText();
+        int add() {
+            this.descriptors.add(new Descriptor(0, ""));
+            int row = this.descriptors.size() - 1;
+            this.fireTableRowsInserted(row, row);
+            RstWeightsFrame.this.debounce.restart();
+            return row;
         }
 
         /**
-         * Realises this cell with the given values.
+         * Removes the descriptors of the rows.
          *
-         * @param weight the weight of the descriptor
-         * @param statement the statement of the descriptor
+         * @param rows the rows to be removed
          */
-        public void realise(int weight, String statement) {
-            this.action.setText(RstWeightsFrame.REMOVE);
-            this.setCell(weight, statement);
-            this.add(this.weight);
-            this.add(this.statement);
-            this.realise(new SimpleEntry<>(statement, weight));
+        void remove(int[] rows) {
+            int[] sorted = rows.clone();
+            Arrays.sort(sorted);
+            for (int i = sorted.length - 1; i >= 0; i--) {
+                this.descriptors.remove(sorted[i]);
+            }
+            this.fireTableDataChanged();
+            RstWeightsFrame.this.debounce.restart();
         }
 
         /**
-         * Returns the string representation of this cell. Will return the
-         * normalised form if possible.
+         * Replaces all descriptors with the entries.
          *
-         * @return the normalised descriptor text of this cell; or the raw
-         *         descriptor text if the descriptor statement contains syntax
-         *         error
+         * @param list the list of descriptor entries
          */
+        void load(List<Entry<String, Integer>> list) {
+            this.descriptors.clear();
+            for (Entry<String, Integer> entry : list) {
+                int weight = Math.max(Math.min(entry.getValue(), RstWeightsFrame.MAX_WEIGHT), 0);
+                this.descriptors.add(new Descriptor(weight, entry.getKey()));
+            }
+            this.fireTableDataChanged();
+        }
+
+    }
+
+    /**
+     * Histogram of the probabilities of the characters, computed from the
+     * compiled weights. The characters are laid out in the order of code
+     * points, a column of pixels shows the highest probability of the
+     * characters in the column.
+     */
+    private static final class DistributionPreview extends JComponent {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Creates an empty preview. */
+        DistributionPreview() {
+            this.setFont(RstMainFrame.MONO);
+            this.setBorder(BorderFactory.createEtchedBorder());
+            this.setPreferredSize(new Dimension(0, 120));
+            this.setToolTipText("");
+            this.show(null, "");
+        }
+
+        private transient CompiledWeights compiled;
+        private String                    message;
+        /** The index of the first character of the ranges. */
+        private long[]                    firsts;
+        /** The number of characters. */
+        private long                      size;
+        /** The highest weight of a character. */
+        private int                       highest;
+
+        /**
+         * Shows the compiled weights, or a message if no weights are compiled.
+         *
+         * @param compiled the compiled weights; or {@code null}
+         * @param message the message shown if no weights are compiled
+         */
+        void show(CompiledWeights compiled, String message) {
+            this.compiled = compiled;
+            this.message = message;
+            if (Objects.nonNull(compiled)) {
+                this.firsts = new long[compiled.ranges() + 1];
+                this.highest = 0;
+                for (int i = 0; i < compiled.ranges(); i++) {
+                    this.firsts[i + 1] = this.firsts[i] + compiled.end(i) - compiled.start(i) + 1;
+                    this.highest = Math.max(this.highest, compiled.weight(i));
+                }
+                this.size = this.firsts[compiled.ranges()];
+            }
+            this.repaint();
+        }
+
         @Override
-        public String toString() {
-            try {
-                return this.weight.getValue() + ":" + RstUtils.normalise(this.statement.getText());
+        protected void paintComponent(Graphics graphics) {
+            super.paintComponent(graphics);
+            Insets insets = this.getInsets();
+            int width = this.getWidth() - insets.left - insets.right;
+            int height = this.getHeight() - insets.top - insets.bottom;
+            int ascent = graphics.getFontMetrics().getAscent();
+            graphics.setFont(this.getFont());
+            graphics.setColor(this.getForeground());
+            if (Objects.isNull(this.compiled)) {
+                graphics.drawString(this.message, insets.left + 4, insets.top + ascent + 2);
+                return;
             }
-            catch (RuntimeException e) {
-                // syntax error
-                return this.weight.getValue() + ":" + this.statement.getText();
+            graphics.drawString(String.format("%d characters, p = %.4f%%..%.4f%%", this.size, this.probability(this.lowest()),
+                                              this.probability(this.highest)), insets.left + 4, insets.top + ascent + 2);
+            int top = insets.top + ascent + 6;
+            int bars = height - (top - insets.top);
+            graphics.setColor(Color.GRAY);
+            for (int x = 0; x < width; x++) {
+                long first = this.size * x / width;
+                long last = Math.max(first, this.size * (x + 1) / width - 1);
+                if (first >= this.size) {
+                    break;
+                }
+                int weight = 0;
+                for (int range = this.range(first); range < this.compiled.ranges() && this.firsts[range] <= last; range++) {
+                    weight = Math.max(weight, this.compiled.weight(range));
+                }
+                int bar = (int) ((long) bars * weight / this.highest);
+                graphics.fillRect(insets.left + x, top + bars - bar, 1, bar);
             }
         }
 
+        @Override
+        public String getToolTipText(MouseEvent event) {
+            Insets insets = this.getInsets();
+            int width = this.getWidth() - insets.left - insets.right;
+            if (Objects.isNull(this.compiled) || width <= 0 || event.getX() < insets.left || event.getX() >= insets.left + width) {
+                return null;
+            }
+            long index = this.size * (event.getX() - insets.left) / width;
+            int range = this.range(index);
+            int codePoint = (int) (this.compiled.start(range) + index - this.firsts[range]);
+            return String.format("'%s' U+%04X p = %.4f%%", new String(Character.toChars(codePoint)), codePoint,
+                                 this.probability(this.compiled.weight(range)));
+        }
+
         /**
-         * Set the weight and statement of this cell
+         * Returns the lowest weight of a character.
          *
-         * @param weight the weight of the descriptor
-         * @param statement the statement of the descriptor
+         * @return the lowest weight of a character
          */
-        private void setCell(int weight, String statement) {
-            this.weight.setValue(weight);
-            this.statement.setText(statement);
+        private int lowest() {
+            int lowest = Integer.MAX_VALUE;
+            for (int i = 0; i < this.compiled.ranges(); i++) {
+                lowest = Math.min(lowest, this.compiled.weight(i));
+            }
+            return lowest;
         }
 
         /**
-         * Performs the cell action bound the the action button.
+         * Returns the probability of a character of the weight in percent.
+         *
+         * @param weight the weight of a character
+         * @return the probability in percent
          */
-        private void action() {
-            this.action.getActionListeners()[0].actionPerformed(null);
+        private double probability(int weight) {
+            return weight * 100.0 / this.compiled.total();
         }
 
         /**
-         * Realises this cell with a weight descriptor entry.
+         * Returns the range containing the character of the index.
          *
-         * @param entry the weight descriptor entry
+         * @param index the index of the character
+         * @return the index of the range
          */
-        private void realise(Entry<String, Integer> entry) {
-            this.statement.setText(entry.getKey());
-            try {
-                RstUtils.normalise(entry);
-                this.weight.setValue(entry.getValue());
-                this.statement.setBackground(Color.WHITE);
-            }
-            catch (RuntimeException e) {
-                // syntax error, set colour for visual notification and print on
-                // main frame output
-                RstWeightsFrame.this.main.write(RstUtils.messageOf(e));
-                this.weight.setValue(0);
-                this.statement.setBackground(Color.PINK);
-            }
-            // unset realising lock
-            this.realised = true;
+        private int range(long index) {
+            int found = Arrays.binarySearch(this.firsts, index);
+            return found >= 0 ? found : -found - 2;
         }
 
     }
@@ -281,32 +424,68 @@ public class RstWeightsFrame {
         this.frame.setDefaultCloseOperation(WindowConstants.HIDE_ON_CLOSE);
 
         // create subelements
-        this.descriptors = new JPanel();
-        descriptors.setLayout(new BoxLayout(this.descriptors, BoxLayout.PAGE_AXIS));
-        JScrollPane scrollPane = new JScrollPane(this.descriptors,
+        this.debounce = new Timer(RstWeightsFrame.DEBOUNCE, e -> this.validate(false));
+        this.debounce.setRepeats(false);
+        this.model = new WeightsModel();
+        this.table = new JTable(this.model);
+        this.table.setFont(RstMainFrame.MONO);
+        this.table.setRowHeight(22);
+        this.table.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        this.table.putClientProperty("terminateEditOnFocusLost", true);
+        this.table.getColumnModel().getColumn(0).setMaxWidth(64);
+        this.table.getColumnModel().getColumn(1).setCellRenderer(new DefaultTableCellRenderer() {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+                super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+                // syntax error visual notification
+                Descriptor descriptor = RstWeightsFrame.this.model.get(table.convertRowIndexToModel(row));
+                boolean error = descriptor.isValidated() && Objects.nonNull(descriptor.error);
+                if (!isSelected) {
+                    this.setBackground(error ? Color.PINK : table.getBackground());
+                }
+                this.setToolTipText(error ? descriptor.error : null);
+                return this;
+            }
+
+        });
+        JScrollPane scrollPane = new JScrollPane(this.table,
                                                  ScrollPaneConstants.VERTICAL_SCROLLBAR_ALWAYS,
                                                  ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
-        scrollPane.setAutoscrolls(true);
         scrollPane.getVerticalScrollBar().setUnitIncrement(24);
         this.frame.add(scrollPane);
-        JPanel buttons = new JPanel(new GridLayout(1, 2));
+        this.preview = new DistributionPreview();
+        JPanel south = new JPanel(new BorderLayout());
+        south.add(this.preview, BorderLayout.CENTER);
+        JPanel buttons = new JPanel(new GridLayout(1, 4));
+        JButton add = new JButton(RstWeightsFrame.ADD);
+        add.setFont(RstMainFrame.MONOBOLD);
+        JButton remove = new JButton(RstWeightsFrame.REMOVE);
+        remove.setFont(RstMainFrame.MONOBOLD);
         JButton commit = new JButton("Commit");
         commit.setFont(RstMainFrame.MONOBOLD);
         JButton abort = new JButton("Discard");
         abort.setFont(RstMainFrame.MONOBOLD);
-        this.frame.add(buttons, BorderLayout.SOUTH);
+        south.add(buttons, BorderLayout.SOUTH);
+        this.frame.add(south, BorderLayout.SOUTH);
+        buttons.add(add);
+        buttons.add(remove);
         buttons.add(commit);
         buttons.add(abort);
 
         // setup events
+        add.addActionListener(e -> this.add());
+        remove.addActionListener(e -> this.remove());
         commit.addActionListener(e -> this.commit());
         abort.addActionListener(e -> this.abort());
     }
 
-    /** The size of a cell in the weight descriptor configuration dialog. */
-    private static final Dimension CELL_SIZE = new Dimension(388, 24);
-    /** The size of the action button in a cell. */
-    private static final Dimension ACTION_SIZE = new Dimension(56, 24);
+    /** The delay of the validation after the last edit in milliseconds. */
+    private static final int    DEBOUNCE = 150;
+    /** The maximum weight of a descriptor. */
+    private static final int    MAX_WEIGHT = 65535;
     /** String constant of the {@code Remove} action. */
     private static final String REMOVE = "Remove";
     /** String constant of the {@code Add} action. */
@@ -318,13 +497,23 @@ public class RstWeightsFrame {
     private JFrame parent;
     /** Reference to the weight configuration dialog. */
     private JDialog frame;
-    /** Panel for holding all weight configuration cells. */
-    private JPanel descriptors;
+    /** Table of the weight descriptors. */
+    private JTable table;
+    /** Model of the table of the weight descriptors. */
+    private WeightsModel model;
+    /** Preview of the probabilities of the characters. */
+    private DistributionPreview preview;
+    /** Timer of the validation after the last edit. */
+    private Timer debounce;
+    /** The number of validations started, a result of an earlier validation is not shown. */
+    private int validations;
 
     /**
      * Closes this configuration dialog and do not update the weight descriptor.
      */
     public void abort() {
+        this.stopEditing();
+        this.debounce.stop();
         this.frame.setVisible(false);
     }
 
@@ -332,6 +521,8 @@ public class RstWeightsFrame {
      * Closes this configuration dialog and update the weight descriptor.
      */
     public void commit() {
+        this.stopEditing();
+        this.debounce.stop();
         String descriptor = this.toString();
         this.main.updateWeights(descriptor);
         this.main.write("updated weights descriptor");
@@ -346,27 +537,12 @@ public class RstWeightsFrame {
      * @param weights the weights descriptor string
      */
     public void config(String weights) {
-        this.load(RstUtils.dissect(weights));
+        this.model.load(RstUtils.dissect(weights));
+        this.validate(true);
         this.frame.setLocationRelativeTo(this.parent);
         this.frame.setVisible(true);
     }
 
-    /**
-     * Loads in the weight descriptor cells.
-     *
-     * @param list the list of descriptor entries
-     */
-    private void load(List<Entry<String, Integer>> list) {
-        this.descriptors.removeAll();
-        this.descriptors.add(new RstWeightCell(false));
-        for (int i = 0; i < list.size(); i++) {
-            Entry<String, Integer> entry = list.get(i);
-            RstWeightCell cell = (RstWeightCell) this.descriptors.getComponent(i);
-            cell.action();
-            cell.realise(entry.getValue(), entry.getKey());
-        }
-    }
-
     /**
      * Returns the weight descriptor string of the settings from this
      * configuration dialog.
@@ -375,11 +551,104 @@ public class RstWeightsFrame {
      */
     @Override
     public String toString() {
-        return Arrays.stream(this.descriptors.getComponents())
-                     .map(RstWeightCell.class::cast)
-                     .filter(RstWeightCell::isRealised)
-                     .map(RstWeightCell::toString)
-                     .collect(Collectors.joining(";"));
+        return this.model.descriptors().stream()
+                         .map(Descriptor::toString)
+                         .collect(Collectors.joining(";"));
+    }
+
+    /**
+     * Adds an empty descriptor and starts editing its statement.
+     */
+    private void add() {
+        this.stopEditing();
+        int row = this.table.convertRowIndexToView(this.model.add());
+        this.table.changeSelection(row, 1, false, false);
+        this.table.editCellAt(row, 1);
+        this.table.getEditorComponent().requestFocusInWindow();
+    }
+
+    /**
+     * Removes the selected descriptors.
+     */
+    private void remove() {
+        this.stopEditing();
+        int[] rows = this.table.getSelectedRows();
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = this.table.convertRowIndexToModel(rows[i]);
+        }
+        this.model.remove(rows);
+    }
+
+    /**
+     * Commits the value of the cell being edited.
+     */
+    private void stopEditing() {
+        if (this.table.isEditing()) {
+            this.table.getCellEditor().stopCellEditing();
+        }
+    }
+
+    /**
+     * Validates the descriptors changed since the last validation and compiles
+     * the weights for the preview on a background thread. The result is
+     * applied to the descriptors not changed during the validation.
+     *
+     * @param report {@code true} to print the syntax errors on the main frame
+     */
+    private void validate(boolean report) {
+        int validation = ++this.validations;
+        List<Snapshot> snapshots = this.model.descriptors().stream().map(Snapshot::new).collect(Collectors.toList());
+        new SwingWorker<CompiledWeights, Void>() {
+
+            @Override
+            protected CompiledWeights doInBackground() {
+                Map<CharacterSet, Integer> weights = new LinkedHashMap<>();
+                for (Snapshot snapshot : snapshots) {
+                    if (!snapshot.parsed) {
+                        try {
+                            snapshot.characters = RstUtils.parse(snapshot.statement);
+                            snapshot.error = null;
+                        }
+                        catch (RuntimeException e) {
+                            snapshot.characters = null;
+                            snapshot.error = RstUtils.messageOf(e);
+                        }
+                    }
+                    if (Objects.nonNull(snapshot.characters) && snapshot.weight > 0) {
+                        weights.merge(snapshot.characters, snapshot.weight, Integer::sum);
+                    }
+                }
+                return CompiledWeights.compileSets("", weights);
+            }
+
+            @Override
+            protected void done() {
+                for (Snapshot snapshot : snapshots) {
+                    if (!snapshot.parsed && snapshot.descriptor.revision == snapshot.revision) {
+                        snapshot.descriptor.validated = snapshot.revision;
+                        snapshot.descriptor.characters = snapshot.characters;
+                        snapshot.descriptor.error = snapshot.error;
+                        if (report && Objects.nonNull(snapshot.error)) {
+                            RstWeightsFrame.this.main.write(snapshot.error);
+                        }
+                    }
+                }
+                RstWeightsFrame.this.table.repaint();
+                if (validation != RstWeightsFrame.this.validations) {
+                    return;
+                }
+                try {
+                    RstWeightsFrame.this.preview.show(this.get(), "");
+                }
+                catch (ExecutionException e) {
+                    RstWeightsFrame.this.preview.show(null, RstUtils.messageOf(e.getCause()));
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+        }.execute();
     }
 
 }
@@ -2,6 +2,8 @@ package org.pgstyle.rst2.main;
 
 import org.pgstyle.rst2.application.RandomStringTools;
 import org.pgstyle.rst2.application.cli.CommandLineArguments;
+import org.pgstyle.rst2.application.daemon.RstDaemon;
+import org.pgstyle.rst2.application.daemon.RstDaemonClient;
 
 /**
  * Application entrypoint.
@@ -9,11 +11,17 @@ import org.pgstyle.rst2.application.cli.CommandLineArguments;
 public final class Main {
 
     /**
-     * Application entrypoint.
+     * Application entrypoint. The invocation will be forwarded to a running
+     * daemon if available.
      * 
      * @param args command-line arguments
      */
     public static void main(String[] args) {
-        System.exit(new RandomStringTools(CommandLineArguments.fromArgs(args)).call());
+        CommandLineArguments cmdlArgs = CommandLineArguments.fromArgs(args);
+        if (cmdlArgs.daemon()) {
+            System.exit(new RstDaemon(RstDaemon.socket(cmdlArgs)).call());
+        }
+        System.exit(new RstDaemonClient(RstDaemon.socket(cmdlArgs)).forward(cmdlArgs)
+                                                                .orElseGet(new RandomStringTools(cmdlArgs)::call));
     }
 }
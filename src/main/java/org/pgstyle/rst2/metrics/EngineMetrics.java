@@ -0,0 +1,151 @@
+package org.pgstyle.rst2.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * The {@code EngineMetrics} counts the activities below the randomisers,
+ * shared by all randomisers: the refills of the bit sources, the seeding of
+ * the random engines, the derivation of seeds and the flushes of the output.
+ * </p>
+ * <p>
+ * The counters are {@link LongAdder}s, the randomisers on different threads
+ * update different cells of an adder and never contend on a counter.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public final class EngineMetrics implements EngineMetricsMXBean {
+
+    /**
+     * Creates the metrics of the engines.
+     */
+    EngineMetrics() {
+        this.refills = new LongAdder();
+        this.refilledBytes = new LongAdder();
+        this.refillTime = new LongAdder();
+        this.reseeds = new LongAdder();
+        this.seedDerivations = new LongAdder();
+        this.seedDerivationTime = new LongAdder();
+        this.flushes = new LongAdder();
+        this.flushedBytes = new LongAdder();
+        this.flushTime = new LongAdder();
+    }
+
+    private final LongAdder refills;
+    private final LongAdder refilledBytes;
+    private final LongAdder refillTime;
+    private final LongAdder reseeds;
+    private final LongAdder seedDerivations;
+    private final LongAdder seedDerivationTime;
+    private final LongAdder flushes;
+    private final LongAdder flushedBytes;
+    private final LongAdder flushTime;
+
+    /**
+     * Records a bulk read of a bit source.
+     *
+     * @param bytes the number of bytes read
+     * @param start the {@link System#nanoTime()} when the read starts
+     */
+    public void refill(int bytes, long start) {
+        this.refills.increment();
+        this.refilledBytes.add(bytes);
+        this.refillTime.add(System.nanoTime() - start);
+    }
+
+    /**
+     * Records a seeding of a random engine.
+     */
+    public void reseed() {
+        this.reseeds.increment();
+    }
+
+    /**
+     * Records a derivation of a seed.
+     *
+     * @param start the {@link System#nanoTime()} when the derivation starts
+     */
+    public void seedDerivation(long start) {
+        this.seedDerivations.increment();
+        this.seedDerivationTime.add(System.nanoTime() - start);
+    }
+
+    /**
+     * Records a flush of an output buffer into a sink.
+     *
+     * @param bytes the number of bytes flushed
+     * @param start the {@link System#nanoTime()} when the flush starts
+     */
+    public void flush(long bytes, long start) {
+        this.flushes.increment();
+        this.flushedBytes.add(bytes);
+        this.flushTime.add(System.nanoTime() - start);
+    }
+
+    @Override
+    public long getRefills() {
+        return this.refills.sum();
+    }
+
+    @Override
+    public long getRefilledBytes() {
+        return this.refilledBytes.sum();
+    }
+
+    @Override
+    public long getRefillTime() {
+        return this.refillTime.sum();
+    }
+
+    @Override
+    public long getReseeds() {
+        return this.reseeds.sum();
+    }
+
+    @Override
+    public long getSeedDerivations() {
+        return this.seedDerivations.sum();
+    }
+
+    @Override
+    public long getSeedDerivationTime() {
+        return this.seedDerivationTime.sum();
+    }
+
+    @Override
+    public long getFlushes() {
+        return this.flushes.sum();
+    }
+
+    @Override
+    public long getFlushedBytes() {
+        return this.flushedBytes.sum();
+    }
+
+    @Override
+    public long getFlushTime() {
+        return this.flushTime.sum();
+    }
+
+    @Override
+    public void reset() {
+        this.refills.reset();
+        this.refilledBytes.reset();
+        this.refillTime.reset();
+        this.reseeds.reset();
+        this.seedDerivations.reset();
+        this.seedDerivationTime.reset();
+        this.flushes.reset();
+        this.flushedBytes.reset();
+        this.flushTime.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rst/EngineMetrics:%d/%d/%d/%d", this.getRefills(), this.getReseeds(), this.getSeedDerivations(), this.getFlushes());
+    }
+
+}
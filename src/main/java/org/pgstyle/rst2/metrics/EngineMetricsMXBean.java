@@ -0,0 +1,85 @@
+package org.pgstyle.rst2.metrics;
+
+/**
+ * The management interface of the {@link EngineMetrics}, the counters of the
+ * random engines and the output shared by all randomisers.
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public interface EngineMetricsMXBean {
+
+    /**
+     * Returns the number of bulk reads of the bit sources from the random
+     * engines.
+     *
+     * @return the number of refills
+     */
+    long getRefills();
+
+    /**
+     * Returns the number of random bytes read by the bit sources.
+     *
+     * @return the number of random bytes read
+     */
+    long getRefilledBytes();
+
+    /**
+     * Returns the total time spent reading the random engines by the bit
+     * sources.
+     *
+     * @return the total time spent in nanoseconds
+     */
+    long getRefillTime();
+
+    /**
+     * Returns the number of times a random engine is seeded, including the
+     * seeding on creation and on reset.
+     *
+     * @return the number of seedings
+     */
+    long getReseeds();
+
+    /**
+     * Returns the number of seeds derived, from a string or from the random
+     * seed generator.
+     *
+     * @return the number of seeds derived
+     */
+    long getSeedDerivations();
+
+    /**
+     * Returns the total time spent deriving seeds.
+     *
+     * @return the total time spent in nanoseconds
+     */
+    long getSeedDerivationTime();
+
+    /**
+     * Returns the number of flushes of output buffers into the sinks.
+     *
+     * @return the number of flushes
+     */
+    long getFlushes();
+
+    /**
+     * Returns the number of bytes flushed into the sinks.
+     *
+     * @return the number of bytes flushed
+     */
+    long getFlushedBytes();
+
+    /**
+     * Returns the total time spent flushing into the sinks.
+     *
+     * @return the total time spent in nanoseconds
+     */
+    long getFlushTime();
+
+    /**
+     * Resets all counters to zero.
+     */
+    void reset();
+
+}
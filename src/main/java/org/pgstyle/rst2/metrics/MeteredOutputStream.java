@@ -0,0 +1,46 @@
+package org.pgstyle.rst2.metrics;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * The {@code MeteredOutputStream} is the sink under an output buffer, every
+ * write into the sink is a flush of the buffer, which is counted in the
+ * {@link EngineMetrics} and emitted as an event of {@link RstEvents}. The
+ * bytes are written to the underlying stream in a single call as given.
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public final class MeteredOutputStream extends FilterOutputStream {
+
+    /**
+     * Creates a metered stream over the sink.
+     *
+     * @param out the sink
+     */
+    public MeteredOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        Object event = RstEvents.beginFlush();
+        long start = System.nanoTime();
+        this.out.write(b);
+        RstMetrics.engine().flush(1, start);
+        RstEvents.endFlush(event, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        Object event = RstEvents.beginFlush();
+        long start = System.nanoTime();
+        this.out.write(b, off, len);
+        RstMetrics.engine().flush(len, start);
+        RstEvents.endFlush(event, len);
+    }
+
+}
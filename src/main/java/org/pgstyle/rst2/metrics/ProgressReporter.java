@@ -0,0 +1,135 @@
+package org.pgstyle.rst2.metrics;
+
+import java.io.PrintStream;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * The {@code ProgressReporter} reports the progress of a generation run
+ * periodically: the percentage of the units generated, the current and the
+ * average throughput and the estimated time to finish.
+ * </p>
+ * <p>
+ * The generation publishes its position with {@link #update(long, long)}
+ * between steps, the position is stored with a lazy write and nothing else is
+ * done on the generating thread. A daemon thread samples the position every
+ * {@value #INTERVAL} milliseconds and prints the report, overwriting the
+ * previous report on a console.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public final class ProgressReporter implements AutoCloseable {
+
+    /** The interval of the reports in milliseconds. */
+    public static final long INTERVAL = 1000;
+
+    /**
+     * Starts reporting the progress of a run.
+     *
+     * @param out the stream to print
+     * @param total the number of units of the run
+     * @param units the number of units generated before the run, on resumption
+     * @param bytes the number of bytes written before the run, on resumption
+     * @param console {@code true} if the reports overwrite each other
+     * @throws NullPointerException
+     *         if the argument {@code out} is {@code null}
+     */
+    public ProgressReporter(PrintStream out, long total, long units, long bytes, boolean console) {
+        Objects.requireNonNull(out, "out == null");
+        this.out = out;
+        this.total = total;
+        this.console = console;
+        this.units = new AtomicLong(units);
+        this.bytes = new AtomicLong(bytes);
+        this.initialUnits = units;
+        this.initialBytes = bytes;
+        this.start = System.nanoTime();
+        this.lastBytes = bytes;
+        this.lastTime = this.start;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rst-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleAtFixedRate(this::report, ProgressReporter.INTERVAL, ProgressReporter.INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    private final PrintStream              out;
+    private final long                     total;
+    private final boolean                  console;
+    private final AtomicLong               units;
+    private final AtomicLong               bytes;
+    private final long                     initialUnits;
+    private final long                     initialBytes;
+    private final long                     start;
+    private final ScheduledExecutorService scheduler;
+    /** The last sample, guarded by the lock of the reporter. */
+    private long                           lastBytes;
+    private long                           lastTime;
+
+    /**
+     * Publishes the position of the run.
+     *
+     * @param units the number of units generated
+     * @param bytes the number of bytes written
+     */
+    public void update(long units, long bytes) {
+        this.units.lazySet(units);
+        this.bytes.lazySet(bytes);
+    }
+
+    /**
+     * Stops reporting and prints the final report.
+     */
+    @Override
+    public void close() {
+        this.scheduler.shutdownNow();
+        try {
+            this.scheduler.awaitTermination(ProgressReporter.INTERVAL, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.report();
+        if (this.console) {
+            this.out.println();
+        }
+        this.out.flush();
+    }
+
+    /**
+     * Samples the position and prints a report.
+     */
+    private synchronized void report() {
+        long now = System.nanoTime();
+        long units = this.units.get();
+        long bytes = this.bytes.get();
+        double average = now > this.start ? (bytes - this.initialBytes) * 1e3 / (now - this.start) : 0.0;
+        double current = now > this.lastTime ? (bytes - this.lastBytes) * 1e3 / (now - this.lastTime) : 0.0;
+        this.lastBytes = bytes;
+        this.lastTime = now;
+        String eta = "--:--:--";
+        if (units > this.initialUnits) {
+            long remaining = (long) ((double) (this.total - units) * (now - this.start) / (units - this.initialUnits) / 1e9);
+            eta = String.format("%d:%02d:%02d", remaining / 3600, remaining / 60 % 60, remaining % 60);
+        }
+        String report = String.format("%5.1f%% %d bytes, %.1f MB/s, average %.1f MB/s, ETA %s",
+                                      this.total > 0 ? units * 100.0 / this.total : 100.0, bytes, current, average, eta);
+        if (this.console) {
+            // padded to clear the longer previous report
+            this.out.printf("\r%-79s", report);
+        }
+        else {
+            this.out.println(report);
+        }
+        this.out.flush();
+    }
+
+}
@@ -0,0 +1,145 @@
+package org.pgstyle.rst2.metrics;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * The {@code RandomiserMetrics} counts the generate calls of the randomisers
+ * of a type, the bytes and characters generated and the latency of the calls
+ * in a histogram of power-of-two nanoseconds.
+ * </p>
+ * <p>
+ * Reading the clock costs more than the counters, one in every
+ * {@value #SAMPLING} calls is timed on average, chosen at random with the
+ * {@link ThreadLocalRandom} of the calling thread; the histogram and the mean
+ * latency are of the timed calls.
+ * </p>
+ * <p>
+ * The counters are {@link LongAdder}s, the randomisers on different threads
+ * update different cells of an adder and never contend on a counter.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public final class RandomiserMetrics implements RandomiserMetricsMXBean {
+
+    /** The number of buckets of the latency histogram. */
+    public static final int BUCKETS = 48;
+    /** One in every {@value} calls is timed, a power of two. */
+    public static final int SAMPLING = 8;
+
+    /**
+     * Creates the metrics of the randomisers of a type.
+     *
+     * @param type the type of the randomisers
+     * @throws NullPointerException
+     *         if the argument {@code type} is {@code null}
+     */
+    RandomiserMetrics(String type) {
+        Objects.requireNonNull(type, "type == null");
+        this.type = type;
+        this.calls = new LongAdder();
+        this.bytes = new LongAdder();
+        this.characters = new LongAdder();
+        this.latency = new LongAdder();
+        this.histogram = new LongAdder[RandomiserMetrics.BUCKETS];
+        for (int i = 0; i < this.histogram.length; i++) {
+            this.histogram[i] = new LongAdder();
+        }
+    }
+
+    private final String      type;
+    private final LongAdder   calls;
+    private final LongAdder   bytes;
+    private final LongAdder   characters;
+    private final LongAdder   latency;
+    private final LongAdder[] histogram;
+
+    /**
+     * Starts a generate call.
+     *
+     * @return the {@link System#nanoTime()} when the call starts if the call
+     *         is timed; or {@code 0} otherwise
+     */
+    public long start() {
+        return (ThreadLocalRandom.current().nextInt() & RandomiserMetrics.SAMPLING - 1) == 0 ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records a generate call.
+     *
+     * @param start the start of the call returned by {@link #start()}
+     * @param bytes the number of bytes generated
+     * @param characters the number of characters generated
+     */
+    public void record(long start, long bytes, long characters) {
+        this.calls.increment();
+        this.bytes.add(bytes);
+        this.characters.add(characters);
+        if (start != 0) {
+            long elapsed = System.nanoTime() - start;
+            this.latency.add(elapsed);
+            int bucket = Long.SIZE - 1 - Long.numberOfLeadingZeros(Math.max(1, elapsed));
+            this.histogram[Math.min(bucket, RandomiserMetrics.BUCKETS - 1)].increment();
+        }
+    }
+
+    @Override
+    public String getType() {
+        return this.type;
+    }
+
+    @Override
+    public long getCalls() {
+        return this.calls.sum();
+    }
+
+    @Override
+    public long getBytes() {
+        return this.bytes.sum();
+    }
+
+    @Override
+    public long getCharacters() {
+        return this.characters.sum();
+    }
+
+    @Override
+    public double getLatencyMean() {
+        long timed = 0;
+        for (LongAdder bucket : this.histogram) {
+            timed += bucket.sum();
+        }
+        return timed == 0 ? 0 : (double) this.latency.sum() / timed;
+    }
+
+    @Override
+    public long[] getLatencyHistogram() {
+        long[] histogram = new long[this.histogram.length];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = this.histogram[i].sum();
+        }
+        return histogram;
+    }
+
+    @Override
+    public void reset() {
+        this.calls.reset();
+        this.bytes.reset();
+        this.characters.reset();
+        this.latency.reset();
+        for (LongAdder bucket : this.histogram) {
+            bucket.reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rst/RandomiserMetrics:%s:%d/%d/%d", this.type, this.getCalls(), this.getBytes(), this.getCharacters());
+    }
+
+}
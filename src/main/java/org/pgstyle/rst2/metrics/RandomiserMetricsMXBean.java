@@ -0,0 +1,63 @@
+package org.pgstyle.rst2.metrics;
+
+/**
+ * The management interface of the {@link RandomiserMetrics}, the counters of
+ * the randomisers of a type.
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public interface RandomiserMetricsMXBean {
+
+    /**
+     * Returns the type of the randomisers.
+     *
+     * @return the simple class name of the randomisers
+     */
+    String getType();
+
+    /**
+     * Returns the number of generate calls.
+     *
+     * @return the number of generate calls
+     */
+    long getCalls();
+
+    /**
+     * Returns the number of bytes generated.
+     *
+     * @return the number of bytes generated
+     */
+    long getBytes();
+
+    /**
+     * Returns the number of characters generated.
+     *
+     * @return the number of characters generated
+     */
+    long getCharacters();
+
+    /**
+     * Returns the mean latency of the timed generate calls.
+     *
+     * @return the mean latency in nanoseconds
+     */
+    double getLatencyMean();
+
+    /**
+     * Returns the histogram of the latency of the timed generate calls, the
+     * element {@code i} is the number of calls taking {@code [2^i, 2^(i+1))}
+     * nanoseconds; the element 0 also counts the calls shorter than a
+     * nanosecond.
+     *
+     * @return the histogram of the latency of the timed generate calls
+     */
+    long[] getLatencyHistogram();
+
+    /**
+     * Resets all counters to zero.
+     */
+    void reset();
+
+}
@@ -0,0 +1,131 @@
+package org.pgstyle.rst2.metrics;
+
+/**
+ * <p>
+ * The {@code RstEvents} is the facade of the Flight Recorder events of the
+ * {@code pglj/rst2} library. An activity is surrounded by a {@code begin}
+ * call, which returns a handle of the event, and an {@code end} call, which
+ * takes the handle and the details of the activity.
+ * </p>
+ * <p>
+ * This is the Java 8 layer of the multi-release jar, no event is emitted and
+ * every call does nothing. The Java 11 layer emits the {@code jdk.jfr} events
+ * {@code org.pgstyle.rst2.*}, which are disabled by default; a disabled event
+ * returns a {@code null} handle without reading the clock.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public final class RstEvents {
+
+    /**
+     * Begins the construction of a randomiser.
+     *
+     * @return the handle of the event; or {@code null} if not recording
+     */
+    public static Object beginConstruction() {
+        return null;
+    }
+
+    /**
+     * Ends the construction of a randomiser, the seed derivation in the
+     * construction is included.
+     *
+     * @param event the handle of the event
+     * @param type the type of the randomiser
+     * @param secure {@code true} if the randomiser is secure
+     * @param seeded {@code true} if the randomiser is created with a given seed
+     */
+    public static void endConstruction(Object event, String type, boolean secure, boolean seeded) {
+        // no event in the Java 8 layer
+    }
+
+    /**
+     * Begins the derivation of a seed.
+     *
+     * @return the handle of the event; or {@code null} if not recording
+     */
+    public static Object beginSeedDerivation() {
+        return null;
+    }
+
+    /**
+     * Ends the derivation of a seed.
+     *
+     * @param event the handle of the event
+     * @param source the source of the seed, a string or random
+     * @param bytes the number of bytes of the seed
+     */
+    public static void endSeedDerivation(Object event, String source, int bytes) {
+        // no event in the Java 8 layer
+    }
+
+    /**
+     * Begins the generation of a chunk.
+     *
+     * @return the handle of the event; or {@code null} if not recording
+     */
+    public static Object beginChunk() {
+        return null;
+    }
+
+    /**
+     * Ends the generation of a chunk.
+     *
+     * @param event the handle of the event
+     * @param type the type of the randomiser
+     * @param units the number of characters or records of the chunk
+     * @param bytes the number of bytes of the chunk
+     */
+    public static void endChunk(Object event, String type, int units, int bytes) {
+        // no event in the Java 8 layer
+    }
+
+    /**
+     * Begins the seeding of a random engine.
+     *
+     * @return the handle of the event; or {@code null} if not recording
+     */
+    public static Object beginSeed() {
+        return null;
+    }
+
+    /**
+     * Ends the seeding of a random engine.
+     *
+     * @param event the handle of the event
+     * @param engine the class of the random engine
+     * @param bytes the number of bytes of the seed
+     * @param reseed {@code true} if the engine is reseeded
+     */
+    public static void endSeed(Object event, String engine, int bytes, boolean reseed) {
+        // no event in the Java 8 layer
+    }
+
+    /**
+     * Begins the flush of an output buffer into a sink.
+     *
+     * @return the handle of the event; or {@code null} if not recording
+     */
+    public static Object beginFlush() {
+        return null;
+    }
+
+    /**
+     * Ends the flush of an output buffer into a sink.
+     *
+     * @param event the handle of the event
+     * @param bytes the number of bytes flushed
+     */
+    public static void endFlush(Object event, int bytes) {
+        // no event in the Java 8 layer
+    }
+
+    /** Unnewable @throws UnsupportedOperationException always */
+    private RstEvents() {
+        throw new UnsupportedOperationException("unnewable");
+    }
+
+}
@@ -0,0 +1,161 @@
+package org.pgstyle.rst2.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * <p>
+ * The {@code RstMetrics} is the registry of the metrics of the
+ * {@code pglj/rst2} library, it holds an {@link EngineMetrics} and a
+ * {@link RandomiserMetrics} for each type of randomiser.
+ * </p>
+ * <p>
+ * The counters are always collected. They are registered as MBeans of the
+ * platform MBean server only on request, as starting the platform MBean
+ * server takes hundreds of milliseconds which a command-line run cannot
+ * afford; call {@link #register()} or set the system property
+ * {@value #PROPERTY} to {@code true} to register them. The MBeans are named
+ * {@code org.pgstyle.rst2:type=Engine} and
+ * {@code org.pgstyle.rst2:type=Randomiser,name=<class>}.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public final class RstMetrics {
+
+    /** The domain of the MBeans. */
+    public static final String DOMAIN = "org.pgstyle.rst2";
+    /** The system property to register the MBeans on start. */
+    public static final String PROPERTY = "rst.jmx";
+
+    private static final EngineMetrics                  ENGINE;
+    private static final Map<String, RandomiserMetrics> RANDOMISERS;
+    /** {@code true} if the MBeans are registered. */
+    private static boolean                              registered;
+
+    static {
+        ENGINE = new EngineMetrics();
+        RANDOMISERS = new ConcurrentHashMap<>();
+        if (Boolean.getBoolean(RstMetrics.PROPERTY)) {
+            RstMetrics.register();
+        }
+    }
+
+    /**
+     * Returns the metrics of the engines.
+     *
+     * @return the metrics of the engines
+     */
+    public static EngineMetrics engine() {
+        return RstMetrics.ENGINE;
+    }
+
+    /**
+     * Returns the metrics of the randomisers of a type, the metrics are
+     * created and registered if the MBeans are registered on the first call
+     * of the type.
+     *
+     * @param type the class of the randomisers
+     * @return the metrics of the randomisers of the type
+     * @throws NullPointerException
+     *         if the argument {@code type} is {@code null}
+     */
+    public static RandomiserMetrics randomiser(Class<?> type) {
+        Objects.requireNonNull(type, "type == null");
+        String name = type.getSimpleName().isEmpty() ? type.getName() : type.getSimpleName();
+        RandomiserMetrics metrics = RstMetrics.RANDOMISERS.get(name);
+        if (Objects.isNull(metrics)) {
+            synchronized (RstMetrics.class) {
+                metrics = RstMetrics.RANDOMISERS.computeIfAbsent(name, RandomiserMetrics::new);
+                if (RstMetrics.registered) {
+                    RstMetrics.register(metrics, "type=Randomiser,name=" + ObjectName.quote(name));
+                }
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Registers the metrics as MBeans of the platform MBean server, the
+     * metrics of the randomiser types created later are registered when they
+     * are created. Registering again does nothing.
+     *
+     * @throws IllegalStateException
+     *         if an MBean cannot be registered
+     */
+    public static synchronized void register() {
+        if (RstMetrics.registered) {
+            return;
+        }
+        RstMetrics.register(RstMetrics.ENGINE, "type=Engine");
+        for (Map.Entry<String, RandomiserMetrics> entry : RstMetrics.RANDOMISERS.entrySet()) {
+            RstMetrics.register(entry.getValue(), "type=Randomiser,name=" + ObjectName.quote(entry.getKey()));
+        }
+        RstMetrics.registered = true;
+    }
+
+    /**
+     * Registers an MBean, an MBean registered by another class loader of the
+     * library is left as is.
+     *
+     * @param bean the MBean
+     * @param properties the key properties of the name of the MBean
+     * @throws IllegalStateException
+     *         if the MBean cannot be registered
+     */
+    private static void register(Object bean, String properties) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(bean, new ObjectName(RstMetrics.DOMAIN + ":" + properties));
+        }
+        catch (InstanceAlreadyExistsException e) {
+            // registered by another class loader
+        }
+        catch (JMException e) {
+            throw new IllegalStateException("failed to register MBean: " + properties, e);
+        }
+    }
+
+    /**
+     * Counts the characters of UTF-8 bytes, which are the bytes other than
+     * the continuation bytes. The continuation bytes are counted 8 bytes at
+     * a time, a continuation byte has its highest bit set and the next bit
+     * clear.
+     *
+     * @param bytes the UTF-8 bytes
+     * @param offset the offset of the first byte
+     * @param length the number of bytes
+     * @return the number of characters
+     */
+    public static int characters(byte[] bytes, int offset, int length) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int continuations = 0;
+        int i = offset;
+        for (; i + Long.BYTES <= offset + length; i += Long.BYTES) {
+            long word = buffer.getLong(i);
+            continuations += Long.bitCount(word & ~(word << 1) & 0x8080808080808080L);
+        }
+        for (; i < offset + length; i++) {
+            if ((bytes[i] & 0xc0) == 0x80) {
+                continuations++;
+            }
+        }
+        return length - continuations;
+    }
+
+    /** Unnewable @throws UnsupportedOperationException always */
+    private RstMetrics() {
+        throw new UnsupportedOperationException("unnewable");
+    }
+
+}
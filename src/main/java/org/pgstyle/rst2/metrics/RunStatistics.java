@@ -0,0 +1,208 @@
+package org.pgstyle.rst2.metrics;
+
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>
+ * The {@code RunStatistics} summarises a generation run from the first step
+ * to the closing of the output: the bytes and units generated, the wall time
+ * split into the phases of the generation, the throughput, the bytes
+ * allocated by each thread and the time spent in garbage collection.
+ * </p>
+ * <p>
+ * The time spent in the random engines and in the sinks is taken from the
+ * {@link EngineMetrics}, which are always collected. The time spent in the
+ * generation steps and in the writes of the steps is marked by the caller
+ * with {@link #mark()}, {@link #generated(long)} and {@link #written(long)};
+ * the remaining phases are derived from them: the character mapping is the
+ * generation less the engine, the formatting is the writing less the sink.
+ * The randomisers encode the characters from pre-encoded tables as they are
+ * mapped, the mapping includes the encoding.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public final class RunStatistics {
+
+    /**
+     * Starts the statistics of a run, the counters are read as the baseline.
+     */
+    public RunStatistics() {
+        this.threads = ManagementFactory.getThreadMXBean();
+        this.baseline = this.allocated();
+        this.collections = RunStatistics.collections();
+        this.collectionTime = RunStatistics.collectionTime();
+        this.engineTime = RstMetrics.engine().getRefillTime();
+        this.sinkTime = RstMetrics.engine().getFlushTime();
+        this.start = System.nanoTime();
+    }
+
+    private final ThreadMXBean    threads;
+    private final Map<Long, Long> baseline;
+    private final long            start;
+    private long                  collections;
+    private long                  collectionTime;
+    private long                  engineTime;
+    private long                  sinkTime;
+    private long                  generation;
+    private long                  writing;
+    private long                  wall;
+    private long                  bytes;
+    private long                  units;
+    private boolean               records;
+    private Map<Long, Long>       allocated;
+
+    /**
+     * Returns the current time as a mark of the beginning of a phase.
+     *
+     * @return the current time in nanoseconds
+     */
+    public long mark() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a generation step began at the mark.
+     *
+     * @param mark the time the step began
+     * @return the current time, the mark of the next phase
+     */
+    public long generated(long mark) {
+        long now = System.nanoTime();
+        this.generation += now - mark;
+        return now;
+    }
+
+    /**
+     * Records a write of a step began at the mark.
+     *
+     * @param mark the time the write began
+     * @return the current time, the mark of the next phase
+     */
+    public long written(long mark) {
+        long now = System.nanoTime();
+        this.writing += now - mark;
+        return now;
+    }
+
+    /**
+     * Finishes the statistics of the run, after the output is closed.
+     *
+     * @param bytes the number of bytes written
+     * @param units the number of characters or records generated
+     * @param records {@code true} if the units are records
+     */
+    public void finish(long bytes, long units, boolean records) {
+        this.wall = System.nanoTime() - this.start;
+        this.engineTime = RstMetrics.engine().getRefillTime() - this.engineTime;
+        this.sinkTime = RstMetrics.engine().getFlushTime() - this.sinkTime;
+        this.collections = RunStatistics.collections() - this.collections;
+        this.collectionTime = RunStatistics.collectionTime() - this.collectionTime;
+        this.allocated = this.allocated();
+        this.bytes = bytes;
+        this.units = units;
+        this.records = records;
+    }
+
+    /**
+     * Prints the summary of the finished run.
+     *
+     * @param out the stream to print
+     * @throws NullPointerException
+     *         if the argument {@code out} is {@code null}
+     */
+    public void report(PrintStream out) {
+        Objects.requireNonNull(out, "out == null");
+        long mapping = Math.max(0, this.generation - this.engineTime);
+        long formatting = Math.max(0, this.writing - this.sinkTime);
+        long other = Math.max(0, this.wall - this.generation - this.writing);
+        out.printf("rst-2 run statistics%n");
+        out.printf("  output       %d bytes, %d %s%n", this.bytes, this.units, this.records ? "records" : "characters");
+        out.printf("  wall time    %.3f s, %.1f MB/s%n", this.wall / 1e9, this.wall > 0 ? this.bytes * 1e3 / this.wall : 0.0);
+        this.phase(out, "engine", this.engineTime);
+        this.phase(out, "mapping", mapping);
+        this.phase(out, "formatting", formatting);
+        this.phase(out, "output", this.sinkTime);
+        this.phase(out, "other", other);
+        out.printf("  gc           %d collections, %.3f s%n", this.collections, this.collectionTime / 1e3);
+        if (Objects.isNull(this.allocated)) {
+            out.printf("  allocated    unsupported%n");
+            return;
+        }
+        ThreadInfo[] infos = this.threads.getThreadInfo(this.allocated.keySet().stream().mapToLong(Long::longValue).toArray());
+        for (ThreadInfo info : infos) {
+            if (Objects.nonNull(info)) {
+                long allocated = this.allocated.get(info.getThreadId()) - this.baseline.getOrDefault(info.getThreadId(), 0L);
+                if (allocated > 0) {
+                    out.printf("  allocated    %d bytes by %s%n", allocated, info.getThreadName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Prints a phase of the run with its share of the wall time.
+     *
+     * @param out the stream to print
+     * @param name the name of the phase
+     * @param time the time spent in the phase in nanoseconds
+     */
+    private void phase(PrintStream out, String name, long time) {
+        out.printf("  %-12s %.3f s, %5.1f%%%n", name, time / 1e9, this.wall > 0 ? time * 100.0 / this.wall : 0.0);
+    }
+
+    /**
+     * Returns the bytes allocated by the live threads.
+     *
+     * @return the bytes allocated by the live threads by thread ID; or
+     *         {@code null} if the runtime does not measure the allocation
+     */
+    private Map<Long, Long> allocated() {
+        if (!(this.threads instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) this.threads;
+        if (!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled()) {
+            return null;
+        }
+        long[] ids = threads.getAllThreadIds();
+        long[] allocated = threads.getThreadAllocatedBytes(ids);
+        Map<Long, Long> map = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            if (allocated[i] >= 0) {
+                map.put(ids[i], allocated[i]);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Returns the number of garbage collections.
+     *
+     * @return the number of garbage collections of all collectors
+     */
+    private static long collections() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount)
+                                .filter(c -> c > 0).sum();
+    }
+
+    /**
+     * Returns the time spent in garbage collection.
+     *
+     * @return the time spent in garbage collection in milliseconds
+     */
+    private static long collectionTime() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionTime)
+                                .filter(t -> t > 0).sum();
+    }
+
+}
@@ -0,0 +1,6 @@
+/**
+ * The {@code rst/metrics} package contains the counters of the random
+ * generation, which are always collected with striped adders and can be
+ * registered as JMX MBeans on request.
+ */
+package org.pgstyle.rst2.metrics;
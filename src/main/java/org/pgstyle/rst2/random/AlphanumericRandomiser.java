@@ -1,6 +1,5 @@
 package org.pgstyle.rst2.random;
 
-import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 import org.pgstyle.rst2.security.RandomInputStream;
@@ -26,7 +25,17 @@ import org.pgstyle.rst2.security.SecureRandomInputStream;
  * @version rst-2.0
  * @author PGKan
  */
-public final class AlphanumericRandomiser extends Randomiser {
+public final class AlphanumericRandomiser extends Randomiser implements SampledRandomiser {
+
+    /** The characters of the default ratio, all have equal chance. */
+    private static final char[] CHARACTERS = "0123456789abcdefghijklmnopqrstuvwxyz".toCharArray();
+    /** The default ratio, numerical digits have the same chance as letters. */
+    private static final double DEFAULT_RATIO = 10.0 / 36;
+    /**
+     * The tolerance of a ratio to be taken as the default ratio, a ratio
+     * parsed from the text of the default ratio may differ in the last bits.
+     */
+    private static final double TOLERANCE = 1e-12;
 
     /**
      * Creates an instance of {@code AlphanumericRandomiser} with default ratio
@@ -245,7 +254,7 @@ public final class AlphanumericRandomiser extends Randomiser {
      *         if the argument {@code randomStream} is {@code null}
      */
     public AlphanumericRandomiser(RandomInputStream randomStream) {
-        this(10.0 / 36, randomStream);
+        this(AlphanumericRandomiser.DEFAULT_RATIO, randomStream);
     }
 
     /**
@@ -265,9 +274,19 @@ public final class AlphanumericRandomiser extends Randomiser {
             throw new IllegalArgumentException("ratio out of bound: " + ratio);
         }
         this.ratio = ratio;
+        this.uniform = Math.abs(ratio - AlphanumericRandomiser.DEFAULT_RATIO) < AlphanumericRandomiser.TOLERANCE;
+        this.sampler = new UniformSampler(this.getBitSource());
     }
 
-    private final double ratio;
+    private final double         ratio;
+    /** {@code true} if all characters have equal chance in the ratio. */
+    private final boolean        uniform;
+    private final UniformSampler sampler;
+
+    @Override
+    public UniformSampler sampler() {
+        return this.sampler;
+    }
 
     @Override
     public boolean equals(Object object) {
@@ -285,7 +304,8 @@ public final class AlphanumericRandomiser extends Randomiser {
      * alphanumeric characters.
      * </p>
      * <p>
-     * This method is implemented as follow:
+     * This method is implemented as follow, and records the call into the
+     * {@link #getMetrics() metrics}:
      * </p>
      * <code>
      * return this.generateString(length).getBytes(StandardCharsets.UTF_8);
@@ -296,7 +316,10 @@ public final class AlphanumericRandomiser extends Randomiser {
      */
     @Override
     public byte[] generate(int length) {
-        return this.generateString(length).getBytes(StandardCharsets.UTF_8);
+        long start = this.getMetrics().start();
+        byte[] bytes = this.generateString(length).getBytes(StandardCharsets.UTF_8);
+        this.getMetrics().record(start, bytes.length, bytes.length);
+        return bytes;
     }
 
     /**
@@ -307,6 +330,13 @@ public final class AlphanumericRandomiser extends Randomiser {
      */
     public String generateString(int length) {
         StringBuilder string = new StringBuilder();
+        if (this.uniform) {
+            // the characters are uniform, draw a character in one go
+            for (int i = 0; i < length; i++) {
+                string.append(AlphanumericRandomiser.CHARACTERS[this.sampler.next(36)]);
+            }
+            return string.toString();
+        }
         for (int i = 0; i < length; i++) {
             double pointer = this.getPointer();
             if (pointer < this.ratio) {
@@ -328,7 +358,7 @@ public final class AlphanumericRandomiser extends Randomiser {
     }
 
     private float getPointer() {
-        return (ByteBuffer.wrap(super.generate(4)).getInt() >>> 8) / (float) (1 << 24);
+        return this.sampler.next(1 << 24) / (float) (1 << 24);
     }
 
     @Override
@@ -123,7 +123,8 @@ public final class Base64Randomiser extends Randomiser {
      * Generates a byte encoded string with {@code length} amount of bytes.
      * </p>
      * <p>
-     * This method is implemented as follow:
+     * This method is implemented as follow, and records the call into the
+     * {@link #getMetrics() metrics}:
      * </p>
      * <code>
      * return this.generateUrlString(length).getBytes(StandardCharsets.UTF_8);
@@ -134,7 +135,10 @@ public final class Base64Randomiser extends Randomiser {
      */
     @Override
     public byte[] generate(int length) {
-        return this.generateUrlString(length).getBytes(StandardCharsets.UTF_8);
+        long start = this.getMetrics().start();
+        byte[] bytes = this.generateUrlString(length).getBytes(StandardCharsets.UTF_8);
+        this.getMetrics().record(start, bytes.length, bytes.length);
+        return bytes;
     }
 
     /**
@@ -145,7 +149,7 @@ public final class Base64Randomiser extends Randomiser {
      * @return the generated string
      */
     public String generateString(int length) {
-        return Base64Randomiser.ENCODER.encodeToString(super.generate(length));
+        return Base64Randomiser.ENCODER.encodeToString(this.random(length));
     }
 
     /**
@@ -156,7 +160,20 @@ public final class Base64Randomiser extends Randomiser {
      * @return the generated string
      */
     public String generateUrlString(int length) {
-        return Base64Randomiser.URL_ENCODER.encodeToString(super.generate(length));
+        return Base64Randomiser.URL_ENCODER.encodeToString(this.random(length));
+    }
+
+    /**
+     * Draws random bytes from the bit source.
+     *
+     * @param length the number of bytes
+     * @return the random bytes; or an empty array if the {@code length} given
+     *         is negative
+     */
+    private byte[] random(int length) {
+        byte[] bytes = new byte[Math.max(0, length)];
+        this.getBitSource().bytes(bytes, 0, bytes.length);
+        return bytes;
     }
 
     @Override
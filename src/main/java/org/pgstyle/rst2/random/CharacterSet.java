@@ -0,0 +1,341 @@
+package org.pgstyle.rst2.random;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * <p>
+ * The {@code CharacterSet} is an immutable set of code points, stored as a
+ * sorted list of disjoint closed ranges. The set algebra (union, intersection
+ * and difference) works on the ranges directly, a set is never expanded into
+ * its individual characters, thus the cost of a set operation depends on the
+ * number of ranges only; e.g. the whole Basic Multilingual Plane is a single
+ * range regardless of its 65536 characters.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public final class CharacterSet {
+
+    /** The empty set. */
+    private static final CharacterSet EMPTY = new CharacterSet(new int[0]);
+
+    /**
+     * Returns the empty set.
+     *
+     * @return the empty set
+     */
+    public static CharacterSet empty() {
+        return CharacterSet.EMPTY;
+    }
+
+    /**
+     * Creates a set of a single code point.
+     *
+     * @param codePoint the code point
+     * @return the set of the code point
+     * @throws IllegalArgumentException
+     *         if the code point is not a valid code point
+     */
+    public static CharacterSet of(int codePoint) {
+        return CharacterSet.range(codePoint, codePoint);
+    }
+
+    /**
+     * Creates a set of all code points in the characters sequence.
+     *
+     * @param characters the characters sequence
+     * @return the set of the code points in the characters sequence
+     * @throws NullPointerException
+     *         if the argument {@code characters} is {@code null}
+     */
+    public static CharacterSet of(CharSequence characters) {
+        Objects.requireNonNull(characters, "characters == null");
+        int[] codePoints = characters.codePoints().sorted().distinct().toArray();
+        int[] ranges = new int[codePoints.length << 1];
+        int length = 0;
+        for (int codePoint : codePoints) {
+            if (length > 0 && ranges[length - 1] + 1 == codePoint) {
+                ranges[length - 1] = codePoint;
+            }
+            else {
+                ranges[length++] = codePoint;
+                ranges[length++] = codePoint;
+            }
+        }
+        return new CharacterSet(Arrays.copyOf(ranges, length));
+    }
+
+    /**
+     * Creates a set of the ranged code points from {@code start} to
+     * {@code end} inclusively.
+     *
+     * @param start the starting code point
+     * @param end the ending code point
+     * @return the set of the ranged code points
+     * @throws IllegalArgumentException
+     *         if either code point is not a valid code point; or the ending
+     *         code point is less than the starting code point
+     */
+    public static CharacterSet range(int start, int end) {
+        if (!Character.isValidCodePoint(start) || !Character.isValidCodePoint(end)) {
+            throw new IllegalArgumentException(String.format("invalid code point: U+%04X, U+%04X", start, end));
+        }
+        if (end < start) {
+            throw new IllegalArgumentException(String.format("invalid ranged sequence: start:'%s', end:'%s'", new String(Character.toChars(start)), new String(Character.toChars(end))));
+        }
+        return new CharacterSet(new int[] { start, end });
+    }
+
+    /**
+     * Creates the union of all given sets.
+     *
+     * @param sets the sets
+     * @return the union of the sets
+     * @throws NullPointerException
+     *         if the argument {@code sets} is or contains {@code null}
+     */
+    public static CharacterSet union(Collection<CharacterSet> sets) {
+        Objects.requireNonNull(sets, "sets == null");
+        long[] ranges = sets.stream().flatMapToLong(s -> IntStream.range(0, s.ranges())
+                            .mapToLong(i -> (long) s.start(i) << 32 | s.end(i))).sorted().toArray();
+        int[] merged = new int[ranges.length << 1];
+        int length = 0;
+        for (long range : ranges) {
+            int start = (int) (range >>> 32);
+            int end = (int) range;
+            if (length > 0 && merged[length - 1] + 1 >= start) {
+                // overlapping or adjacent range, extend the last range
+                merged[length - 1] = Math.max(merged[length - 1], end);
+            }
+            else {
+                merged[length++] = start;
+                merged[length++] = end;
+            }
+        }
+        return new CharacterSet(Arrays.copyOf(merged, length));
+    }
+
+    /**
+     * Creates a set with the given ranges.
+     *
+     * @param ranges the sorted, disjoint and non-adjacent pairs of starting
+     *               and ending code points
+     */
+    private CharacterSet(int[] ranges) {
+        this.ranges = ranges;
+        int size = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            size += ranges[i + 1] - ranges[i] + 1;
+        }
+        this.size = size;
+    }
+
+    /** The pairs of starting and ending code points of the ranges. */
+    private final int[] ranges;
+    /** The number of code points in the set. */
+    private final int   size;
+
+    /**
+     * Returns the union of this set and the other set.
+     *
+     * @param other the other set
+     * @return the union of the sets
+     * @throws NullPointerException
+     *         if the argument {@code other} is {@code null}
+     */
+    public CharacterSet union(CharacterSet other) {
+        Objects.requireNonNull(other, "other == null");
+        return CharacterSet.union(Arrays.asList(this, other));
+    }
+
+    /**
+     * Returns the intersection of this set and the other set.
+     *
+     * @param other the other set
+     * @return the intersection of the sets
+     * @throws NullPointerException
+     *         if the argument {@code other} is {@code null}
+     */
+    public CharacterSet intersect(CharacterSet other) {
+        Objects.requireNonNull(other, "other == null");
+        int[] intersected = new int[this.ranges.length + other.ranges.length];
+        int length = 0;
+        for (int i = 0, j = 0; i < this.ranges.length && j < other.ranges.length;) {
+            int start = Math.max(this.ranges[i], other.ranges[j]);
+            int end = Math.min(this.ranges[i + 1], other.ranges[j + 1]);
+            if (start <= end) {
+                intersected[length++] = start;
+                intersected[length++] = end;
+            }
+            // advance the range ends first, the other range may overlap more
+            if (this.ranges[i + 1] < other.ranges[j + 1]) {
+                i += 2;
+            }
+            else {
+                j += 2;
+            }
+        }
+        return new CharacterSet(Arrays.copyOf(intersected, length));
+    }
+
+    /**
+     * Returns the difference of this set and the other set, the code points
+     * in this set but not in the other set.
+     *
+     * @param other the other set
+     * @return the difference of the sets
+     * @throws NullPointerException
+     *         if the argument {@code other} is {@code null}
+     */
+    public CharacterSet difference(CharacterSet other) {
+        Objects.requireNonNull(other, "other == null");
+        return this.intersect(other.complement());
+    }
+
+    /**
+     * Returns the complement of this set, all valid code points not in this
+     * set.
+     *
+     * @return the complement of this set
+     */
+    public CharacterSet complement() {
+        int[] complement = new int[this.ranges.length + 2];
+        int length = 0;
+        int next = Character.MIN_CODE_POINT;
+        for (int i = 0; i < this.ranges.length; i += 2) {
+            if (this.ranges[i] > next) {
+                complement[length++] = next;
+                complement[length++] = this.ranges[i] - 1;
+            }
+            next = this.ranges[i + 1] + 1;
+        }
+        if (next <= Character.MAX_CODE_POINT) {
+            complement[length++] = next;
+            complement[length++] = Character.MAX_CODE_POINT;
+        }
+        return new CharacterSet(Arrays.copyOf(complement, length));
+    }
+
+    /**
+     * Returns {@code true} if the code point is in this set.
+     *
+     * @param codePoint the code point to be tested
+     * @return {@code true} if the code point is in this set; or {@code false}
+     *         otherwise
+     */
+    public boolean contains(int codePoint) {
+        int index = Arrays.binarySearch(this.ranges, codePoint);
+        // an exact hit is a range bound; otherwise inside a range if the
+        // insertion point is after a starting code point
+        return index >= 0 || (-index - 1 & 1) == 1;
+    }
+
+    /**
+     * Returns the code point at the index in the ascending order of this set.
+     *
+     * @param index the index of the code point
+     * @return the code point at the index
+     * @throws IndexOutOfBoundsException
+     *         if the index is out of range
+     */
+    public int get(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + this.size);
+        }
+        for (int i = 0;; i += 2) {
+            int length = this.ranges[i + 1] - this.ranges[i] + 1;
+            if (index < length) {
+                return this.ranges[i] + index;
+            }
+            index -= length;
+        }
+    }
+
+    /**
+     * Returns {@code true} if this set contains no code point.
+     *
+     * @return {@code true} if this set is empty; or {@code false} otherwise
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Returns the number of code points in this set.
+     *
+     * @return the number of code points in this set
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the number of ranges in this set.
+     *
+     * @return the number of ranges in this set
+     */
+    public int ranges() {
+        return this.ranges.length >> 1;
+    }
+
+    /**
+     * Returns the starting code point of the range at the index.
+     *
+     * @param range the index of the range
+     * @return the starting code point of the range
+     * @throws IndexOutOfBoundsException
+     *         if the index is out of range
+     */
+    public int start(int range) {
+        return this.ranges[range << 1];
+    }
+
+    /**
+     * Returns the ending code point of the range at the index.
+     *
+     * @param range the index of the range
+     * @return the ending code point of the range
+     * @throws IndexOutOfBoundsException
+     *         if the index is out of range
+     */
+    public int end(int range) {
+        return this.ranges[(range << 1) + 1];
+    }
+
+    /**
+     * Returns the stream of the code points of this set in ascending order.
+     *
+     * @return the stream of the code points
+     */
+    public IntStream codePoints() {
+        return IntStream.range(0, this.ranges()).flatMap(i -> IntStream.rangeClosed(this.start(i), this.end(i)));
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        return this == object || object instanceof CharacterSet && Arrays.equals(this.ranges, ((CharacterSet) object).ranges);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.ranges);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder string = new StringBuilder();
+        for (int i = 0; i < this.ranges(); i++) {
+            string.appendCodePoint(this.start(i));
+            if (this.end(i) > this.start(i)) {
+                string.append(this.end(i) - this.start(i) >= 2 ? ".." : "").appendCodePoint(this.end(i));
+            }
+        }
+        return string.toString();
+    }
+
+}
@@ -0,0 +1,438 @@
+package org.pgstyle.rst2.random;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * <p>
+ * The {@code CompiledWeights} is the immutable compiled form of a weight map
+ * used by the {@link WeightedRandomiser}. The weights are laid out as a table
+ * of character ranges with their cumulative weight bounds, a character can
+ * then be located from a pointer in the range of {@code [0, total)} by a
+ * binary search over the ranges.
+ * </p>
+ * <p>
+ * A {@code CompiledWeights} carries the descriptor it is compiled from, two
+ * {@code CompiledWeights} are equal if they are compiled from the same
+ * descriptor. Since a {@code CompiledWeights} is immutable, it can be cached
+ * with its descriptor and shared by any number of randomisers.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ * @see WeightedRandomiser
+ */
+public final class CompiledWeights {
+
+    /** The surrogate code points, they are never located. */
+    private static final CharacterSet SURROGATES = CharacterSet.range(Character.MIN_SURROGATE, Character.MAX_SURROGATE);
+    /**
+     * The maximum number of characters in the layout to have their UTF-8
+     * encoding pre-encoded.
+     */
+    private static final int TABLE_LIMIT = 1 << 12;
+
+    /**
+     * Compiles a weight map, the descriptor of the compiled weights is the
+     * string representation of the weight map. See the document on the
+     * {@link WeightedRandomiser#getInstance(Map)} methods to find more
+     * information about the weight map.
+     *
+     * @param weights the weight map
+     * @return the compiled weights
+     * @throws IllegalArgumentException
+     *         if the argument {@code weights} is empty or contains negative
+     *         weight; or the total accumulated weight exceeds the maximum
+     *         integer
+     * @throws NullPointerException
+     *         if the argument {@code weights} is {@code null}
+     */
+    public static CompiledWeights compile(Map<String, Integer> weights) {
+        Objects.requireNonNull(weights, "weights == null");
+        return CompiledWeights.compile(weights.toString(), weights);
+    }
+
+    /**
+     * Compiles a weight map with the given descriptor. The descriptor is
+     * expected to be the normalised form of the weight map, it identifies the
+     * compiled weights. See the document on the
+     * {@link WeightedRandomiser#getInstance(Map)} methods to find more
+     * information about the weight map.
+     *
+     * @param descriptor the descriptor of the weight map
+     * @param weights the weight map
+     * @return the compiled weights
+     * @throws IllegalArgumentException
+     *         if the argument {@code weights} is empty or contains negative
+     *         weight; or the total accumulated weight exceeds the maximum
+     *         integer
+     * @throws NullPointerException
+     *         if the argument {@code descriptor} or {@code weights} is
+     *         {@code null}
+     */
+    public static CompiledWeights compile(String descriptor, Map<String, Integer> weights) {
+        Objects.requireNonNull(descriptor, "descriptor == null");
+        Objects.requireNonNull(weights, "weights == null");
+        Layout layout = new Layout();
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            entry.getKey().codePoints().filter(c -> !CompiledWeights.SURROGATES.contains(c))
+                 .forEach(c -> layout.add(c, c, entry.getValue()));
+        }
+        return new CompiledWeights(descriptor, layout);
+    }
+
+    /**
+     * Compiles a weight map of character sets with the given descriptor. The
+     * descriptor is expected to be the normalised form of the weight map, it
+     * identifies the compiled weights. Each character in a character set is
+     * weighted with the weight of the set, the sets are laid out by their
+     * ranges without being expanded.
+     *
+     * @param descriptor the descriptor of the weight map
+     * @param weights the weight map of character sets
+     * @return the compiled weights
+     * @throws IllegalArgumentException
+     *         if the argument {@code weights} is empty or contains negative
+     *         weight; or the total accumulated weight exceeds the maximum
+     *         integer
+     * @throws NullPointerException
+     *         if the argument {@code descriptor} or {@code weights} is
+     *         {@code null}
+     */
+    public static CompiledWeights compileSets(String descriptor, Map<CharacterSet, Integer> weights) {
+        Objects.requireNonNull(descriptor, "descriptor == null");
+        Objects.requireNonNull(weights, "weights == null");
+        Layout layout = new Layout();
+        for (Map.Entry<CharacterSet, Integer> entry : weights.entrySet()) {
+            CharacterSet set = entry.getKey().difference(CompiledWeights.SURROGATES);
+            for (int i = 0; i < set.ranges(); i++) {
+                layout.add(set.start(i), set.end(i), entry.getValue());
+            }
+        }
+        return new CompiledWeights(descriptor, layout);
+    }
+
+    /**
+     * Creates a compiled weights.
+     *
+     * @param descriptor the descriptor of the weight map
+     * @param layout the layout of the weighted ranges
+     * @throws IllegalArgumentException
+     *         if the total weight is zero
+     */
+    private CompiledWeights(String descriptor, Layout layout) {
+        if (layout.size == 0) {
+            throw new IllegalArgumentException("empty weight");
+        }
+        this.descriptor = descriptor;
+        this.starts = Arrays.copyOf(layout.starts, layout.size);
+        this.weights = Arrays.copyOf(layout.weights, layout.size);
+        this.bounds = Arrays.copyOf(layout.bounds, layout.size);
+        this.total = this.bounds[layout.size - 1];
+        this.offsets = new int[layout.size];
+        int elements = 0;
+        for (int i = 0; i < layout.size; i++) {
+            this.offsets[i] = elements;
+            elements += (this.bounds[i] - (i == 0 ? 0 : this.bounds[i - 1])) / this.weights[i];
+        }
+        this.table = elements <= CompiledWeights.TABLE_LIMIT ? this.tabulate(elements) : null;
+        this.characters = CharacterSet.union(IntStream.range(0, layout.size)
+                .mapToObj(i -> CharacterSet.range(this.starts[i], this.starts[i] + (this.bounds[i] - (i == 0 ? 0 : this.bounds[i - 1])) / this.weights[i] - 1))
+                .collect(Collectors.toList()));
+    }
+
+    /** The descriptor of the weight map. */
+    private final String       descriptor;
+    /** The starting code points of the ranges. */
+    private final int[]        starts;
+    /** The weight of each character in the ranges. */
+    private final int[]        weights;
+    /** The exclusive cumulative weight bounds of the ranges. */
+    private final int[]        bounds;
+    /** The index of the first character of the ranges in the layout. */
+    private final int[]        offsets;
+    /**
+     * The pre-encoded UTF-8 bytes of the characters in the layout, 4 bytes
+     * for each character with the unused bytes filled with {@code -1};
+     * {@code null} if the layout is too large to be pre-encoded.
+     */
+    private final byte[]       table;
+    /** The total weight. */
+    private final int          total;
+    /** The characters can be located. */
+    private final CharacterSet characters;
+
+    /**
+     * Returns the code point of the character located by the pointer.
+     *
+     * @param pointer the pointer in the range of {@code [0, total)}
+     * @return the code point of the character located by the pointer
+     * @throws IllegalArgumentException
+     *         if the pointer is out of range
+     */
+    public int codePoint(int pointer) {
+        int index = this.locate(pointer);
+        return this.starts[index] + (pointer - (index == 0 ? 0 : this.bounds[index - 1])) / this.weights[index];
+    }
+
+    /**
+     * Writes the UTF-8 encoding of the character located by the pointer into
+     * the buffer. The buffer must have at least 4 bytes available at the
+     * offset.
+     *
+     * @param pointer the pointer in the range of {@code [0, total)}
+     * @param buffer the buffer to be written
+     * @param offset the offset of the buffer to be written at
+     * @return the offset after the written bytes
+     * @throws IllegalArgumentException
+     *         if the pointer is out of range
+     */
+    public int encode(int pointer, byte[] buffer, int offset) {
+        int index = this.locate(pointer);
+        int element = (pointer - (index == 0 ? 0 : this.bounds[index - 1])) / this.weights[index];
+        if (Objects.isNull(this.table)) {
+            return CompiledWeights.utf8(this.starts[index] + element, buffer, offset);
+        }
+        int position = this.offsets[index] + element << 2;
+        for (int i = 0; i < 4 && this.table[position + i] != -1; i++) {
+            buffer[offset++] = this.table[position + i];
+        }
+        return offset;
+    }
+
+    /**
+     * Locates the range of the pointer.
+     *
+     * @param pointer the pointer in the range of {@code [0, total)}
+     * @return the index of the range
+     * @throws IllegalArgumentException
+     *         if the pointer is out of range
+     */
+    private int locate(int pointer) {
+        if (pointer < 0 || pointer >= this.total) {
+            throw new IllegalArgumentException("pointer missed: " + pointer);
+        }
+        int index = Arrays.binarySearch(this.bounds, pointer);
+        // the bounds are exclusive, an exact hit belongs to the next range
+        return index < 0 ? -index - 1 : index + 1;
+    }
+
+    /**
+     * Pre-encodes the characters in the layout.
+     *
+     * @param elements the number of characters in the layout
+     * @return the pre-encoded UTF-8 bytes table
+     */
+    private byte[] tabulate(int elements) {
+        byte[] table = new byte[elements << 2];
+        Arrays.fill(table, (byte) -1);
+        for (int i = 0; i < this.starts.length; i++) {
+            int size = (i + 1 < this.offsets.length ? this.offsets[i + 1] : elements) - this.offsets[i];
+            for (int j = 0; j < size; j++) {
+                CompiledWeights.utf8(this.starts[i] + j, table, this.offsets[i] + j << 2);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Writes the UTF-8 encoding of the code point into the buffer.
+     *
+     * @param codePoint the code point, must not be a surrogate
+     * @param buffer the buffer to be written
+     * @param offset the offset of the buffer to be written at
+     * @return the offset after the written bytes
+     */
+    private static int utf8(int codePoint, byte[] buffer, int offset) {
+        if (codePoint < 0x80) {
+            buffer[offset++] = (byte) codePoint;
+        }
+        else if (codePoint < 0x800) {
+            buffer[offset++] = (byte) (0xc0 | codePoint >> 6);
+            buffer[offset++] = (byte) (0x80 | codePoint & 0x3f);
+        }
+        else if (codePoint < 0x10000) {
+            buffer[offset++] = (byte) (0xe0 | codePoint >> 12);
+            buffer[offset++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+            buffer[offset++] = (byte) (0x80 | codePoint & 0x3f);
+        }
+        else {
+            buffer[offset++] = (byte) (0xf0 | codePoint >> 18);
+            buffer[offset++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+            buffer[offset++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+            buffer[offset++] = (byte) (0x80 | codePoint & 0x3f);
+        }
+        return offset;
+    }
+
+    /**
+     * Returns the maximum number of UTF-8 bytes of a character can be
+     * located.
+     *
+     * @return the maximum number of UTF-8 bytes of a character
+     */
+    public int width() {
+        int last = this.characters.end(this.characters.ranges() - 1);
+        return last < 0x80 ? 1 : last < 0x800 ? 2 : last < 0x10000 ? 3 : 4;
+    }
+
+    /**
+     * Returns the number of weighted ranges, the characters of a range have
+     * the same weight.
+     *
+     * @return the number of weighted ranges
+     */
+    public int ranges() {
+        return this.starts.length;
+    }
+
+    /**
+     * Returns the first code point of a weighted range.
+     *
+     * @param range the index of the range
+     * @return the first code point of the range
+     * @throws ArrayIndexOutOfBoundsException
+     *         if the range is out of bounds
+     */
+    public int start(int range) {
+        return this.starts[range];
+    }
+
+    /**
+     * Returns the last code point of a weighted range.
+     *
+     * @param range the index of the range
+     * @return the last code point of the range, inclusive
+     * @throws ArrayIndexOutOfBoundsException
+     *         if the range is out of bounds
+     */
+    public int end(int range) {
+        return this.starts[range] + (this.bounds[range] - (range == 0 ? 0 : this.bounds[range - 1])) / this.weights[range] - 1;
+    }
+
+    /**
+     * Returns the weight of each character of a weighted range, the
+     * probability of a character is its weight over the {@link #total()}.
+     *
+     * @param range the index of the range
+     * @return the weight of each character of the range
+     * @throws ArrayIndexOutOfBoundsException
+     *         if the range is out of bounds
+     */
+    public int weight(int range) {
+        return this.weights[range];
+    }
+
+    /**
+     * Returns the set of characters can be located.
+     *
+     * @return the set of characters
+     */
+    public CharacterSet characters() {
+        return this.characters;
+    }
+
+    /**
+     * Returns the descriptor of the weight map.
+     *
+     * @return the descriptor of the weight map
+     */
+    public String descriptor() {
+        return this.descriptor;
+    }
+
+    /**
+     * Returns the total weight.
+     *
+     * @return the total weight
+     */
+    public int total() {
+        return this.total;
+    }
+
+    /**
+     * Returns {@code true} if the object {@code other} is a
+     * {@code CompiledWeights} compiled from the same descriptor.
+     *
+     * @param object the object to be tested
+     * @return {@code true} if the object {@code other} is compiled from the
+     *         same descriptor; or {@code false} otherwise
+     */
+    @Override
+    public boolean equals(Object object) {
+        return this == object || object instanceof CompiledWeights && this.descriptor.equals(((CompiledWeights) object).descriptor);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.descriptor.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rst/CompiledWeights:%s#%d", this.characters, this.total);
+    }
+
+    /**
+     * The growing layout of the weighted ranges during compilation. Adjacent
+     * characters of the same weight are merged into one range, thus a ranged
+     * characters sequence is laid out as a single range.
+     */
+    private static final class Layout {
+
+        /** The starting code points of the ranges. */
+        private int[] starts  = new int[16];
+        /** The weight of each character in the ranges. */
+        private int[] weights = new int[16];
+        /** The exclusive cumulative weight bounds of the ranges. */
+        private int[] bounds  = new int[16];
+        /** The number of ranges. */
+        private int   size    = 0;
+
+        /**
+         * Appends a weighted range to the layout.
+         *
+         * @param start the starting code point
+         * @param end the ending code point
+         * @param weight the weight of each character in the range
+         * @throws IllegalArgumentException
+         *         if the weight is negative; or the total accumulated weight
+         *         exceeds the maximum integer
+         */
+        private void add(int start, int end, int weight) {
+            if (weight < 0) {
+                throw new IllegalArgumentException("negative weight: " + weight);
+            }
+            if (weight == 0) {
+                return;
+            }
+            int current = this.size == 0 ? 0 : this.bounds[this.size - 1];
+            try {
+                current = StrictMath.addExact(current, StrictMath.multiplyExact(end - start + 1, weight));
+            }
+            catch (ArithmeticException e) {
+                throw new IllegalArgumentException("weight exceeds capability of randomiser", e);
+            }
+            int last = this.size - 1;
+            if (last >= 0 && this.weights[last] == weight && this.starts[last] + (this.bounds[last] - (last == 0 ? 0 : this.bounds[last - 1])) / weight == start) {
+                // continuous with the last range, extend the last range
+                this.bounds[last] = current;
+                return;
+            }
+            if (this.size == this.starts.length) {
+                this.starts = Arrays.copyOf(this.starts, this.size << 1);
+                this.weights = Arrays.copyOf(this.weights, this.size << 1);
+                this.bounds = Arrays.copyOf(this.bounds, this.size << 1);
+            }
+            this.starts[this.size] = start;
+            this.weights[this.size] = weight;
+            this.bounds[this.size++] = current;
+        }
+
+    }
+
+}
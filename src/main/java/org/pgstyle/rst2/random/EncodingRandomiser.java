@@ -0,0 +1,212 @@
+package org.pgstyle.rst2.random;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+import org.pgstyle.rst2.security.RandomInputStream;
+import org.pgstyle.rst2.security.Randomiser;
+import org.pgstyle.rst2.security.SecureRandomInputStream;
+
+/**
+ * <p>
+ * The {@code EncodingRandomiser} generates strings of uniformly random symbols
+ * of a fixed encoding alphabet, the symbols are drawn with a
+ * {@link UniformSampler}. A symbol of the power-of-two alphabets takes 4 or 5
+ * bits straight from the random words, and a Base58 symbol spends about
+ * {@code log2(58)} bits.
+ * </p>
+ * <ul>
+ * <li>{@code HEX} - lowercase hexadecimal</li>
+ * <li>{@code BASE32} - RFC 4648 Base32 alphabet without padding</li>
+ * <li>{@code CROCKFORD} - Crockford Base32 alphabet</li>
+ * <li>{@code BASE58} - Bitcoin Base58 alphabet</li>
+ * </ul>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public final class EncodingRandomiser extends Randomiser implements SampledRandomiser {
+
+    /**
+     * The list of encodings of the {@code EncodingRandomiser}.
+     */
+    public enum Encoding {
+        /** Lowercase hexadecimal. */
+        HEX("0123456789abcdef"),
+        /** RFC 4648 Base32. */
+        BASE32("ABCDEFGHIJKLMNOPQRSTUVWXYZ234567"),
+        /** Crockford Base32. */
+        CROCKFORD("0123456789ABCDEFGHJKMNPQRSTVWXYZ"),
+        /** Bitcoin Base58. */
+        BASE58("123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz");
+
+        /**
+         * Creates an encoding.
+         *
+         * @param alphabet the symbols of the encoding
+         */
+        private Encoding(String alphabet) {
+            this.alphabet = alphabet.getBytes(StandardCharsets.US_ASCII);
+        }
+
+        /** The symbols of the encoding. */
+        private final byte[] alphabet;
+
+        /**
+         * Returns the number of symbols of the encoding.
+         *
+         * @return the number of symbols of the encoding
+         */
+        public int radix() {
+            return this.alphabet.length;
+        }
+    }
+
+    /**
+     * Creates an instance of {@code EncodingRandomiser} with a given encoding
+     * and a random seed automatically generated by the {@code pglj/rst2}
+     * library.
+     *
+     * @param encoding the encoding
+     * @return an instance of {@code EncodingRandomiser}
+     * @throws NullPointerException
+     *         if the argument {@code encoding} is {@code null}
+     */
+    public static EncodingRandomiser getInstance(Encoding encoding) {
+        return EncodingRandomiser.getInstance(encoding, RandomUtils.randomLongSeed());
+    }
+
+    /**
+     * Creates an instance of {@code EncodingRandomiser} with a given encoding
+     * and seed.
+     *
+     * @param encoding the encoding
+     * @param seed the seed for the randomiser
+     * @return an instance of {@code EncodingRandomiser}
+     * @throws NullPointerException
+     *         if the argument {@code encoding} is {@code null}
+     */
+    public static EncodingRandomiser getInstance(Encoding encoding, long seed) {
+        return new EncodingRandomiser(encoding, new RandomInputStream(seed));
+    }
+
+    /**
+     * Creates an instance of {@code EncodingRandomiser} with a given encoding
+     * and seed. The seed will ultimately be casted into {@code long} for
+     * seeding the randomiser by using the methods
+     * {@link RandomUtils#toLongSeed(String)}.
+     *
+     * @param encoding the encoding
+     * @param seed the seed for the randomiser
+     * @return an instance of {@code EncodingRandomiser}
+     * @throws NullPointerException
+     *         if the argument {@code encoding} or {@code seed} is {@code null}
+     */
+    public static EncodingRandomiser getInstance(Encoding encoding, String seed) {
+        return EncodingRandomiser.getInstance(encoding, RandomUtils.toLongSeed(seed));
+    }
+
+    /**
+     * Creates a secured instance of {@code EncodingRandomiser} with a given
+     * encoding and a random seed automatically generated by the
+     * {@code pglj/rst2} library.
+     *
+     * @param encoding the encoding
+     * @return an instance of {@code EncodingRandomiser}
+     * @throws NullPointerException
+     *         if the argument {@code encoding} is {@code null}
+     */
+    public static EncodingRandomiser getInstanceSecure(Encoding encoding) {
+        return EncodingRandomiser.getInstanceSecure(encoding, RandomUtils.randomBytesSeed());
+    }
+
+    /**
+     * Creates a secured instance of {@code EncodingRandomiser} with a given
+     * encoding and seed.
+     *
+     * @param encoding the encoding
+     * @param seed the seed for the randomiser
+     * @return an instance of {@code EncodingRandomiser}
+     * @throws NullPointerException
+     *         if the argument {@code encoding} or {@code seed} is {@code null}
+     */
+    public static EncodingRandomiser getInstanceSecure(Encoding encoding, byte[] seed) {
+        return new EncodingRandomiser(encoding, new SecureRandomInputStream(seed));
+    }
+
+    /**
+     * Creates a secured instance of {@code EncodingRandomiser} with a given
+     * encoding and seed. The seed will ultimately be casted into
+     * {@code byte[]} for seeding the randomiser by using the methods
+     * {@link RandomUtils#toBytesSeed(String)}.
+     *
+     * @param encoding the encoding
+     * @param seed the seed for the randomiser
+     * @return an instance of {@code EncodingRandomiser}
+     * @throws NullPointerException
+     *         if the argument {@code encoding} or {@code seed} is {@code null}
+     */
+    public static EncodingRandomiser getInstanceSecure(Encoding encoding, String seed) {
+        return EncodingRandomiser.getInstanceSecure(encoding, RandomUtils.toBytesSeed(seed));
+    }
+
+    /**
+     * Initialises the randomiser with a given encoding and random input
+     * stream.
+     *
+     * @param encoding the encoding
+     * @param randomStream the random stream for generating data
+     * @throws NullPointerException
+     *         if the argument {@code encoding} or {@code randomStream} is
+     *         {@code null}
+     */
+    public EncodingRandomiser(Encoding encoding, RandomInputStream randomStream) {
+        super(randomStream);
+        Objects.requireNonNull(encoding, "encoding == null");
+        this.encoding = encoding;
+        this.sampler = new UniformSampler(this.getBitSource());
+    }
+
+    private final Encoding       encoding;
+    private final UniformSampler sampler;
+
+    @Override
+    public UniformSampler sampler() {
+        return this.sampler;
+    }
+
+    /**
+     * Generates a string with {@code length} amount of symbols.
+     *
+     * @param length the length of the generated string
+     * @return the bytes representation of the generated string
+     */
+    @Override
+    public byte[] generate(int length) {
+        long start = this.getMetrics().start();
+        byte[] bytes = new byte[Math.max(0, length)];
+        byte[] alphabet = this.encoding.alphabet;
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = alphabet[this.sampler.next(alphabet.length)];
+        }
+        this.getMetrics().record(start, bytes.length, bytes.length);
+        return bytes;
+    }
+
+    /**
+     * Generates a string with {@code length} amount of symbols.
+     *
+     * @param length the length of the generated string
+     * @return the generated string
+     */
+    public String generateString(int length) {
+        return new String(this.generate(length), StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rst/EncodingRandomiser:%s$%s", this.encoding, this.getRandomStream());
+    }
+
+}
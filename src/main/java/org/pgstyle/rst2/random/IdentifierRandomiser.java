@@ -0,0 +1,341 @@
+package org.pgstyle.rst2.random;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.pgstyle.rst2.security.RandomInputStream;
+import org.pgstyle.rst2.security.Randomiser;
+import org.pgstyle.rst2.security.SecureRandomInputStream;
+
+/**
+ * <p>
+ * The {@code IdentifierRandomiser} generates identifiers as records, the
+ * identifiers are formatted directly into the buffer with lookup tables.
+ * </p>
+ * <ul>
+ * <li>{@code UUID4} - random UUID (RFC 9562 version 4), e.g.
+ * {@code 3f2b8e6a-9c1d-4e7f-a5b0-1c2d3e4f5a6b}</li>
+ * <li>{@code UUID7} - time-ordered UUID (RFC 9562 version 7), 48 bits of Unix
+ * time in milliseconds, a 12-bit counter and 62 random bits</li>
+ * <li>{@code ULID} - time-ordered ULID in Crockford Base32, e.g.
+ * {@code 01HZX3J5Q8RZ7M2K9V4C6N1B0T}, 48 bits of Unix time in milliseconds,
+ * a 16-bit counter and 64 random bits</li>
+ * </ul>
+ * <p>
+ * The time-ordered identifiers are strictly increasing in the process, the
+ * counter starts at a random value in the lower half of its range on each
+ * millisecond and increases for each identifier in the same millisecond; an
+ * overflowing counter carries into the time. The time and counter are kept in
+ * a shared atomic clock updated by compare-and-set, no lock is taken across
+ * threads.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public final class IdentifierRandomiser extends Randomiser implements RecordRandomiser {
+
+    /**
+     * The list of identifier formats of the {@code IdentifierRandomiser}.
+     */
+    public enum Identifier {
+        /** Random UUID. */
+        UUID4(36),
+        /** Time-ordered UUID. */
+        UUID7(36),
+        /** Time-ordered ULID. */
+        ULID(26);
+
+        /**
+         * Creates an identifier format.
+         *
+         * @param length the number of characters of an identifier
+         */
+        private Identifier(int length) {
+            this.length = length;
+        }
+
+        /** The number of characters of an identifier. */
+        private final int length;
+
+        /**
+         * Returns the number of characters of an identifier of this format.
+         *
+         * @return the number of characters of an identifier
+         */
+        public int length() {
+            return this.length;
+        }
+    }
+
+    /** The lowercase hexadecimal digits. */
+    private static final byte[]     HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    /** The Crockford Base32 digits. */
+    private static final byte[]     CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".getBytes(StandardCharsets.US_ASCII);
+    /** The clock of {@code UUID7}, the time shifted by the 12-bit counter. */
+    private static final AtomicLong UUID7_CLOCK = new AtomicLong();
+    /** The clock of {@code ULID}, the time shifted by the 16-bit counter. */
+    private static final AtomicLong ULID_CLOCK = new AtomicLong();
+
+    /**
+     * Creates an instance of {@code IdentifierRandomiser} with a given
+     * identifier format and a random seed automatically generated by the
+     * {@code pglj/rst2} library.
+     *
+     * @param identifier the identifier format
+     * @return an instance of {@code IdentifierRandomiser}
+     * @throws NullPointerException
+     *         if the argument {@code identifier} is {@code null}
+     */
+    public static IdentifierRandomiser getInstance(Identifier identifier) {
+        return IdentifierRandomiser.getInstance(identifier, RandomUtils.randomLongSeed());
+    }
+
+    /**
+     * Creates an instance of {@code IdentifierRandomiser} with a given
+     * identifier format and seed. The time-ordered identifiers are not
+     * reproducible by seed.
+     *
+     * @param identifier the identifier format
+     * @param seed the seed for the randomiser
+     * @return an instance of {@code IdentifierRandomiser}
+     * @throws NullPointerException
+     *         if the argument {@code identifier} is {@code null}
+     */
+    public static IdentifierRandomiser getInstance(Identifier identifier, long seed) {
+        return new IdentifierRandomiser(identifier, new RandomInputStream(seed));
+    }
+
+    /**
+     * Creates an instance of {@code IdentifierRandomiser} with a given
+     * identifier format and seed. The seed will ultimately be casted into
+     * {@code long} for seeding the randomiser by using the methods
+     * {@link RandomUtils#toLongSeed(String)}.
+     *
+     * @param identifier the identifier format
+     * @param seed the seed for the randomiser
+     * @return an instance of {@code IdentifierRandomiser}
+     * @throws NullPointerException
+     *         if the argument {@code identifier} or {@code seed} is
+     *         {@code null}
+     */
+    public static IdentifierRandomiser getInstance(Identifier identifier, String seed) {
+        return IdentifierRandomiser.getInstance(identifier, RandomUtils.toLongSeed(seed));
+    }
+
+    /**
+     * Creates a secured instance of {@code IdentifierRandomiser} with a given
+     * identifier format and a random seed automatically generated by the
+     * {@code pglj/rst2} library.
+     *
+     * @param identifier the identifier format
+     * @return an instance of {@code IdentifierRandomiser}
+     * @throws NullPointerException
+     *         if the argument {@code identifier} is {@code null}
+     */
+    public static IdentifierRandomiser getInstanceSecure(Identifier identifier) {
+        return IdentifierRandomiser.getInstanceSecure(identifier, RandomUtils.randomBytesSeed());
+    }
+
+    /**
+     * Creates a secured instance of {@code IdentifierRandomiser} with a given
+     * identifier format and seed.
+     *
+     * @param identifier the identifier format
+     * @param seed the seed for the randomiser
+     * @return an instance of {@code IdentifierRandomiser}
+     * @throws NullPointerException
+     *         if the argument {@code identifier} or {@code seed} is
+     *         {@code null}
+     */
+    public static IdentifierRandomiser getInstanceSecure(Identifier identifier, byte[] seed) {
+        return new IdentifierRandomiser(identifier, new SecureRandomInputStream(seed));
+    }
+
+    /**
+     * Creates a secured instance of {@code IdentifierRandomiser} with a given
+     * identifier format and seed. The seed will ultimately be casted into
+     * {@code byte[]} for seeding the randomiser by using the methods
+     * {@link RandomUtils#toBytesSeed(String)}.
+     *
+     * @param identifier the identifier format
+     * @param seed the seed for the randomiser
+     * @return an instance of {@code IdentifierRandomiser}
+     * @throws NullPointerException
+     *         if the argument {@code identifier} or {@code seed} is
+     *         {@code null}
+     */
+    public static IdentifierRandomiser getInstanceSecure(Identifier identifier, String seed) {
+        return IdentifierRandomiser.getInstanceSecure(identifier, RandomUtils.toBytesSeed(seed));
+    }
+
+    /**
+     * Advances the clock to the current time or one step after the last
+     * identifier, whichever is later.
+     *
+     * @param clock the clock
+     * @param bits the number of bits of the counter
+     * @param start the random starting value of the counter
+     * @return the time shifted by the counter bits and the counter
+     */
+    private static long tick(AtomicLong clock, int bits, long start) {
+        long now = System.currentTimeMillis() << bits | start;
+        while (true) {
+            long last = clock.get();
+            long next = now > last ? now : last + 1;
+            if (clock.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Writes a UUID in the canonical 8-4-4-4-12 form.
+     *
+     * @param high the most significant 64 bits of the UUID
+     * @param low the least significant 64 bits of the UUID
+     * @param buffer the buffer to be written
+     * @param offset the offset of the buffer to be written at
+     * @return the offset after the written UUID
+     */
+    private static int uuid(long high, long low, byte[] buffer, int offset) {
+        offset = IdentifierRandomiser.hex(high >>> 32, 8, buffer, offset);
+        buffer[offset++] = '-';
+        offset = IdentifierRandomiser.hex(high >>> 16, 4, buffer, offset);
+        buffer[offset++] = '-';
+        offset = IdentifierRandomiser.hex(high, 4, buffer, offset);
+        buffer[offset++] = '-';
+        offset = IdentifierRandomiser.hex(low >>> 48, 4, buffer, offset);
+        buffer[offset++] = '-';
+        return IdentifierRandomiser.hex(low, 12, buffer, offset);
+    }
+
+    /**
+     * Writes the lowest hexadecimal digits of a value.
+     *
+     * @param value the value
+     * @param digits the number of digits
+     * @param buffer the buffer to be written
+     * @param offset the offset of the buffer to be written at
+     * @return the offset after the written digits
+     */
+    private static int hex(long value, int digits, byte[] buffer, int offset) {
+        for (int i = digits - 1; i >= 0; i--, value >>>= 4) {
+            buffer[offset + i] = IdentifierRandomiser.HEX[(int) value & 0xf];
+        }
+        return offset + digits;
+    }
+
+    /**
+     * Writes a ULID of 26 Crockford Base32 digits, the 128 bits are
+     * zero-extended to 130 bits.
+     *
+     * @param high the most significant 64 bits of the ULID
+     * @param low the least significant 64 bits of the ULID
+     * @param buffer the buffer to be written
+     * @param offset the offset of the buffer to be written at
+     * @return the offset after the written ULID
+     */
+    private static int ulid(long high, long low, byte[] buffer, int offset) {
+        for (int i = 0; i < 26; i++) {
+            int shift = (25 - i) * 5;
+            long digit;
+            if (shift >= 64) {
+                digit = high >>> shift - 64;
+            }
+            else if (shift > 59) {
+                // the digit straddles the two halves
+                digit = low >>> shift | high << 64 - shift;
+            }
+            else {
+                digit = low >>> shift;
+            }
+            buffer[offset + i] = IdentifierRandomiser.CROCKFORD[(int) digit & 0x1f];
+        }
+        return offset + 26;
+    }
+
+    /**
+     * Initialises the randomiser with a given identifier format and random
+     * input stream.
+     *
+     * @param identifier the identifier format
+     * @param randomStream the random stream for generating data
+     * @throws NullPointerException
+     *         if the argument {@code identifier} or {@code randomStream} is
+     *         {@code null}
+     */
+    public IdentifierRandomiser(Identifier identifier, RandomInputStream randomStream) {
+        super(randomStream);
+        Objects.requireNonNull(identifier, "identifier == null");
+        this.identifier = identifier;
+    }
+
+    private final Identifier identifier;
+
+    @Override
+    public int recordSize() {
+        return this.identifier.length();
+    }
+
+    @Override
+    public int record(byte[] buffer, int offset) {
+        switch (this.identifier) {
+        case UUID7: {
+            long tick = IdentifierRandomiser.tick(IdentifierRandomiser.UUID7_CLOCK, 12, this.getBitSource().bits(11));
+            long high = tick >>> 12 << 16 | 0x7000L | tick & 0xfff;
+            long low = this.getBitSource().bits(62) | Long.MIN_VALUE;
+            return IdentifierRandomiser.uuid(high, low, buffer, offset);
+        }
+        case ULID: {
+            long high = IdentifierRandomiser.tick(IdentifierRandomiser.ULID_CLOCK, 16, this.getBitSource().bits(15));
+            return IdentifierRandomiser.ulid(high, this.getBitSource().nextLong(), buffer, offset);
+        }
+        case UUID4:
+        default: {
+            long high = this.getBitSource().bits(48) << 16 | 0x4000L | this.getBitSource().bits(12);
+            long low = this.getBitSource().bits(62) | Long.MIN_VALUE;
+            return IdentifierRandomiser.uuid(high, low, buffer, offset);
+        }
+        }
+    }
+
+    /**
+     * Generates {@code length} amount of identifiers, the identifiers are
+     * concatenated without separator.
+     *
+     * @param length the number of identifiers
+     * @return the bytes of the generated identifiers
+     */
+    @Override
+    public byte[] generate(int length) {
+        long start = this.getMetrics().start();
+        // a negative length generates nothing, as the other randomisers
+        int count = Math.max(0, length);
+        byte[] bytes = new byte[StrictMath.multiplyExact(count, this.recordSize())];
+        int offset = 0;
+        for (int i = 0; i < count; i++) {
+            offset = this.record(bytes, offset);
+        }
+        this.getMetrics().record(start, offset, offset);
+        return Arrays.copyOf(bytes, offset);
+    }
+
+    /**
+     * Generates an identifier.
+     *
+     * @return the generated identifier
+     */
+    public String generateString() {
+        return new String(this.generate(1), StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rst/IdentifierRandomiser:%s$%s", this.identifier, this.getRandomStream());
+    }
+
+}
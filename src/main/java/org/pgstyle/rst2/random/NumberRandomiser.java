@@ -1,6 +1,5 @@
 package org.pgstyle.rst2.random;
 
-import java.nio.ByteBuffer;
 import java.util.Random;
 
 import org.pgstyle.rst2.security.RandomInputStream;
@@ -144,7 +143,7 @@ public class NumberRandomiser extends Randomiser {
      * @return a random {@code true} or {@code false}
      */
     public boolean generateBit() {
-        return this.generateByte() < 0;
+        return this.getBitSource().bits(1) != 0;
     }
 
     /**
@@ -153,7 +152,7 @@ public class NumberRandomiser extends Randomiser {
      * @return a randomly generated {@code byte}
      */
     public byte generateByte() {
-        return this.generate(1)[0];
+        return (byte) this.getBitSource().bits(Byte.SIZE);
     }
 
     /**
@@ -163,7 +162,7 @@ public class NumberRandomiser extends Randomiser {
      * @return a randomly generated {@code double}
      */
     public double generateDouble() {
-        return (this.generateLong() >>> 11) / (double) (1l << 53);
+        return this.getBitSource().bits(53) / (double) (1l << 53);
     }
 
     /**
@@ -173,7 +172,7 @@ public class NumberRandomiser extends Randomiser {
      * @return a randomly generated {@code float}
      */
     public float generateFloat() {
-        return (this.generateInteger() >>> 8) / (float) (1 << 24);
+        return this.getBitSource().bits(24) / (float) (1 << 24);
     }
 
     /**
@@ -183,7 +182,7 @@ public class NumberRandomiser extends Randomiser {
      * @return a randomly generated {@code int}
      */
     public int generateInteger() {
-        return ByteBuffer.wrap(this.generate(4)).getInt();
+        return this.getBitSource().nextInt();
     }
 
     /**
@@ -193,7 +192,7 @@ public class NumberRandomiser extends Randomiser {
      * @return a randomly generated {@code long}
      */
     public long generateLong() {
-        return ByteBuffer.wrap(this.generate(8)).getLong();
+        return this.getBitSource().nextLong();
     }
 
     /**
@@ -203,7 +202,7 @@ public class NumberRandomiser extends Randomiser {
      * @return a randomly generated {@code short}
      */
     public short generateShort() {
-        return ByteBuffer.wrap(this.generate(2)).getShort();
+        return (short) this.getBitSource().bits(Short.SIZE);
     }
 
     /**
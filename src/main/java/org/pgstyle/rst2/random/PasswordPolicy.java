@@ -0,0 +1,198 @@
+package org.pgstyle.rst2.random;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * <p>
+ * The {@code PasswordPolicy} is an immutable compiled password policy for the
+ * {@link PasswordRandomiser}. A policy is a list of disjoint character
+ * classes, each class has a minimum and a maximum number of its characters in
+ * a password; a password may contain only the characters of the classes.
+ * </p>
+ * <p>
+ * The excluded characters are removed from all classes before the classes are
+ * checked for overlapping; and the policy can disallow repeated characters, a
+ * character can then be used at most once in a password.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public final class PasswordPolicy {
+
+    /**
+     * Compiles a password policy.
+     *
+     * @param descriptor the descriptor of the policy, used for display only
+     * @param classes the character classes
+     * @param minimums the minimum number of characters of each class
+     * @param maximums the maximum number of characters of each class,
+     *                 {@code Integer.MAX_VALUE} for no maximum
+     * @param excluded the characters excluded from all classes
+     * @param unique disallow repeated characters
+     * @return the compiled password policy
+     * @throws IllegalArgumentException
+     *         if the numbers of classes, minimums and maximums are not the
+     *         same; or any minimum is negative or greater than its maximum; or
+     *         the classes overlap; or a class cannot satisfy its minimum
+     * @throws NullPointerException
+     *         if any argument is {@code null}
+     */
+    public static PasswordPolicy compile(String descriptor, List<CharacterSet> classes, int[] minimums, int[] maximums, CharacterSet excluded, boolean unique) {
+        Objects.requireNonNull(descriptor, "descriptor == null");
+        Objects.requireNonNull(classes, "classes == null");
+        Objects.requireNonNull(minimums, "minimums == null");
+        Objects.requireNonNull(maximums, "maximums == null");
+        Objects.requireNonNull(excluded, "excluded == null");
+        if (classes.isEmpty()) {
+            throw new IllegalArgumentException("empty policy");
+        }
+        if (classes.size() != minimums.length || classes.size() != maximums.length) {
+            throw new IllegalArgumentException("classes.size() != minimums.length || classes.size() != maximums.length");
+        }
+        CharacterSet[] sets = new CharacterSet[classes.size()];
+        int[] max = maximums.clone();
+        for (int i = 0; i < sets.length; i++) {
+            sets[i] = Objects.requireNonNull(classes.get(i), "class == null").difference(excluded);
+            if (minimums[i] < 0 || minimums[i] > max[i]) {
+                throw new IllegalArgumentException(String.format("invalid bounds: %d..%d, of class: %s", minimums[i], max[i], sets[i]));
+            }
+            if (unique) {
+                // a class of n characters has at most n distinct characters
+                max[i] = Math.min(max[i], sets[i].size());
+            }
+            if (minimums[i] > (sets[i].isEmpty() ? 0 : max[i])) {
+                throw new IllegalArgumentException(String.format("unsatisfiable minimum: %d, of class: %s", minimums[i], sets[i]));
+            }
+            for (int j = 0; j < i; j++) {
+                if (!sets[i].intersect(sets[j]).isEmpty()) {
+                    throw new IllegalArgumentException(String.format("overlapping classes: %s, %s", sets[j], sets[i]));
+                }
+            }
+        }
+        return new PasswordPolicy(descriptor, sets, minimums.clone(), max, unique);
+    }
+
+    /**
+     * Creates a compiled password policy.
+     *
+     * @param descriptor the descriptor of the policy
+     * @param classes the disjoint character classes
+     * @param minimums the minimum number of characters of each class
+     * @param maximums the maximum number of characters of each class
+     * @param unique disallow repeated characters
+     */
+    private PasswordPolicy(String descriptor, CharacterSet[] classes, int[] minimums, int[] maximums, boolean unique) {
+        this.descriptor = descriptor;
+        this.classes = classes;
+        this.minimums = minimums;
+        this.maximums = maximums;
+        this.unique = unique;
+    }
+
+    /** The descriptor of the policy. */
+    private final String         descriptor;
+    /** The disjoint character classes. */
+    private final CharacterSet[] classes;
+    /** The minimum number of characters of each class. */
+    private final int[]          minimums;
+    /** The maximum number of characters of each class. */
+    private final int[]          maximums;
+    /** Disallow repeated characters. */
+    private final boolean        unique;
+
+    /**
+     * Returns the number of character classes.
+     *
+     * @return the number of character classes
+     */
+    public int classes() {
+        return this.classes.length;
+    }
+
+    /**
+     * Returns the character class at the index, the excluded characters have
+     * been removed from the class.
+     *
+     * @param index the index of the class
+     * @return the character class
+     * @throws IndexOutOfBoundsException
+     *         if the index is out of range
+     */
+    public CharacterSet get(int index) {
+        return this.classes[index];
+    }
+
+    /**
+     * Returns the minimum number of characters of the class at the index.
+     *
+     * @param index the index of the class
+     * @return the minimum number of characters of the class
+     * @throws IndexOutOfBoundsException
+     *         if the index is out of range
+     */
+    public int minimum(int index) {
+        return this.minimums[index];
+    }
+
+    /**
+     * Returns the maximum number of characters of the class at the index, the
+     * maximum of a class never exceeds its size if repeated characters are
+     * disallowed.
+     *
+     * @param index the index of the class
+     * @return the maximum number of characters of the class;
+     *         {@code Integer.MAX_VALUE} for no maximum
+     * @throws IndexOutOfBoundsException
+     *         if the index is out of range
+     */
+    public int maximum(int index) {
+        return this.maximums[index];
+    }
+
+    /**
+     * Returns {@code true} if repeated characters are disallowed.
+     *
+     * @return {@code true} if repeated characters are disallowed; or
+     *         {@code false} otherwise
+     */
+    public boolean unique() {
+        return this.unique;
+    }
+
+    /**
+     * Returns the descriptor of this policy.
+     *
+     * @return the descriptor of this policy
+     */
+    public String descriptor() {
+        return this.descriptor;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof PasswordPolicy)) {
+            return false;
+        }
+        PasswordPolicy other = (PasswordPolicy) object;
+        return this.unique == other.unique && Arrays.equals(this.classes, other.classes)
+            && Arrays.equals(this.minimums, other.minimums) && Arrays.equals(this.maximums, other.maximums);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(Arrays.hashCode(this.classes), Arrays.hashCode(this.minimums), Arrays.hashCode(this.maximums), this.unique);
+    }
+
+    @Override
+    public String toString() {
+        return "rst/PasswordPolicy:" + this.descriptor;
+    }
+
+}
@@ -0,0 +1,396 @@
+package org.pgstyle.rst2.random;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Objects;
+
+import org.pgstyle.rst2.security.RandomInputStream;
+import org.pgstyle.rst2.security.Randomiser;
+import org.pgstyle.rst2.security.SecureRandomInputStream;
+
+/**
+ * <p>
+ * The {@code PasswordRandomiser} generates passwords of a fixed length which
+ * satisfy a {@link PasswordPolicy} by construction, every valid password is
+ * generated with even probability and no password is generated then
+ * rejected.
+ * </p>
+ * <p>
+ * A password is generated in three steps:
+ * </p>
+ * <ol>
+ * <li>draw the number of characters of each class, a combination of counts is
+ * drawn in proportion to the number of valid passwords having these counts
+ * (multinomial coefficient times the choices of characters of each
+ * class);</li>
+ * <li>place the class of each position by shuffling the counted classes;</li>
+ * <li>draw a character of the class of each position, without replacement if
+ * repeated characters are disallowed.</li>
+ * </ol>
+ * <p>
+ * The number of valid passwords is exact ({@code BigInteger}) and counted once
+ * on creation, the counts of a password are decoded from a single uniform
+ * number below that total. The counting grows faster than quadratically with
+ * the length, the length of a password is limited to {@link #MAX_LENGTH}.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public final class PasswordRandomiser extends Randomiser implements RecordRandomiser, SampledRandomiser {
+
+    /** The maximum length of a password in characters. */
+    public static final int MAX_LENGTH = 512;
+
+    /**
+     * Creates an instance of {@code PasswordRandomiser} with a given policy,
+     * password length and a random seed automatically generated by the
+     * {@code pglj/rst2} library.
+     *
+     * @param policy the password policy
+     * @param length the length of password in characters
+     * @return an instance of {@code PasswordRandomiser}
+     * @throws IllegalArgumentException
+     *         if no password of the length satisfies the policy
+     * @throws NullPointerException
+     *         if the argument {@code policy} is {@code null}
+     */
+    public static PasswordRandomiser getInstance(PasswordPolicy policy, int length) {
+        return PasswordRandomiser.getInstance(policy, length, RandomUtils.randomLongSeed());
+    }
+
+    /**
+     * Creates an instance of {@code PasswordRandomiser} with a given policy,
+     * password length and seed.
+     *
+     * @param policy the password policy
+     * @param length the length of password in characters
+     * @param seed the seed for the randomiser
+     * @return an instance of {@code PasswordRandomiser}
+     * @throws IllegalArgumentException
+     *         if no password of the length satisfies the policy
+     * @throws NullPointerException
+     *         if the argument {@code policy} is {@code null}
+     */
+    public static PasswordRandomiser getInstance(PasswordPolicy policy, int length, long seed) {
+        return new PasswordRandomiser(policy, length, new RandomInputStream(seed));
+    }
+
+    /**
+     * Creates an instance of {@code PasswordRandomiser} with a given policy,
+     * password length and seed. The seed will ultimately be casted into
+     * {@code long} for seeding the randomiser by using the methods
+     * {@link RandomUtils#toLongSeed(String)}.
+     *
+     * @param policy the password policy
+     * @param length the length of password in characters
+     * @param seed the seed for the randomiser
+     * @return an instance of {@code PasswordRandomiser}
+     * @throws IllegalArgumentException
+     *         if no password of the length satisfies the policy
+     * @throws NullPointerException
+     *         if the argument {@code policy} or {@code seed} is {@code null}
+     */
+    public static PasswordRandomiser getInstance(PasswordPolicy policy, int length, String seed) {
+        return PasswordRandomiser.getInstance(policy, length, RandomUtils.toLongSeed(seed));
+    }
+
+    /**
+     * Creates a secured instance of {@code PasswordRandomiser} with a given
+     * policy, password length and a random seed automatically generated by
+     * the {@code pglj/rst2} library.
+     *
+     * @param policy the password policy
+     * @param length the length of password in characters
+     * @return an instance of {@code PasswordRandomiser}
+     * @throws IllegalArgumentException
+     *         if no password of the length satisfies the policy
+     * @throws NullPointerException
+     *         if the argument {@code policy} is {@code null}
+     */
+    public static PasswordRandomiser getInstanceSecure(PasswordPolicy policy, int length) {
+        return PasswordRandomiser.getInstanceSecure(policy, length, RandomUtils.randomBytesSeed());
+    }
+
+    /**
+     * Creates a secured instance of {@code PasswordRandomiser} with a given
+     * policy, password length and seed.
+     *
+     * @param policy the password policy
+     * @param length the length of password in characters
+     * @param seed the seed for the randomiser
+     * @return an instance of {@code PasswordRandomiser}
+     * @throws IllegalArgumentException
+     *         if no password of the length satisfies the policy
+     * @throws NullPointerException
+     *         if the argument {@code policy} or {@code seed} is {@code null}
+     */
+    public static PasswordRandomiser getInstanceSecure(PasswordPolicy policy, int length, byte[] seed) {
+        return new PasswordRandomiser(policy, length, new SecureRandomInputStream(seed));
+    }
+
+    /**
+     * Creates a secured instance of {@code PasswordRandomiser} with a given
+     * policy, password length and seed. The seed will ultimately be casted
+     * into {@code byte[]} for seeding the randomiser by using the methods
+     * {@link RandomUtils#toBytesSeed(String)}.
+     *
+     * @param policy the password policy
+     * @param length the length of password in characters
+     * @param seed the seed for the randomiser
+     * @return an instance of {@code PasswordRandomiser}
+     * @throws IllegalArgumentException
+     *         if no password of the length satisfies the policy
+     * @throws NullPointerException
+     *         if the argument {@code policy} or {@code seed} is {@code null}
+     */
+    public static PasswordRandomiser getInstanceSecure(PasswordPolicy policy, int length, String seed) {
+        return PasswordRandomiser.getInstanceSecure(policy, length, RandomUtils.toBytesSeed(seed));
+    }
+
+    /**
+     * Initialises the randomiser with a given policy, password length and
+     * random input stream.
+     *
+     * @param policy the password policy
+     * @param length the length of password in characters
+     * @param randomStream the random stream for generating data
+     * @throws IllegalArgumentException
+     *         if the length is negative or exceeds {@link #MAX_LENGTH}; or no
+     *         password of the length satisfies the policy
+     * @throws NullPointerException
+     *         if the argument {@code policy} or {@code randomStream} is
+     *         {@code null}
+     */
+    public PasswordRandomiser(PasswordPolicy policy, int length, RandomInputStream randomStream) {
+        super(randomStream);
+        Objects.requireNonNull(policy, "policy == null");
+        if (length < 0) {
+            throw new IllegalArgumentException("length < 0");
+        }
+        if (length > PasswordRandomiser.MAX_LENGTH) {
+            throw new IllegalArgumentException("length > " + PasswordRandomiser.MAX_LENGTH);
+        }
+        this.policy = policy;
+        this.length = length;
+        int classes = policy.classes();
+        this.samplers = new CompiledWeights[classes];
+        this.choices = new BigInteger[classes][];
+        int width = 0;
+        for (int i = 0; i < classes; i++) {
+            CharacterSet set = policy.get(i);
+            if (!set.isEmpty()) {
+                this.samplers[i] = CompiledWeights.compileSets(set.toString(), Collections.singletonMap(set, 1));
+                width = Math.max(width, this.samplers[i].width());
+            }
+            // choices of c characters of the class in c positions
+            this.choices[i] = new BigInteger[length + 1];
+            this.choices[i][0] = BigInteger.ONE;
+            for (int c = 1; c <= length; c++) {
+                long n = policy.unique() ? set.size() - c + 1L : set.size();
+                this.choices[i][c] = this.choices[i][c - 1].multiply(BigInteger.valueOf(Math.max(n, 0)));
+            }
+        }
+        // passwords[i][r]: number of valid passwords of r characters of the
+        // classes from i onwards
+        this.passwords = new BigInteger[classes + 1][length + 1];
+        Arrays.fill(this.passwords[classes], BigInteger.ZERO);
+        this.passwords[classes][0] = BigInteger.ONE;
+        for (int i = classes - 1; i >= 0; i--) {
+            for (int r = 0; r <= length; r++) {
+                BigInteger total = BigInteger.ZERO;
+                BigInteger binomial = BigInteger.ONE;
+                for (int c = 0; c <= Math.min(policy.maximum(i), r); c++) {
+                    if (c > 0) {
+                        binomial = binomial.multiply(BigInteger.valueOf(r - c + 1L)).divide(BigInteger.valueOf(c));
+                    }
+                    if (c >= policy.minimum(i)) {
+                        total = total.add(binomial.multiply(this.choices[i][c]).multiply(this.passwords[i + 1][r - c]));
+                    }
+                }
+                this.passwords[i][r] = total;
+            }
+        }
+        if (this.passwords[0][length].signum() == 0) {
+            throw new IllegalArgumentException(String.format("unsatisfiable policy for length: %d, policy: %s", length, policy.descriptor()));
+        }
+        this.recordSize = StrictMath.multiplyExact(length, width);
+        this.sampler = new UniformSampler(this.getBitSource());
+    }
+
+    private final PasswordPolicy    policy;
+    private final int               length;
+    private final int               recordSize;
+    /** The sampler of each class; {@code null} if the class is empty. */
+    private final CompiledWeights[] samplers;
+    /** The choices of characters of each class for each count. */
+    private final BigInteger[][]    choices;
+    /** The number of valid passwords by the first class and length. */
+    private final BigInteger[][]    passwords;
+    private final UniformSampler    sampler;
+
+    /**
+     * Returns the number of valid passwords of the policy and length.
+     *
+     * @return the number of valid passwords
+     */
+    public BigInteger passwords() {
+        return this.passwords[0][this.length];
+    }
+
+    @Override
+    public UniformSampler sampler() {
+        return this.sampler;
+    }
+
+    @Override
+    public int recordSize() {
+        return this.recordSize;
+    }
+
+    @Override
+    public int record(byte[] buffer, int offset) {
+        int[] counts = this.counts();
+        // place the class of each position by shuffling the counted classes
+        int[] layout = new int[this.length];
+        for (int i = 0, p = 0; i < counts.length; i++) {
+            Arrays.fill(layout, p, p += counts[i], i);
+        }
+        for (int i = this.length - 1; i > 0; i--) {
+            int j = this.getPointer(i + 1);
+            int swap = layout[i];
+            layout[i] = layout[j];
+            layout[j] = swap;
+        }
+        if (this.policy.unique()) {
+            // draw without replacement, the ascending drawn indices of each
+            // class are skipped over by the later draws
+            int[][] drawn = new int[counts.length][];
+            int[] used = new int[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                drawn[i] = new int[counts[i]];
+            }
+            for (int position : layout) {
+                int[] indices = drawn[position];
+                int index = this.getPointer(this.samplers[position].total() - used[position]);
+                int k = 0;
+                for (; k < used[position] && indices[k] <= index; k++) {
+                    index++;
+                }
+                System.arraycopy(indices, k, indices, k + 1, used[position] - k);
+                indices[k] = index;
+                used[position]++;
+                offset = this.samplers[position].encode(index, buffer, offset);
+            }
+        }
+        else {
+            for (int position : layout) {
+                offset = this.samplers[position].encode(this.getPointer(this.samplers[position].total()), buffer, offset);
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Draws the number of characters of each class, a combination of counts
+     * is drawn in proportion to the number of valid passwords having these
+     * counts.
+     *
+     * @return the number of characters of each class
+     */
+    private int[] counts() {
+        int classes = this.policy.classes();
+        int[] counts = new int[classes];
+        BigInteger pointer = this.getPointer(this.passwords[0][this.length]);
+        int remain = this.length;
+        for (int i = 0; i < classes - 1; i++) {
+            BigInteger binomial = BigInteger.ONE;
+            for (int c = 0;; c++) {
+                if (c > 0) {
+                    binomial = binomial.multiply(BigInteger.valueOf(remain - c + 1L)).divide(BigInteger.valueOf(c));
+                }
+                if (c < this.policy.minimum(i)) {
+                    continue;
+                }
+                BigInteger passwords = binomial.multiply(this.choices[i][c]);
+                BigInteger weight = passwords.multiply(this.passwords[i + 1][remain - c]);
+                if (pointer.compareTo(weight) < 0) {
+                    // the quotient is uniform below the passwords of the
+                    // remaining classes and is reused for the next class
+                    pointer = pointer.divide(passwords);
+                    counts[i] = c;
+                    remain -= c;
+                    break;
+                }
+                pointer = pointer.subtract(weight);
+            }
+        }
+        counts[classes - 1] = remain;
+        return counts;
+    }
+
+    /**
+     * Generates {@code length} amount of passwords, the passwords are
+     * concatenated without separator.
+     *
+     * @param length the number of passwords
+     * @return the UTF-8 bytes of the generated passwords
+     */
+    @Override
+    public byte[] generate(int length) {
+        long start = this.getMetrics().start();
+        // a negative length generates nothing, as the other randomisers
+        int count = Math.max(0, length);
+        byte[] bytes = new byte[StrictMath.multiplyExact(count, this.recordSize)];
+        int offset = 0;
+        for (int i = 0; i < count; i++) {
+            offset = this.record(bytes, offset);
+        }
+        this.getMetrics().record(start, offset, (long) count * this.length);
+        return Arrays.copyOf(bytes, offset);
+    }
+
+    /**
+     * Generates a password.
+     *
+     * @return the generated password
+     */
+    public String generateString() {
+        return new String(this.generate(1), StandardCharsets.UTF_8);
+    }
+
+    private int getPointer(int bound) {
+        return this.sampler.next(bound);
+    }
+
+    /**
+     * Returns an exactly uniform number below the bound.
+     *
+     * @param bound the exclusive upper bound
+     * @return a uniform number below the bound
+     */
+    private BigInteger getPointer(BigInteger bound) {
+        int bits = bound.subtract(BigInteger.ONE).bitLength();
+        byte[] bytes = new byte[(bits + 7) >> 3];
+        while (true) {
+            // draw bits of the bound and redraw if not below the bound, at
+            // least half of the draws are accepted
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) this.sampler.next(1 << (i == 0 ? bits - (bytes.length - 1 << 3) : 8));
+            }
+            BigInteger pointer = new BigInteger(1, bytes);
+            if (pointer.compareTo(bound) < 0) {
+                return pointer;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rst/PasswordRandomiser:%d/%s$%s", this.length, this.policy.descriptor(), this.getRandomStream());
+    }
+
+}
@@ -6,6 +6,9 @@ import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Objects;
 
+import org.pgstyle.rst2.metrics.RstEvents;
+import org.pgstyle.rst2.metrics.RstMetrics;
+
 /**
  * The {@code RandomUtils} provides utility methods for using randomiser.
  *
@@ -37,21 +40,39 @@ public final class RandomUtils {
 
     /**
      * Randomly generates a 64 bits long array of bytes for seeding a
-     * randomiser.
+     * randomiser. This method is thread-safe.
      *
      * @return a randomly generated bytes seed
      */
     public static byte[] randomBytesSeed() {
-        return RandomUtils.RNG.generate(64);
+        Object event = RstEvents.beginSeedDerivation();
+        long start = System.nanoTime();
+        byte[] seed;
+        // the randomiser and its bit source are not thread-safe
+        synchronized (RandomUtils.RNG) {
+            seed = RandomUtils.RNG.generate(64);
+        }
+        RstMetrics.engine().seedDerivation(start);
+        RstEvents.endSeedDerivation(event, "random", seed.length);
+        return seed;
     }
 
     /**
-     * Randomly generates a long integer for seeding a randomiser.
+     * Randomly generates a long integer for seeding a randomiser. This method
+     * is thread-safe.
      *
      * @return a randomly generated long integer seed
      */
     public static long randomLongSeed() {
-        return RandomUtils.RNG.generateLong();
+        Object event = RstEvents.beginSeedDerivation();
+        long start = System.nanoTime();
+        long seed;
+        synchronized (RandomUtils.RNG) {
+            seed = RandomUtils.RNG.generateLong();
+        }
+        RstMetrics.engine().seedDerivation(start);
+        RstEvents.endSeedDerivation(event, "random", Long.BYTES);
+        return seed;
     }
 
     /**
@@ -83,12 +104,16 @@ public final class RandomUtils {
      */
     public static byte[] toBytesSeed(String seed) {
         Objects.requireNonNull(seed, "seed == null");
+        Object event = RstEvents.beginSeedDerivation();
+        long start = System.nanoTime();
         byte[] bytes;
         synchronized (RandomUtils.HASH) {
             RandomUtils.HASH.reset();
             bytes = RandomUtils.HASH.digest(seed.getBytes(StandardCharsets.UTF_16BE));
             RandomUtils.HASH.reset();
         }
+        RstMetrics.engine().seedDerivation(start);
+        RstEvents.endSeedDerivation(event, "string", bytes.length);
         return bytes;
     }
 
@@ -0,0 +1,40 @@
+package org.pgstyle.rst2.random;
+
+/**
+ * <p>
+ * The {@code RecordRandomiser} is implemented by randomisers which generate
+ * records. A record is a self-contained random string generated as a whole,
+ * like a formatted identifier; a record can not be cut into steps nor be
+ * wrapped into lines.
+ * </p>
+ * <p>
+ * Records are written as UTF-8 bytes into a caller provided buffer, a bulk
+ * generation can therefore fill a single buffer with many records without
+ * creating any intermediate string or array.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public interface RecordRandomiser {
+
+    /**
+     * Returns the maximum number of UTF-8 bytes of a record.
+     *
+     * @return the maximum number of bytes of a record
+     */
+    int recordSize();
+
+    /**
+     * Generates a record and writes its UTF-8 bytes into the buffer. The
+     * buffer must have at least {@link #recordSize()} bytes available at the
+     * offset.
+     *
+     * @param buffer the buffer to be written
+     * @param offset the offset of the buffer to be written at
+     * @return the offset after the written record
+     */
+    int record(byte[] buffer, int offset);
+
+}
@@ -0,0 +1,24 @@
+package org.pgstyle.rst2.random;
+
+/**
+ * <p>
+ * The {@code SampledRandomiser} is implemented by randomisers which draw their
+ * characters with a {@link UniformSampler}. The sampler keeps the counters of
+ * the characters drawn and the random bits consumed, the entropy spent per
+ * character of a randomiser can then be read from its sampler.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public interface SampledRandomiser {
+
+    /**
+     * Returns the uniform sampler of this randomiser.
+     *
+     * @return the uniform sampler
+     */
+    UniformSampler sampler();
+
+}
@@ -0,0 +1,474 @@
+package org.pgstyle.rst2.random;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.pgstyle.rst2.metrics.RstMetrics;
+import org.pgstyle.rst2.security.RandomInputStream;
+import org.pgstyle.rst2.security.Randomiser;
+import org.pgstyle.rst2.security.SecureRandomInputStream;
+
+/**
+ * <p>
+ * The {@code TemplateRandomiser} generates records formatted by a template,
+ * e.g. {@code [A-Z]{3}-[0-9]{4}-[a-z0-9]{8}} generates records like
+ * {@code QXF-0271-k3m9x0ab}.
+ * </p>
+ * <p>
+ * A template is a sequence of items, an item is either a literal character or
+ * a character class; and an item can be followed by a quantifier.
+ * </p>
+ * <ul>
+ * <li>{@code x} - a literal character, the characters {@code \[]{}} must be
+ * escaped with a backward slash ({@code \}) to be literal</li>
+ * <li>{@code [a-z_]} - a character class, generates one character of the
+ * class with even probability; a class contains characters and ranges
+ * ({@code a-z}), a {@code -} at the start or end of a class is literal, and
+ * the characters {@code \]-} can be escaped</li>
+ * <li>{@code {n}} - repeats the previous item {@code n} times</li>
+ * <li>{@code {m,n}} - repeats the previous item randomly from {@code m} to
+ * {@code n} times</li>
+ * </ul>
+ * <p>
+ * The template is compiled once into a flat program of literal segments and
+ * character class samplers ({@link CompiledWeights}), the generation runs
+ * through the program without backtracking.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public final class TemplateRandomiser extends Randomiser implements RecordRandomiser, SampledRandomiser {
+
+    /**
+     * Creates an instance of {@code TemplateRandomiser} with a given template
+     * and a random seed automatically generated by the {@code pglj/rst2}
+     * library.
+     *
+     * @param template the template
+     * @return an instance of {@code TemplateRandomiser}
+     * @throws IllegalArgumentException
+     *         if the template contains syntax error
+     * @throws NullPointerException
+     *         if the argument {@code template} is {@code null}
+     */
+    public static TemplateRandomiser getInstance(String template) {
+        return TemplateRandomiser.getInstance(template, RandomUtils.randomLongSeed());
+    }
+
+    /**
+     * Creates an instance of {@code TemplateRandomiser} with a given template
+     * and seed.
+     *
+     * @param template the template
+     * @param seed the seed for the randomiser
+     * @return an instance of {@code TemplateRandomiser}
+     * @throws IllegalArgumentException
+     *         if the template contains syntax error
+     * @throws NullPointerException
+     *         if the argument {@code template} is {@code null}
+     */
+    public static TemplateRandomiser getInstance(String template, long seed) {
+        return new TemplateRandomiser(template, new RandomInputStream(seed));
+    }
+
+    /**
+     * Creates an instance of {@code TemplateRandomiser} with a given template
+     * and seed. The seed will ultimately be casted into {@code long} for
+     * seeding the randomiser by using the methods
+     * {@link RandomUtils#toLongSeed(String)}.
+     *
+     * @param template the template
+     * @param seed the seed for the randomiser
+     * @return an instance of {@code TemplateRandomiser}
+     * @throws IllegalArgumentException
+     *         if the template contains syntax error
+     * @throws NullPointerException
+     *         if the argument {@code template} or {@code seed} is
+     *         {@code null}
+     */
+    public static TemplateRandomiser getInstance(String template, String seed) {
+        return TemplateRandomiser.getInstance(template, RandomUtils.toLongSeed(seed));
+    }
+
+    /**
+     * Creates a secured instance of {@code TemplateRandomiser} with a given
+     * template and a random seed automatically generated by the
+     * {@code pglj/rst2} library.
+     *
+     * @param template the template
+     * @return an instance of {@code TemplateRandomiser}
+     * @throws IllegalArgumentException
+     *         if the template contains syntax error
+     * @throws NullPointerException
+     *         if the argument {@code template} is {@code null}
+     */
+    public static TemplateRandomiser getInstanceSecure(String template) {
+        return TemplateRandomiser.getInstanceSecure(template, RandomUtils.randomBytesSeed());
+    }
+
+    /**
+     * Creates a secured instance of {@code TemplateRandomiser} with a given
+     * template and seed.
+     *
+     * @param template the template
+     * @param seed the seed for the randomiser
+     * @return an instance of {@code TemplateRandomiser}
+     * @throws IllegalArgumentException
+     *         if the template contains syntax error
+     * @throws NullPointerException
+     *         if the argument {@code template} or {@code seed} is
+     *         {@code null}
+     */
+    public static TemplateRandomiser getInstanceSecure(String template, byte[] seed) {
+        return new TemplateRandomiser(template, new SecureRandomInputStream(seed));
+    }
+
+    /**
+     * Creates a secured instance of {@code TemplateRandomiser} with a given
+     * template and seed. The seed will ultimately be casted into
+     * {@code byte[]} for seeding the randomiser by using the methods
+     * {@link RandomUtils#toBytesSeed(String)}.
+     *
+     * @param template the template
+     * @param seed the seed for the randomiser
+     * @return an instance of {@code TemplateRandomiser}
+     * @throws IllegalArgumentException
+     *         if the template contains syntax error
+     * @throws NullPointerException
+     *         if the argument {@code template} or {@code seed} is
+     *         {@code null}
+     */
+    public static TemplateRandomiser getInstanceSecure(String template, String seed) {
+        return TemplateRandomiser.getInstanceSecure(template, RandomUtils.toBytesSeed(seed));
+    }
+
+    /**
+     * Compiles a template into a program.
+     *
+     * @param template the template
+     * @return the program of the template
+     * @throws IllegalArgumentException
+     *         if the template contains syntax error
+     */
+    private static List<Segment> compile(String template) {
+        List<Segment> program = new ArrayList<>();
+        Map<CharacterSet, CompiledWeights> classes = new HashMap<>();
+        int i = 0;
+        while (i < template.length()) {
+            int column = i;
+            CompiledWeights sampler = null;
+            int literal = template.codePointAt(i);
+            switch (literal) {
+            case '[':
+                int end = TemplateRandomiser.classEnd(template, i);
+                CharacterSet set = TemplateRandomiser.parseClass(template, i + 1, end);
+                if (set.isEmpty()) {
+                    throw new IllegalArgumentException("empty character class at column: " + column);
+                }
+                sampler = classes.computeIfAbsent(set, s -> CompiledWeights.compileSets(template.substring(column, end + 1), Collections.singletonMap(s, 1)));
+                i = end + 1;
+                break;
+            case '\\':
+                if (++i >= template.length()) {
+                    throw new IllegalArgumentException("unexpected encounter of EOS at column: " + i);
+                }
+                literal = template.codePointAt(i);
+                i += Character.charCount(literal);
+                break;
+            case ']':
+            case '{':
+            case '}':
+                throw new IllegalArgumentException(String.format("unexpected control character: '%c', at column: %d", literal, i));
+            default:
+                i += Character.charCount(literal);
+                break;
+            }
+            int min = 1;
+            int max = 1;
+            if (i < template.length() && template.charAt(i) == '{') {
+                int close = template.indexOf('}', i);
+                if (close < 0) {
+                    throw new IllegalArgumentException("unclosed quantifier at column: " + i);
+                }
+                String[] bounds = template.substring(i + 1, close).split(",", -1);
+                try {
+                    min = Integer.parseInt(bounds[0].trim());
+                    max = bounds.length == 1 ? min : Integer.parseInt(bounds[1].trim());
+                }
+                catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("invalid quantifier at column: " + i, e);
+                }
+                if (bounds.length > 2 || min < 0 || max < min) {
+                    throw new IllegalArgumentException("invalid quantifier at column: " + i);
+                }
+                i = close + 1;
+            }
+            TemplateRandomiser.append(program, Objects.isNull(sampler) ? new Segment(literal, min, max) : new Segment(sampler, min, max));
+        }
+        return program;
+    }
+
+    /**
+     * Appends a segment to the program, a literal with fixed repetition is
+     * merged into the previous fixed literal segment.
+     *
+     * @param program the program
+     * @param segment the segment to be appended
+     */
+    private static void append(List<Segment> program, Segment segment) {
+        if (segment.max == 0) {
+            return;
+        }
+        if (!segment.fixedLiteral()) {
+            program.add(segment);
+            return;
+        }
+        Segment last = program.isEmpty() ? null : program.get(program.size() - 1);
+        int offset = Objects.nonNull(last) && last.fixedLiteral() ? last.literal.length : 0;
+        byte[] merged = Arrays.copyOf(offset == 0 ? new byte[0] : last.literal, offset + segment.literal.length * segment.min);
+        for (int i = 0; i < segment.min; i++, offset += segment.literal.length) {
+            System.arraycopy(segment.literal, 0, merged, offset, segment.literal.length);
+        }
+        if (Objects.nonNull(last) && last.fixedLiteral()) {
+            program.set(program.size() - 1, new Segment(merged));
+        }
+        else {
+            program.add(new Segment(merged));
+        }
+    }
+
+    /**
+     * Finds the closing bracket of a character class.
+     *
+     * @param template the template
+     * @param start the index of the opening bracket
+     * @return the index of the closing bracket
+     * @throws IllegalArgumentException
+     *         if the character class is not closed
+     */
+    private static int classEnd(String template, int start) {
+        for (int i = start + 1; i < template.length(); i++) {
+            if (template.charAt(i) == '\\') {
+                i++;
+            }
+            else if (template.charAt(i) == ']') {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("unclosed character class at column: " + start);
+    }
+
+    /**
+     * Parses the content of a character class.
+     *
+     * @param template the template
+     * @param start the starting index of the content
+     * @param end the ending index (exclusive) of the content
+     * @return the set of characters of the character class
+     * @throws IllegalArgumentException
+     *         if the character class contains invalid range
+     */
+    private static CharacterSet parseClass(String template, int start, int end) {
+        List<CharacterSet> sets = new ArrayList<>();
+        for (int i = start; i < end;) {
+            if (template.charAt(i) == '\\') {
+                i++;
+            }
+            int first = template.codePointAt(i);
+            i += Character.charCount(first);
+            if (i + 1 < end && template.charAt(i) == '-') {
+                // ranged characters, a trailing '-' is literal
+                if (template.charAt(++i) == '\\') {
+                    i++;
+                }
+                int last = template.codePointAt(i);
+                i += Character.charCount(last);
+                sets.add(CharacterSet.range(first, last));
+            }
+            else {
+                sets.add(CharacterSet.of(first));
+            }
+        }
+        return CharacterSet.union(sets);
+    }
+
+    /**
+     * Initialises the randomiser with a given template and random input
+     * stream.
+     *
+     * @param template the template
+     * @param randomStream the random stream for generating data
+     * @throws IllegalArgumentException
+     *         if the template contains syntax error
+     * @throws NullPointerException
+     *         if the argument {@code template} or {@code randomStream} is
+     *         {@code null}
+     */
+    public TemplateRandomiser(String template, RandomInputStream randomStream) {
+        super(randomStream);
+        Objects.requireNonNull(template, "template == null");
+        this.template = template;
+        this.program = TemplateRandomiser.compile(template).toArray(new Segment[0]);
+        this.recordSize = Arrays.stream(this.program).mapToInt(Segment::size).reduce(0, StrictMath::addExact);
+        this.sampler = new UniformSampler(this.getBitSource());
+    }
+
+    private final String         template;
+    private final Segment[]      program;
+    private final int            recordSize;
+    private final UniformSampler sampler;
+
+    @Override
+    public UniformSampler sampler() {
+        return this.sampler;
+    }
+
+    @Override
+    public int recordSize() {
+        return this.recordSize;
+    }
+
+    @Override
+    public int record(byte[] buffer, int offset) {
+        for (Segment segment : this.program) {
+            int count = segment.min == segment.max ? segment.min : segment.min + this.getPointer(segment.max - segment.min + 1);
+            if (Objects.isNull(segment.sampler)) {
+                for (int i = 0; i < count; i++) {
+                    System.arraycopy(segment.literal, 0, buffer, offset, segment.literal.length);
+                    offset += segment.literal.length;
+                }
+            }
+            else {
+                for (int i = 0; i < count; i++) {
+                    offset = segment.sampler.encode(this.getPointer(segment.sampler.total()), buffer, offset);
+                }
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Generates {@code length} amount of records, the records are
+     * concatenated without separator.
+     *
+     * @param length the number of records
+     * @return the UTF-8 bytes of the generated records
+     */
+    @Override
+    public byte[] generate(int length) {
+        long start = this.getMetrics().start();
+        // a negative length generates nothing, as the other randomisers
+        int count = Math.max(0, length);
+        byte[] bytes = new byte[StrictMath.multiplyExact(count, this.recordSize)];
+        int offset = 0;
+        for (int i = 0; i < count; i++) {
+            offset = this.record(bytes, offset);
+        }
+        this.getMetrics().record(start, offset, RstMetrics.characters(bytes, 0, offset));
+        return Arrays.copyOf(bytes, offset);
+    }
+
+    /**
+     * Generates a record.
+     *
+     * @return the generated record
+     */
+    public String generateString() {
+        return new String(this.generate(1), StandardCharsets.UTF_8);
+    }
+
+    private int getPointer(int bound) {
+        return this.sampler.next(bound);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rst/TemplateRandomiser:%s$%s", this.template, this.getRandomStream());
+    }
+
+    /**
+     * A segment of the program, either a literal segment or a character class
+     * sampler segment.
+     */
+    private static final class Segment {
+
+        /**
+         * Creates a fixed literal segment.
+         *
+         * @param literal the UTF-8 bytes of the literal
+         */
+        public Segment(byte[] literal) {
+            this.literal = literal;
+            this.sampler = null;
+            this.min = 1;
+            this.max = 1;
+        }
+
+        /**
+         * Creates a repeated literal segment.
+         *
+         * @param literal the code point of the literal
+         * @param min the minimum repetition
+         * @param max the maximum repetition
+         */
+        public Segment(int literal, int min, int max) {
+            this.literal = new String(Character.toChars(literal)).getBytes(StandardCharsets.UTF_8);
+            this.sampler = null;
+            this.min = min;
+            this.max = max;
+        }
+
+        /**
+         * Creates a sampler segment.
+         *
+         * @param sampler the sampler of the character class
+         * @param min the minimum repetition
+         * @param max the maximum repetition
+         */
+        public Segment(CompiledWeights sampler, int min, int max) {
+            this.literal = null;
+            this.sampler = sampler;
+            this.min = min;
+            this.max = max;
+        }
+
+        /** The UTF-8 bytes of the literal; {@code null} if sampler segment. */
+        private final byte[]          literal;
+        /** The sampler of the character class; {@code null} if literal segment. */
+        private final CompiledWeights sampler;
+        /** The minimum repetition. */
+        private final int             min;
+        /** The maximum repetition. */
+        private final int             max;
+
+        /**
+         * Returns {@code true} if this segment is a literal with fixed
+         * repetition.
+         *
+         * @return {@code true} if this segment is a fixed literal; or
+         *         {@code false} otherwise
+         */
+        private boolean fixedLiteral() {
+            return Objects.isNull(this.sampler) && this.min == this.max;
+        }
+
+        /**
+         * Returns the maximum number of UTF-8 bytes of this segment.
+         *
+         * @return the maximum number of bytes of this segment
+         */
+        private int size() {
+            return StrictMath.multiplyExact(this.max, Objects.isNull(this.sampler) ? this.literal.length : this.sampler.width());
+        }
+
+    }
+
+}
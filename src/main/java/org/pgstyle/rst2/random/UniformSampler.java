@@ -0,0 +1,191 @@
+package org.pgstyle.rst2.random;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.pgstyle.rst2.security.BitSource;
+
+/**
+ * <p>
+ * The {@code UniformSampler} draws uniformly distributed integers in the range
+ * of {@code [0, bound)} from a bit source, spending close to
+ * {@code log2(bound)} random bits per integer.
+ * </p>
+ * <p>
+ * A power-of-two bound takes its bits straight from the bit source. Other
+ * bounds are decoded from a uniform value in the range of {@code [0, range)},
+ * the value is topped up byte by byte to keep the range at least
+ * {@code 2^55}. A value below the greatest multiple of the bound in the range
+ * is divided by the bound, the remainder is the integer and the quotient is
+ * kept as a uniform value in the reduced range for the next integers; a rejected value is kept as a uniform value in the range beyond
+ * the multiple. No drawn bit is thrown away, the only loss is the rare
+ * rejection, which happens at a chance below {@code bound / 2^55}.
+ * </p>
+ * <p>
+ * The sampler counts the integers drawn, the bits consumed from the source
+ * and the entropy of the integers; the bits per integer of
+ * {@link #consumed()} against {@link #entropy()} shows the efficiency of the
+ * sampling. A {@code UniformSampler} is not thread-safe.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public final class UniformSampler {
+
+    /** The minimum range of the value before an integer is decoded. */
+    private static final long RANGE = 1L << 55;
+
+    /**
+     * Creates a sampler drawing from the bit source.
+     *
+     * @param source the bit source
+     * @throws NullPointerException
+     *         if the argument {@code source} is {@code null}
+     */
+    public UniformSampler(BitSource source) {
+        Objects.requireNonNull(source, "source == null");
+        this.source = source;
+        this.epoch = source.epoch();
+        this.range = 1;
+    }
+
+    private final BitSource source;
+    /** The epoch of the source of the value. */
+    private int             epoch;
+    /** The uniform value in the range of {@code [0, range)}. */
+    private long            value;
+    /** The exclusive upper bound of the value. */
+    private long            range;
+    /** The number of integers drawn. */
+    private long            symbols;
+    /** The number of bits drawn from the source. */
+    private long            consumed;
+    /** The entropy of the integers drawn in bits. */
+    private double          entropy;
+    /** The bound of the last integer. */
+    private int             lastBound;
+    /** The entropy of an integer of the last bound in bits. */
+    private double          lastEntropy;
+
+    /**
+     * Draws a uniformly distributed integer in the range of
+     * {@code [0, bound)}.
+     *
+     * @param bound the exclusive upper bound
+     * @return a uniformly distributed integer in the range of
+     *         {@code [0, bound)}
+     * @throws IllegalArgumentException
+     *         if the bound is not positive
+     */
+    public int next(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound <= 0: " + bound);
+        }
+        this.symbols++;
+        if (bound != this.lastBound) {
+            this.lastBound = bound;
+            this.lastEntropy = Math.log(bound) / Math.log(2);
+        }
+        this.entropy += this.lastEntropy;
+        if (this.epoch != this.source.epoch()) {
+            // the source is reset, the value is discarded with it
+            this.epoch = this.source.epoch();
+            this.value = 0;
+            this.range = 1;
+        }
+        if ((bound & bound - 1) == 0) {
+            return (int) this.bits(Integer.numberOfTrailingZeros(bound));
+        }
+        while (true) {
+            while (this.range < UniformSampler.RANGE) {
+                this.value = this.value << 8 | this.bits(8);
+                this.range <<= 8;
+            }
+            long limit = this.range - this.range % bound;
+            if (this.value < limit) {
+                int symbol = (int) (this.value % bound);
+                this.value /= bound;
+                this.range = limit / bound;
+                return symbol;
+            }
+            this.value -= limit;
+            this.range -= limit;
+        }
+    }
+
+    /**
+     * Draws random bits from the source.
+     *
+     * @param count the number of bits
+     * @return the random bits in the lowest bits
+     */
+    private long bits(int count) {
+        this.consumed += count;
+        return this.source.bits(count);
+    }
+
+    /**
+     * Takes a checkpoint of the decoding value of this sampler, the
+     * checkpoint of the bit source must be taken together.
+     *
+     * @return the checkpoint of the decoding value
+     */
+    public long[] checkpoint() {
+        return new long[] {this.value, this.range};
+    }
+
+    /**
+     * Restores a checkpoint of the decoding value of this sampler.
+     *
+     * @param checkpoint the checkpoint of the decoding value
+     * @throws IllegalArgumentException
+     *         if the checkpoint is malformed
+     * @see #checkpoint()
+     */
+    public void restore(long[] checkpoint) {
+        if (checkpoint.length != 2 || checkpoint[1] <= 0 || checkpoint[0] < 0 || checkpoint[0] >= checkpoint[1]) {
+            throw new IllegalArgumentException("malformed checkpoint: " + Arrays.toString(checkpoint));
+        }
+        this.epoch = this.source.epoch();
+        this.value = checkpoint[0];
+        this.range = checkpoint[1];
+    }
+
+    /**
+     * Returns the number of integers drawn.
+     *
+     * @return the number of integers drawn
+     */
+    public long symbols() {
+        return this.symbols;
+    }
+
+    /**
+     * Returns the number of random bits consumed from the source, the bits
+     * held in the decoding value are counted as consumed.
+     *
+     * @return the number of random bits consumed
+     */
+    public long consumed() {
+        return this.consumed;
+    }
+
+    /**
+     * Returns the entropy of the integers drawn in bits, which is the sum of
+     * {@code log2(bound)} of the integers; the minimum number of random bits
+     * needed to draw the integers.
+     *
+     * @return the entropy of the integers drawn in bits
+     */
+    public double entropy() {
+        return this.entropy;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rst/UniformSampler:%d/%d/%.1f", this.symbols, this.consumed(), this.entropy);
+    }
+
+}
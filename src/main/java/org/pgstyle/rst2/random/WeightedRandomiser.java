@@ -1,13 +1,9 @@
 package org.pgstyle.rst2.random;
 
-import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.LinkedHashMap;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
-import java.util.TreeSet;
-import java.util.stream.Collectors;
 
 import org.pgstyle.rst2.security.RandomInputStream;
 import org.pgstyle.rst2.security.Randomiser;
@@ -25,7 +21,7 @@ import org.pgstyle.rst2.security.SecureRandomInputStream;
  * @version rst-2.0
  * @author PGKan
  */
-public final class WeightedRandomiser extends Randomiser {
+public final class WeightedRandomiser extends Randomiser implements SampledRandomiser {
 
     /**
      * <p>
@@ -189,38 +185,99 @@ public final class WeightedRandomiser extends Randomiser {
         return WeightedRandomiser.getInstanceSecure(weights, RandomUtils.toBytesSeed(seed));
     }
 
-    private static Map<Integer, Character> compile(Map<String, Integer> weights) {
-        Objects.requireNonNull(weights, "weights == null");
-        if (weights.isEmpty()) {
-            throw new IllegalArgumentException("empty weight");
-        }
-        Map<Integer, Character> compiled = new LinkedHashMap<>();
-        int current = 0;
-        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
-            for (char c : entry.getKey().toCharArray()) {
-                if (entry.getValue() == 0) {
-                    continue;
-                }
-                try {
-                    current = StrictMath.addExact(current, entry.getValue());
-                }
-                catch (ArithmeticException e) {
-                    throw new IllegalArgumentException("weight exceeds capability of randomiser", e);
-                }
-                compiled.put(current, c);
-            }
-        }
-        return compiled;
+    /**
+     * Creates an instance of {@code WeightedRandomiser} with compiled weights
+     * and a random seed automatically generated by the {@code pglj/rst2}
+     * library. Creating a randomiser from compiled weights does not compile
+     * the weight map again.
+     *
+     * @param weights the compiled weights
+     * @return an instance of {@code WeightedRandomiser}
+     * @throws NullPointerException
+     *         if the argument {@code weights} is {@code null}
+     * @see CompiledWeights
+     */
+    public static WeightedRandomiser getInstance(CompiledWeights weights) {
+        return WeightedRandomiser.getInstance(weights, RandomUtils.randomLongSeed());
     }
 
-    private static String summarise(Map<Integer, Character> weights) {
-        Set<Character> compiled = new TreeSet<>();
-        weights.forEach((i, c) -> compiled.add(c));
-        return compiled.stream().map(String::valueOf).collect(Collectors.joining());
+    /**
+     * Creates an instance of {@code WeightedRandomiser} with compiled weights
+     * and seed.
+     *
+     * @param weights the compiled weights
+     * @param seed the seed for the randomiser
+     * @return an instance of {@code WeightedRandomiser}
+     * @throws NullPointerException
+     *         if the argument {@code weights} is {@code null}
+     * @see #getInstance(CompiledWeights)
+     */
+    public static WeightedRandomiser getInstance(CompiledWeights weights, long seed) {
+        return new WeightedRandomiser(weights, new RandomInputStream(seed));
     }
 
-    private static int total(Map<Integer, Character> weights) {
-        return weights.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+    /**
+     * Creates an instance of {@code WeightedRandomiser} with compiled weights
+     * and seed. The seed will ultimately be casted into {@code long} for
+     * seeding the randomiser by using the methods
+     * {@link RandomUtils#toLongSeed(String)}.
+     *
+     * @param weights the compiled weights
+     * @param seed the seed for the randomiser
+     * @return an instance of {@code WeightedRandomiser}
+     * @throws NullPointerException
+     *         if the argument {@code weights} or {@code seed} is {@code null}
+     * @see #getInstance(CompiledWeights)
+     */
+    public static WeightedRandomiser getInstance(CompiledWeights weights, String seed) {
+        return WeightedRandomiser.getInstance(weights, RandomUtils.toLongSeed(seed));
+    }
+
+    /**
+     * Creates a secured instance of {@code WeightedRandomiser} with compiled
+     * weights and a random seed automatically generated by the
+     * {@code pglj/rst2} library.
+     *
+     * @param weights the compiled weights
+     * @return an instance of {@code WeightedRandomiser}
+     * @throws NullPointerException
+     *         if the argument {@code weights} is {@code null}
+     * @see #getInstance(CompiledWeights)
+     */
+    public static WeightedRandomiser getInstanceSecure(CompiledWeights weights) {
+        return WeightedRandomiser.getInstanceSecure(weights, RandomUtils.randomBytesSeed());
+    }
+
+    /**
+     * Creates a secured instance of {@code WeightedRandomiser} with compiled
+     * weights and seed.
+     *
+     * @param weights the compiled weights
+     * @param seed the seed for the randomiser
+     * @return an instance of {@code WeightedRandomiser}
+     * @throws NullPointerException
+     *         if the argument {@code weights} or {@code seed} is {@code null}
+     * @see #getInstance(CompiledWeights)
+     */
+    public static WeightedRandomiser getInstanceSecure(CompiledWeights weights, byte[] seed) {
+        return new WeightedRandomiser(weights, new SecureRandomInputStream(seed));
+    }
+
+    /**
+     * Creates a secured instance of {@code WeightedRandomiser} with compiled
+     * weights and seed. The seed will ultimately be casted into {@code byte[]}
+     * for seeding the randomiser by using the methods
+     * {@link RandomUtils#toBytesSeed(String)}.
+     *
+     * @param weights the compiled weights
+     * @param seed the seed for the randomiser
+     * @return an instance of {@code WeightedRandomiser}
+     * @throws NullPointerException
+     *         if the argument {@code weights} or {@code seed} is {@code null}
+     * @see #getInstance(CompiledWeights)
+     */
+    public static WeightedRandomiser getInstanceSecure(CompiledWeights weights, String seed) {
+        return WeightedRandomiser.getInstanceSecure(weights, RandomUtils.toBytesSeed(seed));
     }
 
     /**
@@ -228,20 +285,50 @@ public final class WeightedRandomiser extends Randomiser {
      *
      * @param weights the weight map
      * @param randomStream the random stream for generating data
+     * @throws IllegalArgumentException
+     *         if the argument {@code weights} is empty; or the total
+     *         accumulated weight exceeds the maximum integer
      * @throws NullPointerException
-     *         if the argument {@code randomStream} is {@code null}
+     *         if the argument {@code weights} or {@code randomStream} is
+     *         {@code null}
      */
     public WeightedRandomiser(Map<String, Integer> weights, RandomInputStream randomStream) {
+        this(CompiledWeights.compile(weights), randomStream);
+    }
+
+    /**
+     * Initialises the randomiser with compiled weights and a given random
+     * input stream.
+     *
+     * @param weights the compiled weights
+     * @param randomStream the random stream for generating data
+     * @throws NullPointerException
+     *         if the argument {@code weights} or {@code randomStream} is
+     *         {@code null}
+     */
+    public WeightedRandomiser(CompiledWeights weights, RandomInputStream randomStream) {
         super(randomStream);
-        this.weights = WeightedRandomiser.compile(weights);
-        this.summary = WeightedRandomiser.summarise(this.weights);
-        this.total = WeightedRandomiser.total(this.weights);
+        Objects.requireNonNull(weights, "weights == null");
+        this.weights = weights;
+        this.sampler = new UniformSampler(this.getBitSource());
+    }
+
+    private final CompiledWeights weights;
+    private final UniformSampler  sampler;
 
+    /**
+     * Returns the compiled weights of this randomiser.
+     *
+     * @return the compiled weights
+     */
+    public CompiledWeights weights() {
+        return this.weights;
     }
 
-    private final Map<Integer, Character> weights;
-    private final String                  summary;
-    private final int                     total;
+    @Override
+    public UniformSampler sampler() {
+        return this.sampler;
+    }
 
     @Override
     public boolean equals(Object object) {
@@ -254,55 +341,44 @@ public final class WeightedRandomiser extends Randomiser {
     }
 
     /**
-     * <p>
-     * Generates a byte encoded string with {@code length} amount of bytes.
-     * </p>
-     * <p>
-     * This method is implemented as follow:
-     * </p>
-     * <code>
-     * return this.generateString(length).getBytes(StandardCharsets.UTF_8);
-     * </code>
+     * Generates a UTF-8 encoded string with {@code length} amount of
+     * characters. The characters are written as their UTF-8 encoding into the
+     * result array directly, no string is created.
      *
      * @param length the length of the generated string
-     * @return the bytes representation of the generated string
+     * @return the UTF-8 bytes representation of the generated string
      */
     @Override
     public byte[] generate(int length) {
-        return this.generateString(length).getBytes(StandardCharsets.UTF_8);
+        long start = this.getMetrics().start();
+        // a negative length generates nothing, as the other randomisers
+        int count = Math.max(0, length);
+        byte[] bytes = new byte[StrictMath.multiplyExact(count, this.weights.width())];
+        int offset = 0;
+        for (int i = 0; i < count; i++) {
+            offset = this.weights.encode(this.getPointer(), bytes, offset);
+        }
+        this.getMetrics().record(start, offset, count);
+        return Arrays.copyOf(bytes, offset);
     }
 
     /**
-     * Generates a string with {@code length} amount of random bytes.
+     * Generates a string with {@code length} amount of characters.
      *
      * @param length the length of the generated string
      * @return the generated string
      */
     public String generateString(int length) {
-        StringBuilder string = new StringBuilder();
-        for (int i = 0; i < length; i++) {
-            string.append(this.getCharacter(this.getPointer()));
-        }
-        return string.toString();
-    }
-
-    private char getCharacter(int pointer) {
-        for (Map.Entry<Integer, Character> entry : this.weights.entrySet()) {
-            if (entry.getKey() > pointer) {
-                return entry.getValue();
-            }
-        }
-        throw new IllegalArgumentException("pointer missed: " + pointer);
+        return new String(this.generate(length), StandardCharsets.UTF_8);
     }
 
     private int getPointer() {
-        double d = (ByteBuffer.wrap(super.generate(8)).getLong() >>> 11) / (double) (1l << 53);
-        return (int) StrictMath.floor(d * this.total);
+        return this.sampler.next(this.weights.total());
     }
 
     @Override
     public String toString() {
-        return String.format("rst/WeightedRandomiser:%s#%d$%s", this.summary, this.total, this.getRandomStream());
+        return String.format("rst/WeightedRandomiser:%s#%d$%s", this.weights.characters(), this.weights.total(), this.getRandomStream());
     }
 
 }
@@ -0,0 +1,268 @@
+package org.pgstyle.rst2.security;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.pgstyle.rst2.metrics.RstMetrics;
+
+/**
+ * <p>
+ * The {@code BitSource} serves random bits of any count from a buffer of
+ * random bytes, the buffer is refilled from a {@link RandomInputStream} with a
+ * single bulk read. The bits are taken from the current 64-bit word of the
+ * buffer, a request crossing the word continues with the next word, so no bit
+ * of a word is thrown away; whole bytes are copied straight from the buffer.
+ * </p>
+ * <p>
+ * Every {@link Randomiser} draws its random data through a {@code BitSource},
+ * a randomiser using {@code k} bits of a character takes exactly {@code k}
+ * bits; and the random engine is called once for every {@value #POOL} bytes.
+ * A {@code BitSource} is not thread-safe.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public final class BitSource {
+
+    /** The number of random bytes read from the stream at once. */
+    public static final int POOL = 1 << 12;
+
+    /**
+     * Creates a bit source reading from the random input stream.
+     *
+     * @param randomStream the random input stream
+     * @throws NullPointerException
+     *         if the argument {@code randomStream} is {@code null}
+     */
+    public BitSource(RandomInputStream randomStream) {
+        Objects.requireNonNull(randomStream, "randomStream == null");
+        this.randomStream = randomStream;
+        this.pool = ByteBuffer.allocate(BitSource.POOL);
+        this.pool.position(BitSource.POOL);
+    }
+
+    private final RandomInputStream randomStream;
+    /** The random bytes read but not used yet. */
+    private final ByteBuffer pool;
+    /** The unused bits of the current word, from the lowest bit. */
+    private long             word;
+    /** The number of unused bits of the current word. */
+    private int              available;
+    /** The number of bits served. */
+    private long             served;
+    /** The number of reads from the stream. */
+    private long             refills;
+    /** The number of times the buffer is cleared. */
+    private int              epoch;
+    /** {@code true} if the buffer has been filled since cleared. */
+    private boolean          filled;
+    /** The state of the stream before the buffer is filled. */
+    private long             refillState;
+
+    /**
+     * Returns random bits in the lowest bits of a {@code long}.
+     *
+     * @param count the number of bits, in the range of {@code [0, 64]}
+     * @return the random bits
+     * @throws IllegalArgumentException
+     *         if the count is out of range
+     */
+    public long bits(int count) {
+        if (count < 0 || count > Long.SIZE) {
+            throw new IllegalArgumentException("bit count out of range: " + count);
+        }
+        if (count == Long.SIZE) {
+            if (this.available > 0) {
+                return this.bits(Integer.SIZE) << Integer.SIZE | this.bits(Integer.SIZE);
+            }
+            this.served += count;
+            return this.nextWord();
+        }
+        this.served += count;
+        long mask = (1L << count) - 1;
+        if (this.available >= count) {
+            long bits = this.word & mask;
+            this.word >>>= count;
+            this.available -= count;
+            return bits;
+        }
+        // take the remaining bits and continue with the next word
+        long bits = this.word;
+        int low = this.available;
+        this.word = this.nextWord();
+        bits = (bits | this.word << low) & mask;
+        this.word >>>= count - low;
+        this.available = Long.SIZE - count + low;
+        return bits;
+    }
+
+    /**
+     * Returns 32 random bits.
+     *
+     * @return a random {@code int}
+     */
+    public int nextInt() {
+        return (int) this.bits(Integer.SIZE);
+    }
+
+    /**
+     * Returns 64 random bits.
+     *
+     * @return a random {@code long}
+     */
+    public long nextLong() {
+        return this.bits(Long.SIZE);
+    }
+
+    /**
+     * Fills the buffer with random bytes copied straight from the buffer of
+     * this source.
+     *
+     * @param buffer the buffer to be filled
+     * @param offset the offset of the buffer to be filled at
+     * @param length the number of bytes to be filled
+     * @throws IndexOutOfBoundsException
+     *         if the offset or length is out of range of the buffer
+     * @throws NullPointerException
+     *         if the argument {@code buffer} is {@code null}
+     */
+    public void bytes(byte[] buffer, int offset, int length) {
+        Objects.requireNonNull(buffer, "buffer == null");
+        if (offset < 0 || length < 0 || offset > buffer.length - length) {
+            throw new IndexOutOfBoundsException("offset or length");
+        }
+        this.served += (long) length << 3;
+        while (length > 0) {
+            if (!this.pool.hasRemaining()) {
+                this.refill();
+            }
+            int count = Math.min(length, this.pool.remaining());
+            this.pool.get(buffer, offset, count);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Discards the buffered bits, for the stream being reset.
+     */
+    public void clear() {
+        this.pool.position(BitSource.POOL);
+        this.word = 0;
+        this.available = 0;
+        this.filled = false;
+        this.epoch++;
+    }
+
+    /**
+     * Takes a checkpoint of this source, restoring the checkpoint continues
+     * the bits from the position where the checkpoint is taken. A checkpoint
+     * is the state of the stream before the buffer is filled, the position in
+     * the buffer and the unused bits of the current word.
+     *
+     * @return the checkpoint of this source
+     * @throws UnsupportedOperationException
+     *         if the state of the random input stream is not accessible
+     * @see RandomInputStream#state()
+     */
+    public long[] checkpoint() {
+        long state = this.filled ? this.refillState : this.randomStream.state();
+        return new long[] {state, this.filled ? this.pool.position() : -1, this.word, this.available};
+    }
+
+    /**
+     * Restores a checkpoint of this source, the buffer is refilled from the
+     * state of the stream in the checkpoint.
+     *
+     * @param checkpoint the checkpoint of this source
+     * @throws IllegalArgumentException
+     *         if the checkpoint is malformed
+     * @throws UnsupportedOperationException
+     *         if the state of the random input stream is not accessible
+     * @see #checkpoint()
+     */
+    public void restore(long[] checkpoint) {
+        if (checkpoint.length != 4 || checkpoint[1] < -1 || checkpoint[1] > BitSource.POOL
+            || checkpoint[3] < 0 || checkpoint[3] > Long.SIZE) {
+            throw new IllegalArgumentException("malformed checkpoint: " + Arrays.toString(checkpoint));
+        }
+        this.randomStream.state(checkpoint[0]);
+        if (checkpoint[1] < 0) {
+            this.pool.position(BitSource.POOL);
+            this.filled = false;
+        }
+        else {
+            this.refill();
+            this.pool.position((int) checkpoint[1]);
+        }
+        this.word = checkpoint[2];
+        this.available = (int) checkpoint[3];
+    }
+
+    /**
+     * Returns the number of times the buffered bits are discarded, a reader
+     * keeping its own state of drawn bits can find whether the stream has
+     * been reset.
+     *
+     * @return the number of times the buffered bits are discarded
+     */
+    public int epoch() {
+        return this.epoch;
+    }
+
+    /**
+     * Returns the number of random bits served by this source.
+     *
+     * @return the number of random bits served
+     */
+    public long served() {
+        return this.served;
+    }
+
+    /**
+     * Returns the number of bulk reads from the random input stream.
+     *
+     * @return the number of reads from the stream
+     */
+    public long refills() {
+        return this.refills;
+    }
+
+    /**
+     * Takes the next word from the buffer, the bytes at the end of the buffer
+     * fewer than a word are skipped.
+     *
+     * @return a random word
+     */
+    private long nextWord() {
+        if (this.pool.remaining() < Long.BYTES) {
+            this.refill();
+        }
+        return this.pool.getLong();
+    }
+
+    /**
+     * Refills the buffer from the random input stream.
+     */
+    private void refill() {
+        long start = System.nanoTime();
+        if (this.randomStream.stateSupported()) {
+            this.refillState = this.randomStream.state();
+        }
+        byte[] bytes = this.pool.array();
+        for (int offset = 0; offset < bytes.length; offset += this.randomStream.read(bytes, offset, bytes.length - offset));
+        this.pool.clear();
+        this.filled = true;
+        this.refills++;
+        RstMetrics.engine().refill(bytes.length, start);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rst+pglj/security/BitSource:%d/%d$%s", this.served, this.refills, this.randomStream);
+    }
+
+}
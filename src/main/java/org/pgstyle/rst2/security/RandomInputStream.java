@@ -6,6 +6,8 @@ import java.security.SecureRandom;
 import java.util.Objects;
 import java.util.Random;
 
+import org.pgstyle.rst2.metrics.RstEvents;
+import org.pgstyle.rst2.metrics.RstMetrics;
 import org.pgstyle.rst2.random.RandomUtils;
 
 /**
@@ -85,9 +87,10 @@ public class RandomInputStream extends InputStream {
      * @param seed the seed for random byte generation
      */
     public RandomInputStream(long seed) {
-        this.random = new Random(seed);
+        this.random = new StatefulRandom(seed);
         this.seed = seed;
         this.failedReset = RandomInputStream.RESET;
+        RstMetrics.engine().reseed();
     }
 
     /**
@@ -114,6 +117,7 @@ public class RandomInputStream extends InputStream {
         this.random = random;
         this.seed = seed;
         this.failedReset = reset;
+        RstMetrics.engine().reseed();
     }
 
     /** the random byte provider */
@@ -188,15 +192,16 @@ public class RandomInputStream extends InputStream {
     }
 
     /**
-     * Reads 1 byte out of the {@code RandomInputStream}.
+     * Reads 1 byte out of the {@code RandomInputStream}. The byte is the
+     * highest byte of a random {@code int}, the lower bits of the linear
+     * congruential generator of {@code Random} have short periods, e.g. the
+     * lowest byte repeats every 2<sup>24</sup> draws.
      *
      * @return the byte value from 0 to 255
      */
     @Override
     public int read() {
-        byte[] bytes = new byte[1];
-        this.random.nextBytes(bytes);
-        return bytes[0] & 0xff;
+        return this.random.nextInt() >>> 24;
     }
 
     /**
@@ -211,7 +216,9 @@ public class RandomInputStream extends InputStream {
     }
 
     /**
-     * Reads bytes into the specific partition in the given byte array.
+     * Reads bytes into the specific partition in the given byte array. The
+     * bytes are the 2 highest bytes of each random {@code int}, as
+     * {@link #read()}.
      *
      * @param buffer a byte array for storing the read byte
      * @param offset the start position of the array can be used to store read
@@ -228,7 +235,15 @@ public class RandomInputStream extends InputStream {
         if (offset < 0 || length < 0 || offset + length > buffer.length) {
             throw new IndexOutOfBoundsException("offset or length");
         }
-        for (int i = 0; i < length; i++) {
+        int i = 0;
+        // one engine call for every 2 bytes, only the 2 highest bytes are
+        // taken as read(), the lower 2 bytes repeat every 2^24 and 2^32 draws
+        for (; i + Short.BYTES <= length; i += Short.BYTES) {
+            int random = this.random.nextInt();
+            buffer[i + offset] = (byte) (random >>> 24);
+            buffer[i + offset + 1] = (byte) (random >>> 16);
+        }
+        for (; i < length; i++) {
             buffer[i + offset] = (byte) this.read();
         }
         return length;
@@ -246,7 +261,10 @@ public class RandomInputStream extends InputStream {
         if (!this.resetSupported()) {
             throw new UnsupportedOperationException("underlying random does not support the reset of RandomStream", this.failedReset);
         }
+        Object event = RstEvents.beginSeed();
         this.random.setSeed(this.seed);
+        RstMetrics.engine().reseed();
+        RstEvents.endSeed(event, this.random.getClass().getSimpleName(), Long.BYTES, true);
     }
 
     /**
@@ -259,6 +277,47 @@ public class RandomInputStream extends InputStream {
         return Objects.isNull(this.failedReset);
     }
 
+    /**
+     * Returns {@code true} if the state of the underlying random of this
+     * {@code RandomInputStream} can be taken and set.
+     *
+     * @return {@code true} if the state can be taken and set; or
+     *         {@code false} otherwise
+     */
+    public boolean stateSupported() {
+        return this.random instanceof StatefulRandom;
+    }
+
+    /**
+     * Returns the state of the underlying random, setting the state back
+     * continues the stream from the position where the state is taken.
+     *
+     * @return the state of the underlying random
+     * @throws UnsupportedOperationException
+     *         if the state of the underlying random is not accessible
+     */
+    public long state() {
+        if (!this.stateSupported()) {
+            throw new UnsupportedOperationException("underlying random does not expose its state");
+        }
+        return ((StatefulRandom) this.random).state();
+    }
+
+    /**
+     * Sets the state of the underlying random.
+     *
+     * @param state the state of the underlying random
+     * @throws UnsupportedOperationException
+     *         if the state of the underlying random is not accessible
+     * @see #state()
+     */
+    public void state(long state) {
+        if (!this.stateSupported()) {
+            throw new UnsupportedOperationException("underlying random does not expose its state");
+        }
+        ((StatefulRandom) this.random).state(state);
+    }
+
     /**
      * Skips over bytes in the {@code RandomInputStream} and returns the
      * number of bytes skipped. If the skipping is failed, {@code -1} will be
@@ -3,6 +3,9 @@ package org.pgstyle.rst2.security;
 import java.io.Closeable;
 import java.util.Objects;
 
+import org.pgstyle.rst2.metrics.RandomiserMetrics;
+import org.pgstyle.rst2.metrics.RstMetrics;
+
 /**
  * <p>
  * {@code Randomiser} is the super class of all randomiser implementations.
@@ -56,9 +59,13 @@ public abstract class Randomiser implements Closeable {
         }
         this.wordSize = wordSize;
         this.randomStream = randomStream;
+        this.bitSource = new BitSource(randomStream);
+        this.metrics = RstMetrics.randomiser(this.getClass());
     }
 
     private final RandomInputStream randomStream;
+    private final BitSource bitSource;
+    private final RandomiserMetrics metrics;
     private final int wordSize;
 
     /**
@@ -101,6 +108,7 @@ public abstract class Randomiser implements Closeable {
     public boolean reset() {
         if (this.getRandomStream().resetSupported()) {
             this.getRandomStream().reset();
+            this.getBitSource().clear();
             return true;
         }
         return false;
@@ -116,12 +124,44 @@ public abstract class Randomiser implements Closeable {
      *         or an empty array if the {@code length} given is negative
      */
     public byte[] generate(int length) {
+        long start = this.getMetrics().start();
         int size = length * this.getWordSize();
         byte[] bytes = new byte[Math.max(0, size)];
-        for (int offset = 0; offset < size; offset += this.getRandomStream().read(bytes, offset, size - offset));
+        this.getBitSource().bytes(bytes, 0, bytes.length);
+        this.getMetrics().record(start, bytes.length, bytes.length);
         return bytes;
     }
 
+    /**
+     * Takes a checkpoint of the random data drawn by this
+     * {@code Randomiser}. Restoring the checkpoint continues the random data
+     * from the position where the checkpoint is taken, a randomiser keeping
+     * other state of its own must keep that state as well.
+     *
+     * @return the checkpoint of the random data
+     * @throws UnsupportedOperationException
+     *         if the random stream does not expose its state
+     * @see RandomInputStream#stateSupported()
+     */
+    public long[] checkpoint() {
+        return this.getBitSource().checkpoint();
+    }
+
+    /**
+     * Restores a checkpoint of the random data drawn by this
+     * {@code Randomiser}.
+     *
+     * @param checkpoint the checkpoint of the random data
+     * @throws IllegalArgumentException
+     *         if the checkpoint is malformed
+     * @throws UnsupportedOperationException
+     *         if the random stream does not expose its state
+     * @see #checkpoint()
+     */
+    public void restore(long[] checkpoint) {
+        this.getBitSource().restore(checkpoint);
+    }
+
     /**
      * Skips over words in the random stream of this {@code Randomiser}.
      *
@@ -142,6 +182,27 @@ public abstract class Randomiser implements Closeable {
         return this.randomStream;
     }
 
+    /**
+     * Returns the bit source of this {@code Randomiser}, all random data of
+     * this {@code Randomiser} is drawn from the bit source over the
+     * underlying random stream.
+     *
+     * @return the bit source
+     */
+    protected final BitSource getBitSource() {
+        return this.bitSource;
+    }
+
+    /**
+     * Returns the metrics of the type of this {@code Randomiser}, an
+     * implementation records every generate call into the metrics.
+     *
+     * @return the metrics of the type of this {@code Randomiser}
+     */
+    public final RandomiserMetrics getMetrics() {
+        return this.metrics;
+    }
+
     /**
      * Returns the word size of this randomiser.
      *
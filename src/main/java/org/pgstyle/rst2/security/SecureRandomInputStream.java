@@ -3,7 +3,9 @@ package org.pgstyle.rst2.security;
 import java.security.SecureRandom;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.Objects;
 
+import org.pgstyle.rst2.metrics.RstEvents;
 import org.pgstyle.rst2.random.RandomUtils;
 
 /**
@@ -52,7 +54,7 @@ public final class SecureRandomInputStream extends RandomInputStream {
      * @throws NullPointerException if the seed is {@code null}
      */
     public SecureRandomInputStream(byte[] seed) {
-        super(new SecureRandom(seed), 0, SecureRandomInputStream.L_SRESET);
+        super(SecureRandomInputStream.seeded(seed), 0, SecureRandomInputStream.L_SRESET);
         this.secureSeed = seed;
     }
 
@@ -105,6 +107,63 @@ public final class SecureRandomInputStream extends RandomInputStream {
 
     private final byte[] secureSeed;
 
+    /**
+     * Creates a {@code SecureRandom} with the seed.
+     *
+     * @param seed the seed for random byte generation
+     * @return a seeded {@code SecureRandom}
+     * @throws NullPointerException if the seed is {@code null}
+     */
+    private static SecureRandom seeded(byte[] seed) {
+        Object event = RstEvents.beginSeed();
+        SecureRandom random = new SecureRandom(seed);
+        RstEvents.endSeed(event, random.getAlgorithm(), seed.length, false);
+        return random;
+    }
+
+    /**
+     * Reads 1 byte out of the {@code SecureRandomInputStream}, the byte is
+     * drawn from the {@code SecureRandom} directly.
+     *
+     * @return the byte value from 0 to 255
+     */
+    @Override
+    public int read() {
+        byte[] bytes = new byte[1];
+        this.random.nextBytes(bytes);
+        return bytes[0] & 0xff;
+    }
+
+    /**
+     * Reads bytes into the specific partition in the given byte array, the
+     * bytes are drawn from the {@code SecureRandom} in a single call.
+     *
+     * @param buffer a byte array for storing the read byte
+     * @param offset the start position of the array can be used to store read
+     *               byte
+     * @param length the number of byte to be read
+     * @return the number of bytes have been read
+     * @throws IndexOutOfBoundsException if the offset or length is negative;
+     *         or the sum of offset and length larger than the length of the array
+     * @throws NullPointerException if the byte array is {@code null}
+     */
+    @Override
+    public int read(byte[] buffer, int offset, int length) {
+        Objects.requireNonNull(buffer, "buffer == null");
+        if (offset < 0 || length < 0 || offset + length > buffer.length) {
+            throw new IndexOutOfBoundsException("offset or length");
+        }
+        if (offset == 0 && length == buffer.length) {
+            this.random.nextBytes(buffer);
+        }
+        else {
+            byte[] bytes = new byte[length];
+            this.random.nextBytes(bytes);
+            System.arraycopy(bytes, 0, buffer, offset, length);
+        }
+        return length;
+    }
+
     @Override
     public boolean equals(Object other) {
         return this == other;
@@ -0,0 +1,75 @@
+package org.pgstyle.rst2.security;
+
+import java.util.Random;
+
+/**
+ * <p>
+ * The {@code StatefulRandom} is the 48-bit linear congruential generator of
+ * {@link Random} with its state exposed, it generates the same sequence as a
+ * {@code Random} of the same seed. The state can be taken and set back to
+ * continue the sequence from where the state is taken.
+ * </p>
+ * <p>
+ * Unlike {@code Random}, the {@code StatefulRandom} is not thread-safe.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+final class StatefulRandom extends Random {
+
+    private static final long serialVersionUID = 1L;
+
+    /** The multiplier of the generator, same as {@code Random}. */
+    private static final long MULTIPLIER = 0x5deece66dL;
+    /** The addend of the generator, same as {@code Random}. */
+    private static final long ADDEND = 0xbL;
+    /** The mask of the 48-bit state. */
+    private static final long MASK = (1L << 48) - 1;
+
+    /**
+     * Creates a generator with the seed, the seed is scrambled as
+     * {@link Random#setSeed(long)}.
+     *
+     * @param seed the seed
+     */
+    StatefulRandom(long seed) {
+        // the constructor of Random sets the seed with setSeed(long)
+        super(seed);
+    }
+
+    /** The 48-bit state, not initialised to keep the state set by super. */
+    private long state;
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        this.state = (seed ^ StatefulRandom.MULTIPLIER) & StatefulRandom.MASK;
+    }
+
+    @Override
+    protected int next(int bits) {
+        this.state = this.state * StatefulRandom.MULTIPLIER + StatefulRandom.ADDEND & StatefulRandom.MASK;
+        return (int) (this.state >>> 48 - bits);
+    }
+
+    /**
+     * Returns the 48-bit state of the generator.
+     *
+     * @return the state of the generator
+     */
+    long state() {
+        return this.state;
+    }
+
+    /**
+     * Sets the 48-bit state of the generator.
+     *
+     * @param state the state of the generator
+     */
+    void state(long state) {
+        this.state = state & StatefulRandom.MASK;
+    }
+
+}
@@ -0,0 +1,212 @@
+package org.pgstyle.rst2.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The {@code FlightEvents} holds the Flight Recorder events behind the
+ * {@link RstEvents}, the class is loaded only after the Flight Recorder is
+ * initialised. An event is created only if its type is enabled, and committed
+ * only if it passes the threshold of the recording.
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+final class FlightEvents {
+
+    /** The construction of a randomiser. */
+    @Name("org.pgstyle.rst2.Construction")
+    @Label("Randomiser Construction")
+    @Description("Construction of a randomiser, including the seed derivation")
+    @Category("rst-2")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class ConstructionEvent extends Event {
+        @Label("Type")
+        String  type;
+        @Label("Secure")
+        boolean secure;
+        @Label("Seeded")
+        boolean seeded;
+    }
+
+    /** The derivation of a seed. */
+    @Name("org.pgstyle.rst2.SeedDerivation")
+    @Label("Seed Derivation")
+    @Description("Derivation of a seed from a string or the random seed generator")
+    @Category("rst-2")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class SeedDerivationEvent extends Event {
+        @Label("Source")
+        String source;
+        @Label("Seed Size")
+        @DataAmount
+        int    bytes;
+    }
+
+    /** The generation of a chunk by the generator. */
+    @Name("org.pgstyle.rst2.Chunk")
+    @Label("Chunk Generation")
+    @Description("Generation of a step of characters or records by the random string generator")
+    @Category("rst-2")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class ChunkEvent extends Event {
+        @Label("Type")
+        String type;
+        @Label("Units")
+        @Description("Number of characters or records")
+        int    units;
+        @Label("Size")
+        @DataAmount
+        int    bytes;
+    }
+
+    /** The seeding of a random engine. */
+    @Name("org.pgstyle.rst2.Seed")
+    @Label("Engine Seeding")
+    @Description("Seeding of a SecureRandom engine, or reseeding of an engine on reset")
+    @Category("rst-2")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class SeedEvent extends Event {
+        @Label("Engine")
+        String  engine;
+        @Label("Seed Size")
+        @DataAmount
+        int     bytes;
+        @Label("Reseed")
+        boolean reseed;
+    }
+
+    /** The flush of an output buffer. */
+    @Name("org.pgstyle.rst2.Flush")
+    @Label("Output Flush")
+    @Description("Flush of an output buffer into the sink")
+    @Category("rst-2")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class FlushEvent extends Event {
+        @Label("Size")
+        @DataAmount
+        int bytes;
+    }
+
+    private static final EventType CONSTRUCTION    = EventType.getEventType(ConstructionEvent.class);
+    private static final EventType SEED_DERIVATION = EventType.getEventType(SeedDerivationEvent.class);
+    private static final EventType CHUNK           = EventType.getEventType(ChunkEvent.class);
+    private static final EventType SEED            = EventType.getEventType(SeedEvent.class);
+    private static final EventType FLUSH           = EventType.getEventType(FlushEvent.class);
+
+    static Object beginConstruction() {
+        if (!FlightEvents.CONSTRUCTION.isEnabled()) {
+            return null;
+        }
+        ConstructionEvent event = new ConstructionEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endConstruction(Object handle, String type, boolean secure, boolean seeded) {
+        ConstructionEvent event = (ConstructionEvent) handle;
+        event.end();
+        if (event.shouldCommit()) {
+            event.type = type;
+            event.secure = secure;
+            event.seeded = seeded;
+            event.commit();
+        }
+    }
+
+    static Object beginSeedDerivation() {
+        if (!FlightEvents.SEED_DERIVATION.isEnabled()) {
+            return null;
+        }
+        SeedDerivationEvent event = new SeedDerivationEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endSeedDerivation(Object handle, String source, int bytes) {
+        SeedDerivationEvent event = (SeedDerivationEvent) handle;
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = source;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    static Object beginChunk() {
+        if (!FlightEvents.CHUNK.isEnabled()) {
+            return null;
+        }
+        ChunkEvent event = new ChunkEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endChunk(Object handle, String type, int units, int bytes) {
+        ChunkEvent event = (ChunkEvent) handle;
+        event.end();
+        if (event.shouldCommit()) {
+            event.type = type;
+            event.units = units;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    static Object beginSeed() {
+        if (!FlightEvents.SEED.isEnabled()) {
+            return null;
+        }
+        SeedEvent event = new SeedEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endSeed(Object handle, String engine, int bytes, boolean reseed) {
+        SeedEvent event = (SeedEvent) handle;
+        event.end();
+        if (event.shouldCommit()) {
+            event.engine = engine;
+            event.bytes = bytes;
+            event.reseed = reseed;
+            event.commit();
+        }
+    }
+
+    static Object beginFlush() {
+        if (!FlightEvents.FLUSH.isEnabled()) {
+            return null;
+        }
+        FlushEvent event = new FlushEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endFlush(Object handle, int bytes) {
+        FlushEvent event = (FlushEvent) handle;
+        event.end();
+        if (event.shouldCommit()) {
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    /** Unnewable @throws UnsupportedOperationException always */
+    private FlightEvents() {
+        throw new UnsupportedOperationException("unnewable");
+    }
+
+}
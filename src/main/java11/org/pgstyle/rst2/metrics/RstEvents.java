@@ -0,0 +1,160 @@
+package org.pgstyle.rst2.metrics;
+
+import java.util.Objects;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * <p>
+ * The {@code RstEvents} is the facade of the Flight Recorder events of the
+ * {@code pglj/rst2} library. An activity is surrounded by a {@code begin}
+ * call, which returns a handle of the event, and an {@code end} call, which
+ * takes the handle and the details of the activity.
+ * </p>
+ * <p>
+ * This is the Java 11 layer of the multi-release jar, the events
+ * {@code org.pgstyle.rst2.*} are disabled by default. Until the Flight
+ * Recorder is initialised by a recording, a {@code begin} call returns a
+ * {@code null} handle after reading a flag, the event classes are not even
+ * loaded; afterward a disabled event returns a {@code null} handle without
+ * reading the clock. The runtime without the {@code jdk.jfr} module emits no
+ * event.
+ * </p>
+ *
+ * @since rst-2
+ * @version rst-2.0
+ * @author PGKan
+ */
+public final class RstEvents {
+
+    /** {@code true} if the {@code jdk.jfr} module is present. */
+    private static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+    /**
+     * Returns {@code true} if a Flight Recorder event may be recording.
+     *
+     * @return {@code true} if the Flight Recorder is initialised
+     */
+    private static boolean recording() {
+        return RstEvents.AVAILABLE && FlightRecorder.isInitialized();
+    }
+
+    /**
+     * Begins the construction of a randomiser.
+     *
+     * @return the handle of the event; or {@code null} if not recording
+     */
+    public static Object beginConstruction() {
+        return RstEvents.recording() ? FlightEvents.beginConstruction() : null;
+    }
+
+    /**
+     * Ends the construction of a randomiser, the seed derivation in the
+     * construction is included.
+     *
+     * @param event the handle of the event
+     * @param type the type of the randomiser
+     * @param secure {@code true} if the randomiser is secure
+     * @param seeded {@code true} if the randomiser is created with a given seed
+     */
+    public static void endConstruction(Object event, String type, boolean secure, boolean seeded) {
+        if (Objects.nonNull(event)) {
+            FlightEvents.endConstruction(event, type, secure, seeded);
+        }
+    }
+
+    /**
+     * Begins the derivation of a seed.
+     *
+     * @return the handle of the event; or {@code null} if not recording
+     */
+    public static Object beginSeedDerivation() {
+        return RstEvents.recording() ? FlightEvents.beginSeedDerivation() : null;
+    }
+
+    /**
+     * Ends the derivation of a seed.
+     *
+     * @param event the handle of the event
+     * @param source the source of the seed, a string or random
+     * @param bytes the number of bytes of the seed
+     */
+    public static void endSeedDerivation(Object event, String source, int bytes) {
+        if (Objects.nonNull(event)) {
+            FlightEvents.endSeedDerivation(event, source, bytes);
+        }
+    }
+
+    /**
+     * Begins the generation of a chunk.
+     *
+     * @return the handle of the event; or {@code null} if not recording
+     */
+    public static Object beginChunk() {
+        return RstEvents.recording() ? FlightEvents.beginChunk() : null;
+    }
+
+    /**
+     * Ends the generation of a chunk.
+     *
+     * @param event the handle of the event
+     * @param type the type of the randomiser
+     * @param units the number of characters or records of the chunk
+     * @param bytes the number of bytes of the chunk
+     */
+    public static void endChunk(Object event, String type, int units, int bytes) {
+        if (Objects.nonNull(event)) {
+            FlightEvents.endChunk(event, type, units, bytes);
+        }
+    }
+
+    /**
+     * Begins the seeding of a random engine.
+     *
+     * @return the handle of the event; or {@code null} if not recording
+     */
+    public static Object beginSeed() {
+        return RstEvents.recording() ? FlightEvents.beginSeed() : null;
+    }
+
+    /**
+     * Ends the seeding of a random engine.
+     *
+     * @param event the handle of the event
+     * @param engine the class of the random engine
+     * @param bytes the number of bytes of the seed
+     * @param reseed {@code true} if the engine is reseeded
+     */
+    public static void endSeed(Object event, String engine, int bytes, boolean reseed) {
+        if (Objects.nonNull(event)) {
+            FlightEvents.endSeed(event, engine, bytes, reseed);
+        }
+    }
+
+    /**
+     * Begins the flush of an output buffer into a sink.
+     *
+     * @return the handle of the event; or {@code null} if not recording
+     */
+    public static Object beginFlush() {
+        return RstEvents.recording() ? FlightEvents.beginFlush() : null;
+    }
+
+    /**
+     * Ends the flush of an output buffer into a sink.
+     *
+     * @param event the handle of the event
+     * @param bytes the number of bytes flushed
+     */
+    public static void endFlush(Object event, int bytes) {
+        if (Objects.nonNull(event)) {
+            FlightEvents.endFlush(event, bytes);
+        }
+    }
+
+    /** Unnewable @throws UnsupportedOperationException always */
+    private RstEvents() {
+        throw new UnsupportedOperationException("unnewable");
+    }
+
+}